@@ -0,0 +1,69 @@
+package org.example.benchmark;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.noop.NoopTimer;
+import org.example.service.EncodedTrackingNumberService;
+import org.example.service.GenerationMetrics;
+import org.example.service.SequenceTrackingNumberService;
+import org.example.service.StatelessTrackingNumberService;
+import org.example.service.ThreadLocalSecureRandomEntropySource;
+import org.example.service.TrackingNumberService;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds generation engines outside Spring, wired the same way the application context does
+ */
+final class BenchmarkSupport {
+
+    static final String CUSTOMER_ID = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param engine Engine name as used by {@code app.tracking-number.engine}
+     * @param timed Whether generation is recorded by real {@link GenerationMetrics} or no-op ones
+     */
+    static TrackingNumberService createEngine(String engine, boolean timed) {
+        // Same level as TrackingNumberPerformanceTest, so console logging does not dominate
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.example")).setLevel(Level.WARN);
+
+        TrackingNumberService service = switch (engine) {
+            case "hash" -> {
+                StatelessTrackingNumberService stateless = new StatelessTrackingNumberService();
+                ReflectionTestUtils.setField(stateless, "entropySource",
+                        new ThreadLocalSecureRandomEntropySource("DRBG", 1_000_000));
+                yield stateless;
+            }
+            case "encoded" -> new EncodedTrackingNumberService();
+            case "sequence" -> new SequenceTrackingNumberService(0, 1024);
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+
+        ReflectionTestUtils.setField(service, "generationMetrics", timed ? new GenerationMetrics(16, 1000, true) : noopMetrics());
+        return service;
+    }
+
+    /**
+     * Metrics that record nothing, the baseline for instrumentation overhead
+     */
+    static GenerationMetrics noopMetrics() {
+        return new GenerationMetrics(0, 0, true) {
+            @Override
+            public void recordGeneration(String originCountryId, String destinationCountryId, long nanos) {
+            }
+
+            @Override
+            public void recordError() {
+            }
+        };
+    }
+
+    static Timer noopTimer() {
+        return new NoopTimer(new Meter.Id("noop", Tags.empty(), null, null, Meter.Type.TIMER));
+    }
+}
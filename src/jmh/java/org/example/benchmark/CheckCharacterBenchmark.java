@@ -0,0 +1,65 @@
+package org.example.benchmark;
+
+import org.example.service.CheckCharacterCodec;
+import org.example.service.TrackingNumberEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk verification of checked numbers ({@code app.tracking-number.format=checked}) as done by
+ * {@code POST /tracking-numbers/verify}: a text body of 10,000 numbers, one in 64 mistyped, read
+ * straight from its bytes, against the same numbers as Strings. Scores are per body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckCharacterBenchmark {
+
+    private static final int NUMBERS = 10_000;
+
+    private byte[] body;
+    private String[] trackingNumbers;
+
+    @Setup
+    public void setUp() {
+        CheckCharacterCodec codec = new CheckCharacterCodec();
+        SplittableRandom random = new SplittableRandom(42);
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+        trackingNumbers = new String[NUMBERS];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < NUMBERS; i++) {
+            codec.encode("MY", "ID", random.nextLong(), buffer, 0);
+            if (i % 64 == 0) {
+                buffer[7] = (byte) (buffer[7] == 'A' ? 'B' : 'A');
+            }
+            trackingNumbers[i] = TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+            text.append(trackingNumbers[i]).append('\n');
+        }
+        body = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public BitSet verifyLines() {
+        BitSet invalid = new BitSet();
+        CheckCharacterCodec.verifyLines(body, body.length, Integer.MAX_VALUE, invalid);
+        return invalid;
+    }
+
+    @Benchmark
+    public BitSet verifyStrings() {
+        BitSet invalid = new BitSet();
+        for (int i = 0; i < trackingNumbers.length; i++) {
+            if (!CheckCharacterCodec.isValid(trackingNumbers[i])) {
+                invalid.set(i);
+            }
+        }
+        return invalid;
+    }
+}
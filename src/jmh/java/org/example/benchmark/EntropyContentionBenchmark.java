@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.config.EntropyConfig;
+import org.example.service.EntropySource;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random component draws under contention: the single shared SecureRandom the hash engine used
+ * to hold against the configurable entropy sources, at 1, 4, 16 and 64 threads
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class EntropyContentionBenchmark {
+
+    @Param({"DRBG", "SHA1PRNG", "SPLITTABLE"})
+    public String algorithm;
+
+    // 0 for one generator per thread
+    @Param({"0", "16"})
+    public int stripes;
+
+    private final SecureRandom sharedSecureRandom = new SecureRandom();
+    private EntropySource entropySource;
+
+    @Setup
+    public void setUp() {
+        entropySource = new EntropyConfig().entropySource(algorithm, 1_000_000, stripes, false);
+    }
+
+    @Benchmark
+    public long sharedSecureRandom() {
+        return sharedSecureRandom.nextLong();
+    }
+
+    @Benchmark
+    public long entropySource() {
+        return entropySource.nextLong();
+    }
+
+    @Threads(1)
+    public static class OneThread extends EntropyContentionBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends EntropyContentionBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends EntropyContentionBenchmark {
+    }
+
+    @Threads(64)
+    public static class SixtyFourThreads extends EntropyContentionBenchmark {
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.benchmark;
+
+import org.example.service.TrackingNumberService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@code generateTrackingNumber} call per engine, with and without generation metrics
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+
+    @Param({"hash", "encoded", "sequence"})
+    public String engine;
+
+    @Param({"true", "false"})
+    public boolean timed;
+
+    private TrackingNumberService trackingNumberService;
+
+    @Setup
+    public void setUp() {
+        trackingNumberService = BenchmarkSupport.createEngine(engine, timed);
+    }
+
+    @Benchmark
+    public String generateTrackingNumber() {
+        return trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, BenchmarkSupport.CUSTOMER_ID);
+    }
+}
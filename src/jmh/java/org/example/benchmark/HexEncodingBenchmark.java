@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.example.service.TrackingNumberEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hex encoding of the first 8 hash bytes: the StringBuilder path in StatelessTrackingNumberService
+ * against the lookup-table encoder
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HexEncodingBenchmark {
+
+    private final byte[] hashBytes = new byte[32];
+    private final byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+    private long value;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ThreadLocalRandom.current().nextBytes(hashBytes);
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (hashBytes[i] & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public String stringBuilder() {
+        StringBuilder hexString = new StringBuilder();
+        for (int i = 0; i < Math.min(8, hashBytes.length); i++) {
+            String hex = Integer.toHexString(0xff & hashBytes[i]);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString().toUpperCase();
+    }
+
+    @Benchmark
+    public String lookupTable() {
+        TrackingNumberEncoder.encodeHex(value, buffer, 0);
+        return TrackingNumberEncoder.toString(buffer, 0, TrackingNumberEncoder.LENGTH);
+    }
+}
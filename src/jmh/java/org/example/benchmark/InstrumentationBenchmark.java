@@ -0,0 +1,63 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.GenerationMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation cost added to one generation call: {@link GenerationMetrics} against the
+ * Micrometer timer and counter it replaced, used the way the hash engine used them
+ * ({@code recordCallable}, which also reads the clock twice) and the way the other engines did
+ * ({@code record}, given a duration like {@code recordGeneration}). Run with several threads
+ * ({@code -t 4}) to see contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+    private GenerationMetrics generationMetrics;
+    private Timer timer;
+    private Counter counter;
+
+    // Read from a field so the JIT cannot fold the recorded values
+    private String origin = "MY";
+    private String destination = "ID";
+    private long nanos = 850;
+
+    @Setup
+    public void setUp() {
+        generationMetrics = new GenerationMetrics(16, 1000, true);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        timer = registry.timer("generation");
+        counter = registry.counter("generated");
+    }
+
+    @Benchmark
+    public boolean generationMetrics() {
+        boolean timePhases = generationMetrics.samplePhases(nanos);
+        generationMetrics.recordGeneration(origin, destination, nanos);
+        return timePhases;
+    }
+
+    @Benchmark
+    public String micrometerRecordCallable() throws Exception {
+        String result = timer.recordCallable(() -> origin);
+        counter.increment();
+        return result;
+    }
+
+    @Benchmark
+    public void micrometerRecord() {
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        counter.increment();
+    }
+}
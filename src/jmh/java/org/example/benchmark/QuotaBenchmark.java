@@ -0,0 +1,74 @@
+package org.example.benchmark;
+
+import io.github.bucket4j.Bucket;
+import org.example.service.BoundedEvictingStore;
+import org.example.service.LocalRateLimiter;
+import org.example.service.Quota;
+import org.example.service.QuotaPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request quota decision with 100k customers assigned to tiers: tier lookup from the raw
+ * customer id, then one bucket check against a burst and a sustained limit
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuotaBenchmark {
+
+    private static final int CUSTOMERS = 100_000;
+    private static final String PRINCIPAL = "developer";
+
+    private QuotaPlan plan;
+    private LocalRateLimiter limiter;
+    private String[] customerIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String[] tiers = {"bronze", "silver", "gold"};
+        customerIds = new String[CUSTOMERS];
+        Map<String, String> customers = new HashMap<>();
+        Map<String, List<String>> customerPrincipals = new HashMap<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerIds[i] = UUID.randomUUID().toString();
+            customers.put(customerIds[i], tiers[i % tiers.length]);
+            customerPrincipals.put(customerIds[i], List.of(PRINCIPAL));
+        }
+        // Large enough limits that every check is granted and does the full amount of work
+        Map<String, Map<String, String>> specs = new HashMap<>();
+        for (String tier : tiers) {
+            specs.put(tier, Map.of(QuotaPlan.ALL_ROUTES, "1000000000/1s,1000000000/1m"));
+        }
+        plan = new QuotaPlan(specs, "100/1m", Map.of(), customers, customerPrincipals);
+        limiter = new LocalRateLimiter(new BoundedEvictingStore<Bucket>("benchmark", CUSTOMERS * 2, 600_000));
+    }
+
+    @Benchmark
+    public int customerTier() {
+        return plan.customerTier(nextCustomer(), PRINCIPAL);
+    }
+
+    @Benchmark
+    public boolean decide() {
+        String customerId = nextCustomer();
+        int tier = plan.customerTier(customerId, PRINCIPAL);
+        Quota quota = plan.quotaFor(tier, QuotaPlan.Route.SINGLE);
+        return limiter.tryConsume(QuotaPlan.bucketKey(QuotaPlan.customerKey(customerId), quota), quota, 1);
+    }
+
+    private String nextCustomer() {
+        String customerId = customerIds[next];
+        next = next + 1 == CUSTOMERS ? 0 : next + 1;
+        return customerId;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.controller.CachedTimestamp;
+import org.example.controller.JsonResponseWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response construction of TrackingNumberController: the map it used to build and serialize with Jackson,
+ * against the pre-encoded template of {@link JsonResponseWriter}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public Map<String, Object> buildResponseMap() {
+        return responseMap();
+    }
+
+    @Benchmark
+    public byte[] serializeResponseMap() throws Exception {
+        return objectMapper.writeValueAsBytes(responseMap());
+    }
+
+    @Benchmark
+    public int writeResponseTemplate() {
+        return JsonResponseWriter.current()
+            .trackingNumber("A1B2C3D4E5F6G7H8", CachedTimestamp.now(), "MY", "ID")
+            .length();
+    }
+
+    private static Map<String, Object> responseMap() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tracking_number", "A1B2C3D4E5F6G7H8");
+        response.put("created_at", Instant.now().toString());
+        response.put("origin_country_id", "MY");
+        response.put("destination_country_id", "ID");
+        return response;
+    }
+}
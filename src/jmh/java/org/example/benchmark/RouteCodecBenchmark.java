@@ -0,0 +1,55 @@
+package org.example.benchmark;
+
+import org.example.service.RouteCodec;
+import org.example.service.TrackingNumberEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route layout ({@code app.tracking-number.format=route}) against the plain hex layout: writing a
+ * number into a buffer, and reading the route back from a number. Run with {@code -prof gc} to
+ * confirm neither allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteCodecBenchmark {
+
+    private final RouteCodec routeCodec = new RouteCodec();
+    private final byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+
+    // Read from fields so the JIT cannot fold the inputs
+    private String origin = "MY";
+    private String destination = "ID";
+    private long value;
+    private String trackingNumber;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        value = ThreadLocalRandom.current().nextLong();
+        routeCodec.encode(origin, destination, value, buffer, 0);
+        trackingNumber = TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+    }
+
+    @Benchmark
+    public byte[] encodeHex() {
+        TrackingNumberEncoder.encodeHex(value, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public byte[] encodeRoute() {
+        routeCodec.encode(origin, destination, value, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public RouteCodec.Route decodeRoute() {
+        return RouteCodec.decode(trackingNumber);
+    }
+}
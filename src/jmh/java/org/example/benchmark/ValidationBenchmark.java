@@ -0,0 +1,64 @@
+package org.example.benchmark;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.example.controller.FastTrackingRequestValidator;
+import org.example.controller.TrackingNumberController.TrackingNumberRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a /next-tracking-number request: Bean Validation (reflection and three regular
+ * expressions) against the hand-written {@link FastTrackingRequestValidator}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private final TrackingNumberRequest validRequest =
+        new TrackingNumberRequest("MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+    private final TrackingNumberRequest invalidRequest =
+        new TrackingNumberRequest("my", "XX", -1, "DE619854-B59B-425E-9DB4-943979E1BD49");
+
+    private Validator beanValidator;
+    private FastTrackingRequestValidator fastValidator;
+    private Errors validRequestErrors;
+
+    @Setup
+    public void setUp() {
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        fastValidator = new FastTrackingRequestValidator();
+        // Stays empty, a valid request adds no errors
+        validRequestErrors = new BeanPropertyBindingResult(validRequest, "trackingNumberRequest");
+    }
+
+    @Benchmark
+    public int beanValidationValid() {
+        return beanValidator.validate(validRequest).size();
+    }
+
+    @Benchmark
+    public int fastValid() {
+        fastValidator.validate(validRequest, validRequestErrors);
+        return validRequestErrors.getErrorCount();
+    }
+
+    @Benchmark
+    public int beanValidationInvalid() {
+        return beanValidator.validate(invalidRequest).size();
+    }
+
+    @Benchmark
+    public int fastInvalid() {
+        Errors errors = new BeanPropertyBindingResult(invalidRequest, "trackingNumberRequest");
+        fastValidator.validate(invalidRequest, errors);
+        return errors.getErrorCount();
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.config;
+
+import org.example.service.BoundedEvictingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers successful password checks so HTTP Basic clients pay for BCrypt once per TTL rather
+ * than on every request.
+ * <p>
+ * A check is identified by an HMAC-SHA256 of the raw password and the stored hash, under a key
+ * generated at startup; raw passwords are never kept. Because the stored hash is part of the
+ * digest, a changed password misses the cache immediately. {@link #invalidateAll()} replaces the
+ * key, which orphans every cached check at once. Failed checks are never cached, so guessing
+ * passwords still costs a full BCrypt verify per attempt.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingPasswordEncoder.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+    private final BoundedEvictingStore<VerifiedCheck> verified;
+    private final long ttlNanos;
+    private final SecureRandom keyGenerator = new SecureRandom();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Initialized prototype, cloned per check since Mac instances are not thread-safe
+    private volatile Mac mac;
+
+    /**
+     * @param delegate Encoder that does the actual verification
+     * @param maxEntries Verified checks kept at most
+     * @param ttlMillis How long a verified check is trusted
+     */
+    public CachingPasswordEncoder(PasswordEncoder delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.verified = new BoundedEvictingStore<>("auth-cache", maxEntries, ttlMillis);
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.mac = newMac();
+    }
+
+    public void start() {
+        verified.start();
+    }
+
+    public void stop() {
+        verified.stop();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        byte[] digest = digest(rawPassword, encodedPassword);
+        long key = ByteBuffer.wrap(digest).getLong();
+        long now = System.nanoTime();
+
+        VerifiedCheck check = verified.get(key);
+        if (check != null && now - check.verifiedAt < ttlNanos && MessageDigest.isEqual(check.digest, digest)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        if (!delegate.matches(rawPassword, encodedPassword)) {
+            return false;
+        }
+        if (check != null) {
+            verified.remove(key);
+        }
+        VerifiedCheck fresh = new VerifiedCheck(digest, now);
+        verified.computeIfAbsent(key, k -> fresh);
+        return true;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Forget every verified check, e.g. after credentials were rotated or revoked.
+     * Entries already cached become unreachable and age out of the store.
+     */
+    public void invalidateAll() {
+        mac = newMac();
+        logger.info("Authentication cache invalidated");
+    }
+
+    public int size() {
+        return verified.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private byte[] digest(CharSequence rawPassword, String encodedPassword) {
+        Mac instance;
+        try {
+            instance = (Mac) mac.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC implementation cannot be cloned", e);
+        }
+        instance.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+        // Separator, since a BCrypt hash never contains a NUL
+        instance.update((byte) 0);
+        instance.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword)));
+        return instance.doFinal();
+    }
+
+    private Mac newMac() {
+        byte[] key = new byte[32];
+        keyGenerator.nextBytes(key);
+        try {
+            Mac prototype = Mac.getInstance(HMAC_ALGORITHM);
+            prototype.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return prototype;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static final class VerifiedCheck {
+        private final byte[] digest;
+        private final long verifiedAt;
+
+        private VerifiedCheck(byte[] digest, long verifiedAt) {
+            this.digest = digest;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.config;
+
+import org.example.service.EntropySource;
+import org.example.service.SplittableRandomEntropySource;
+import org.example.service.StripedSecureRandomEntropySource;
+import org.example.service.ThreadLocalSecureRandomEntropySource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EntropyConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntropyConfig.class);
+
+    // Non-cryptographic mode, only for internal-only routes
+    public static final String SPLITTABLE_ALGORITHM = "SPLITTABLE";
+
+    /**
+     * @param stripes Shared generators to stripe over, 0 for one generator per thread. Striping is
+     *                always used with virtual threads, which would otherwise seed a generator per request.
+     */
+    @Bean
+    public EntropySource entropySource(@Value("${app.entropy.algorithm:DRBG}") String algorithm,
+                                       @Value("${app.entropy.reseed-interval:1000000}") long reseedInterval,
+                                       @Value("${app.entropy.stripes:0}") int stripes,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (SPLITTABLE_ALGORITHM.equalsIgnoreCase(algorithm)) {
+            logger.warn("Using non-cryptographic SplittableRandom entropy source");
+            return new SplittableRandomEntropySource();
+        }
+
+        if (stripes > 0 || virtualThreads) {
+            int stripeCount = stripes > 0 ? stripes : 4 * Runtime.getRuntime().availableProcessors();
+            logger.info("Using {} striped {} entropy sources, reseeded every {} draws", stripeCount, algorithm, reseedInterval);
+            return new StripedSecureRandomEntropySource(algorithm, stripeCount, reseedInterval);
+        }
+
+        logger.info("Using per-thread {} entropy source, reseeded every {} draws", algorithm, reseedInterval);
+        return new ThreadLocalSecureRandomEntropySource(algorithm, reseedInterval);
+    }
+}
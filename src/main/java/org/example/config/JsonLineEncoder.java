@@ -0,0 +1,113 @@
+package org.example.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Encodes each event as one line of JSON: timestamp, level, thread, logger, the MDC entries
+ * (such as {@code correlationId}), the message and any stack trace.
+ * <p>
+ * With {@code argumentNames} set, the event's arguments are written as fields of those names
+ * instead of the formatted message, so a record such as an audit entry is stored as data and its
+ * message pattern is never formatted. Numbers stay JSON numbers, everything else becomes a string.
+ * Encoders are called by one appender thread at a time, so the line buffer is reused.
+ */
+public class JsonLineEncoder extends EncoderBase<ILoggingEvent> {
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private String[] argumentNames;
+
+    /**
+     * @param argumentNames Comma separated field names for the event arguments, in argument order
+     */
+    public void setArgumentNames(String argumentNames) {
+        this.argumentNames = argumentNames.isBlank() ? null : argumentNames.trim().split("\\s*,\\s*");
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder out = line;
+        out.setLength(0);
+        out.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimeStamp()))
+           .append("\",\"level\":\"").append(event.getLevel())
+           .append("\",\"thread\":");
+        string(out, event.getThreadName());
+        out.append(",\"logger\":");
+        string(out, event.getLoggerName());
+        for (Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet()) {
+            out.append(',');
+            string(out, entry.getKey());
+            out.append(':');
+            string(out, entry.getValue());
+        }
+        Object[] arguments = event.getArgumentArray();
+        if (argumentNames != null && arguments != null) {
+            for (int i = 0; i < argumentNames.length && i < arguments.length; i++) {
+                out.append(',');
+                string(out, argumentNames[i]);
+                out.append(':');
+                value(out, arguments[i]);
+            }
+        } else {
+            out.append(",\"message\":");
+            string(out, event.getFormattedMessage());
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            out.append(",\"exception\":");
+            string(out, ThrowableProxyUtil.asString(throwable));
+        }
+        out.append("}\n");
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static void value(StringBuilder out, Object value) {
+        if (value instanceof Number number && !(value instanceof Double d && !Double.isFinite(d))
+                && !(value instanceof Float f && !Float.isFinite(f))) {
+            out.append(number);
+        } else {
+            string(out, String.valueOf(value));
+        }
+    }
+
+    private static void string(StringBuilder out, String value) {
+        out.append('"');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
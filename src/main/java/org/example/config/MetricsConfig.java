@@ -1,32 +1,291 @@
 package org.example.config;
 
-import io.micrometer.core.instrument.Counter;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.service.BoundedEvictingStore;
+import org.example.service.GenerationMetrics;
+import org.example.service.IdempotencyCache;
+import org.example.service.IssuedNumberRegistry;
+import org.example.service.RandomComponentPool;
+import org.example.service.SequenceCheckpoint;
+import org.example.service.SequenceTrackingNumberService;
+import org.example.service.TenantNamespaces;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class MetricsConfig {
 
+    private static final double[] LATENCY_QUANTILES = {0.5, 0.99, 0.999, 1.0};
+
+    private static final double[] PHASE_QUANTILES = {0.5, 0.99};
+
     @Bean
-    public Counter trackingNumberGeneratedCounter(MeterRegistry meterRegistry) {
-        return Counter.builder("tracking_numbers_generated_total")
-                .description("Number of tracking numbers generated")
-                .register(meterRegistry);
+    public GenerationMetrics generationMetrics(@Value("${app.metrics.phase-sample-rate:16}") int phaseSampleRate,
+                                               @Value("${app.metrics.max-routes:1000}") int maxRoutes,
+                                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return new GenerationMetrics(phaseSampleRate, maxRoutes, !virtualThreads);
     }
 
     @Bean
-    public Timer trackingNumberGenerationTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("tracking_number_generation_duration")
+    public FunctionTimer trackingNumberGenerationTimer(MeterRegistry meterRegistry, GenerationMetrics generationMetrics) {
+        return FunctionTimer.builder("tracking_number_generation_duration", generationMetrics,
+                        GenerationMetrics::getLatencyCount, GenerationMetrics::getLatencyTotalNanos, TimeUnit.NANOSECONDS)
                 .description("Generation time metrics")
                 .register(meterRegistry);
     }
 
     @Bean
-    public Counter trackingNumberErrorCounter(MeterRegistry meterRegistry) {
-        return Counter.builder("tracking_number_errors_total")
+    public FunctionCounter trackingNumberErrorCounter(MeterRegistry meterRegistry, GenerationMetrics generationMetrics) {
+        return FunctionCounter.builder("tracking_number_errors_total", generationMetrics, GenerationMetrics::getErrorCount)
                 .description("Generation error count")
                 .register(meterRegistry);
     }
+
+    /**
+     * Latency percentiles, phase timings and the generated count of each route, which is
+     * registered the first time a number is generated on it
+     */
+    @Bean
+    public MeterBinder trackingNumberGenerationMeters(GenerationMetrics generationMetrics) {
+        return meterRegistry -> {
+            for (double quantile : LATENCY_QUANTILES) {
+                Gauge.builder("tracking_number_generation_latency", generationMetrics,
+                                metrics -> metrics.getLatencyPercentileNanos(quantile * 100) / 1e9)
+                        .description("Generation time percentiles since the previous scrape")
+                        .baseUnit("seconds")
+                        .tag("quantile", String.valueOf(quantile))
+                        .register(meterRegistry);
+            }
+            for (GenerationMetrics.Phase phase : GenerationMetrics.Phase.values()) {
+                for (double quantile : PHASE_QUANTILES) {
+                    Gauge.builder("tracking_number_generation_phase_latency", generationMetrics,
+                                    metrics -> metrics.getPhasePercentileNanos(phase, quantile * 100) / 1e9)
+                            .description("Time spent in each generation phase on sampled calls since the previous scrape")
+                            .baseUnit("seconds")
+                            .tag("phase", phase.name().toLowerCase())
+                            .tag("quantile", String.valueOf(quantile))
+                            .register(meterRegistry);
+                }
+            }
+            FunctionCounter.builder("tracking_numbers_generated_total", generationMetrics, GenerationMetrics::getUntrackedRouteCount)
+                    .description("Number of tracking numbers generated")
+                    .tag("origin_country_id", "other")
+                    .tag("destination_country_id", "other")
+                    .register(meterRegistry);
+            generationMetrics.setRouteListener((origin, destination) ->
+                    FunctionCounter.builder("tracking_numbers_generated_total", generationMetrics,
+                                    metrics -> metrics.getGeneratedCount(origin, destination))
+                            .description("Number of tracking numbers generated")
+                            .tag("origin_country_id", origin)
+                            .tag("destination_country_id", destination)
+                            .register(meterRegistry));
+        };
+    }
+
+    /**
+     * Generated count of each tenant namespace, registered when the namespace is first loaded
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.tenants.enabled", havingValue = "true")
+    public MeterBinder tenantNamespaceMeters(TenantNamespaces tenantNamespaces) {
+        return meterRegistry -> {
+            Gauge.builder("tracking_number_tenant_customers", tenantNamespaces, TenantNamespaces::getCustomerCount)
+                    .description("Customers assigned to a tenant namespace")
+                    .register(meterRegistry);
+            FunctionCounter.builder("tracking_number_tenant_reload_failures_total", tenantNamespaces,
+                            TenantNamespaces::getReloadFailureCount)
+                    .description("Tenant namespace file reloads that failed and kept the previous namespaces")
+                    .register(meterRegistry);
+            tenantNamespaces.setNamespaceListener(namespace ->
+                    FunctionCounter.builder("tracking_number_tenant_generated_total", namespace,
+                                    TenantNamespaces.Namespace::getGeneratedCount)
+                            .description("Number of tracking numbers generated in each tenant namespace")
+                            .tag("namespace", namespace.getPrefix())
+                            .register(meterRegistry));
+        };
+    }
+
+    /**
+     * Sequence checkpoints by where they were written; checkpoints on the request thread mean the
+     * lease is too short for the load
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.tracking-number.engine", havingValue = "sequence")
+    public MeterBinder sequenceCheckpointMeters(SequenceTrackingNumberService sequenceTrackingNumberService) {
+        return meterRegistry -> {
+            SequenceCheckpoint checkpoint = sequenceTrackingNumberService.getCheckpoint();
+            if (checkpoint == null) {
+                return;
+            }
+            FunctionCounter.builder("tracking_number_sequence_checkpoints_total", checkpoint,
+                            SequenceCheckpoint::getBackgroundCheckpointCount)
+                    .description("Sequence high-water mark checkpoints written to disk")
+                    .tag("thread", "background")
+                    .register(meterRegistry);
+            FunctionCounter.builder("tracking_number_sequence_checkpoints_total", checkpoint,
+                            SequenceCheckpoint::getRequestCheckpointCount)
+                    .description("Sequence high-water mark checkpoints written to disk")
+                    .tag("thread", "request")
+                    .register(meterRegistry);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracking-number.random-pool.enabled", havingValue = "true")
+    public Gauge randomPoolDepthGauge(MeterRegistry meterRegistry, RandomComponentPool randomComponentPool) {
+        return Gauge.builder("tracking_number_random_pool_depth", randomComponentPool, RandomComponentPool::getDepth)
+                .description("Pre-computed random components available in the pool")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracking-number.random-pool.enabled", havingValue = "true")
+    public Gauge randomPoolRefillRateGauge(MeterRegistry meterRegistry, RandomComponentPool randomComponentPool) {
+        return Gauge.builder("tracking_number_random_pool_refill_rate", randomComponentPool, RandomComponentPool::getRefillRate)
+                .description("Random components added to the pool per second")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracking-number.random-pool.enabled", havingValue = "true")
+    public FunctionCounter randomPoolEmptyCounter(MeterRegistry meterRegistry, RandomComponentPool randomComponentPool) {
+        return FunctionCounter.builder("tracking_number_random_pool_empty_total", randomComponentPool, RandomComponentPool::getEmptyCount)
+                .description("Times a request found the random pool empty")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Gauge rateLimitBucketsGauge(MeterRegistry meterRegistry, BoundedEvictingStore<Bucket> rateLimitBucketStore) {
+        return Gauge.builder("tracking_number_rate_limit_buckets", rateLimitBucketStore, BoundedEvictingStore::size)
+                .description("Client rate-limit buckets currently held")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public FunctionCounter rateLimitIdleEvictionCounter(MeterRegistry meterRegistry, BoundedEvictingStore<Bucket> rateLimitBucketStore) {
+        return FunctionCounter.builder("tracking_number_rate_limit_evictions_total", rateLimitBucketStore, BoundedEvictingStore::getIdleEvictions)
+                .description("Rate-limit buckets evicted from the store")
+                .tag("reason", "idle")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public FunctionCounter rateLimitCapacityEvictionCounter(MeterRegistry meterRegistry, BoundedEvictingStore<Bucket> rateLimitBucketStore) {
+        return FunctionCounter.builder("tracking_number_rate_limit_evictions_total", rateLimitBucketStore, BoundedEvictingStore::getCapacityEvictions)
+                .description("Rate-limit buckets evicted from the store")
+                .tag("reason", "capacity")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication
+    public Gauge authCacheSizeGauge(MeterRegistry meterRegistry, CachingPasswordEncoder passwordEncoder) {
+        return Gauge.builder("tracking_number_auth_cache_entries", passwordEncoder, CachingPasswordEncoder::size)
+                .description("Verified credentials currently cached")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication
+    public FunctionCounter authCacheHitCounter(MeterRegistry meterRegistry, CachingPasswordEncoder passwordEncoder) {
+        return FunctionCounter.builder("tracking_number_auth_cache_requests_total", passwordEncoder, CachingPasswordEncoder::getHits)
+                .description("Password checks answered by the authentication cache or by BCrypt")
+                .tag("result", "hit")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication
+    public FunctionCounter authCacheMissCounter(MeterRegistry meterRegistry, CachingPasswordEncoder passwordEncoder) {
+        return FunctionCounter.builder("tracking_number_auth_cache_requests_total", passwordEncoder, CachingPasswordEncoder::getMisses)
+                .description("Password checks answered by the authentication cache or by BCrypt")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+    public Gauge issuedNumbersGauge(MeterRegistry meterRegistry, IssuedNumberRegistry issuedNumberRegistry) {
+        return Gauge.builder("tracking_number_registry_issued", issuedNumberRegistry, IssuedNumberRegistry::getIssuedCount)
+                .description("Tracking numbers recorded in the issued number registry")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+    public FunctionCounter collisionCounter(MeterRegistry meterRegistry, IssuedNumberRegistry issuedNumberRegistry) {
+        return FunctionCounter.builder("tracking_number_collisions_total", issuedNumberRegistry, IssuedNumberRegistry::getCollisionCount)
+                .description("Generated numbers replaced because they may have been issued before")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+    public Gauge registryFilterLoadGauge(MeterRegistry meterRegistry, IssuedNumberRegistry issuedNumberRegistry) {
+        return Gauge.builder("tracking_number_registry_filter_load", issuedNumberRegistry, IssuedNumberRegistry::getFilterLoad)
+                .description("Issued numbers per number the registry filter was sized for; above 1 raise app.registry.expected-numbers")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+    public FunctionCounter registryFalsePositiveCounter(MeterRegistry meterRegistry, IssuedNumberRegistry issuedNumberRegistry) {
+        return FunctionCounter.builder("tracking_number_registry_filter_false_positives_total", issuedNumberRegistry,
+                        IssuedNumberRegistry::getFalsePositiveCount)
+                .description("Registry filter hits the index showed to be new numbers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Index growths by where they ran; growths on the request thread mean the flush thread fell behind
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+    public MeterBinder registryIndexGrowthMeters(IssuedNumberRegistry issuedNumberRegistry) {
+        return meterRegistry -> {
+            FunctionCounter.builder("tracking_number_registry_index_growths_total", issuedNumberRegistry,
+                            IssuedNumberRegistry::getBackgroundIndexGrowthCount)
+                    .description("Times the issued number lookup index doubled")
+                    .tag("thread", "background")
+                    .register(meterRegistry);
+            FunctionCounter.builder("tracking_number_registry_index_growths_total", issuedNumberRegistry,
+                            IssuedNumberRegistry::getRequestIndexGrowthCount)
+                    .description("Times the issued number lookup index doubled")
+                    .tag("thread", "request")
+                    .register(meterRegistry);
+        };
+    }
+
+    @Bean
+    public Gauge idempotencyKeysGauge(MeterRegistry meterRegistry, IdempotencyCache idempotencyCache) {
+        return Gauge.builder("tracking_number_idempotency_keys", idempotencyCache, IdempotencyCache::size)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public FunctionCounter idempotencyHitCounter(MeterRegistry meterRegistry, IdempotencyCache idempotencyCache) {
+        return FunctionCounter.builder("tracking_number_idempotency_requests_total", idempotencyCache, IdempotencyCache::getHits)
+                .description("Requests with an idempotency key, answered from an earlier request or newly generated")
+                .tag("result", "hit")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public FunctionCounter idempotencyMissCounter(MeterRegistry meterRegistry, IdempotencyCache idempotencyCache) {
+        return FunctionCounter.builder("tracking_number_idempotency_requests_total", idempotencyCache, IdempotencyCache::getMisses)
+                .description("Requests with an idempotency key, answered from an earlier request or newly generated")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
 }
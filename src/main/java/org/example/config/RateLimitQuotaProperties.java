@@ -0,0 +1,37 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate-limit tiers and who is on them, under {@code app.rate-limit.quotas}:
+ * <pre>
+ * app.rate-limit.quotas.tiers.gold.all=50/1s,2000/1m
+ * app.rate-limit.quotas.tiers.gold.batch=100000/1m
+ * app.rate-limit.quotas.principals.developer=gold
+ * app.rate-limit.quotas.customers.de619854-b59b-425e-9db4-943979e1bd49=gold
+ * app.rate-limit.quotas.customer-principals.de619854-b59b-425e-9db4-943979e1bd49=developer,ops
+ * app.rate-limit.quotas.customers-file=file:/etc/tracking/customer-tiers.csv
+ * </pre>
+ * A customer's tier only applies to requests from its principals, since anyone can send its
+ * {@code customer_id}. The customers file holds one {@code customer_id,tier,principal[,principal...]}
+ * per line, for lists too long for properties.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit.quotas")
+public record RateLimitQuotaProperties(
+        Map<String, Map<String, String>> tiers,
+        Map<String, String> principals,
+        Map<String, String> customers,
+        Map<String, List<String>> customerPrincipals,
+        Resource customersFile) {
+
+    public RateLimitQuotaProperties {
+        tiers = tiers != null ? tiers : Map.of();
+        principals = principals != null ? principals : Map.of();
+        customers = customers != null ? customers : Map.of();
+        customerPrincipals = customerPrincipals != null ? customerPrincipals : Map.of();
+    }
+}
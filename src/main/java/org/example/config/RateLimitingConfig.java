@@ -1,77 +1,259 @@
 package org.example.config;
 
-import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.service.BoundedEvictingStore;
+import org.example.service.ClientAddressKeys;
+import org.example.service.LocalRateLimiter;
+import org.example.service.LogEvents;
+import org.example.service.PrefetchingRateLimiter;
+import org.example.service.Quota;
+import org.example.service.QuotaPlan;
+import org.example.service.RateLimiter;
+import org.example.service.RespClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitQuotaProperties.class)
 public class RateLimitingConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingConfig.class);
 
+    /**
+     * Buckets per subject and quota, shared by the servlet and reactive filters. The idle timeout
+     * should be at least the longest quota period, after which an idle bucket is full again
+     * and dropping it changes nothing for the client.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public BoundedEvictingStore<Bucket> rateLimitBucketStore(
+            @Value("${app.rate-limit.store.max-entries:100000}") int maxEntries,
+            @Value("${app.rate-limit.store.idle-timeout-ms:120000}") long idleTimeoutMillis) {
+        return new BoundedEvictingStore<>("rate-limit-buckets", maxEntries, idleTimeoutMillis);
+    }
+
+    /**
+     * Tiers from {@link RateLimitQuotaProperties}. Tiers without a quota for all routes, including
+     * the default tier unless configured, get {@code app.rate-limit.requests-per-minute}.
+     */
+    @Bean
+    public QuotaPlan quotaPlan(RateLimitQuotaProperties quotas,
+                               @Value("${app.rate-limit.requests-per-minute:100}") int requestsPerMinute,
+                               @Value("${app.rate-limit.store.idle-timeout-ms:120000}") long idleTimeoutMillis) throws IOException {
+        Map<String, String> customers = new HashMap<>(quotas.customers());
+        Map<String, List<String>> customerPrincipals = new HashMap<>(quotas.customerPrincipals());
+        if (quotas.customersFile() != null) {
+            readCustomerTiers(quotas, customers, customerPrincipals);
+        }
+        QuotaPlan plan = new QuotaPlan(quotas.tiers(), requestsPerMinute + "/1m", quotas.principals(),
+                                       customers, customerPrincipals);
+
+        for (int tier = 0; tier < plan.getTierCount(); tier++) {
+            for (QuotaPlan.Route route : QuotaPlan.Route.values()) {
+                Quota quota = plan.quotaFor(tier, route);
+                if (quota.getSustainedPeriod().compareTo(Duration.ofMillis(idleTimeoutMillis)) > 0) {
+                    logger.warn("Quota {} outlasts the bucket idle timeout, idle clients get a fresh allowance early", quota);
+                }
+            }
+        }
+        logger.info("Rate limiting with {} tiers, {} principals and {} customers assigned",
+                    plan.getTierCount(), quotas.principals().size(), plan.getCustomerCount());
+        return plan;
+    }
+
+    /**
+     * Limiter selected by {@code app.rate-limit.backend}: {@code local} keeps buckets in this
+     * instance only, {@code redis} shares the sustained limits across replicas through a
+     * Redis-compatible store and falls back to the local buckets while it is unreachable.
+     */
     @Bean
-    public RateLimitingFilter rateLimitingFilter() {
-        return new RateLimitingFilter();
+    public RateLimiter rateLimiter(BoundedEvictingStore<Bucket> rateLimitBucketStore,
+                                   @Value("${app.rate-limit.backend:local}") String backend,
+                                   @Value("${app.rate-limit.redis.host:localhost}") String redisHost,
+                                   @Value("${app.rate-limit.redis.port:6379}") int redisPort,
+                                   @Value("${app.rate-limit.redis.timeout-ms:50}") int redisTimeoutMillis,
+                                   @Value("${app.rate-limit.redis.connections:8}") int redisConnections,
+                                   @Value("${app.rate-limit.prefetch:10}") int prefetch,
+                                   @Value("${app.rate-limit.store.max-entries:100000}") int maxEntries,
+                                   @Value("${app.rate-limit.store.idle-timeout-ms:120000}") long idleTimeoutMillis) {
+        LocalRateLimiter localRateLimiter = new LocalRateLimiter(rateLimitBucketStore);
+        switch (backend.toLowerCase()) {
+            case "local":
+                return localRateLimiter;
+            case "redis":
+                logger.info("Sharing rate limits through {}:{}, claiming {} tokens per round trip",
+                            redisHost, redisPort, prefetch);
+                RespClient client = new RespClient(redisHost, redisPort, redisTimeoutMillis, redisConnections);
+                BoundedEvictingStore<PrefetchingRateLimiter.Lease> leases =
+                    new BoundedEvictingStore<>("rate-limit-leases", maxEntries, idleTimeoutMillis);
+                leases.start();
+                // Closed by Spring through the inferred close() method
+                return new PrefetchingRateLimiter(client, prefetch, localRateLimiter, leases);
+            default:
+                throw new IllegalArgumentException("Unknown rate limit backend: " + backend);
+        }
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public RateLimitingFilter rateLimitingFilter(RateLimiter rateLimiter, QuotaPlan quotaPlan) {
+        return new RateLimitingFilter(rateLimiter, quotaPlan);
+    }
+
+    private static void readCustomerTiers(RateLimitQuotaProperties quotas, Map<String, String> customers,
+                                          Map<String, List<String>> customerPrincipals) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(quotas.customersFile().getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Customer tier line must be customer_id,tier,principal[,principal...]: " + line);
+                }
+                String customerId = fields[0].trim();
+                customers.put(customerId, fields[1].trim());
+                List<String> principals = new ArrayList<>(fields.length - 2);
+                for (int i = 2; i < fields.length; i++) {
+                    principals.add(fields[i].trim());
+                }
+                customerPrincipals.put(customerId, principals);
+            }
+        }
     }
 
     public static class RateLimitingFilter extends OncePerRequestFilter {
 
         private static final Logger logger = LoggerFactory.getLogger(RateLimitingFilter.class);
-        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
 
-        // Allow 100 requests per minute per IP
-        private static final int REQUESTS_PER_MINUTE = 100;
+        // Encoded once rather than written through a character writer on every rejection
+        private static final byte[] RATE_LIMIT_EXCEEDED_BODY = (
+            "{\"error\":\"RATE_LIMIT_EXCEEDED\"," +
+            "\"message\":\"Too many requests. Please try again later.\"," +
+            "\"retryAfter\":60}"
+        ).getBytes(StandardCharsets.UTF_8);
+
+        // Grants each subject a number of tracking numbers per quota (a batch counts every number in it)
+        private final RateLimiter rateLimiter;
+        private final QuotaPlan quotaPlan;
+
+        public RateLimitingFilter(RateLimiter rateLimiter, QuotaPlan quotaPlan) {
+            this.rateLimiter = rateLimiter;
+            this.quotaPlan = quotaPlan;
+        }
 
         @Override
         protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                       FilterChain filterChain) throws ServletException, IOException {
 
-            // Only apply rate limiting to the tracking number endpoint
-            if (!request.getRequestURI().equals("/next-tracking-number")) {
+            // Only apply rate limiting to the tracking number endpoints
+            QuotaPlan.Route route = QuotaPlan.Route.match(request.getRequestURI());
+            if (route == null) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            String clientIp = getClientIpAddress(request);
-            Bucket bucket = getBucket(clientIp);
+            // Customer tier if the principal may act for the customer, then principal tier, then
+            // the default tier per client address
+            long subjectKey;
+            Principal principal = request.getUserPrincipal();
+            String principalName = principal != null ? principal.getName() : null;
+            String customerId = request.getParameter("customer_id");
+            int tier = quotaPlan.customerTier(customerId, principalName);
+            if (tier >= 0) {
+                subjectKey = QuotaPlan.customerKey(customerId);
+            } else {
+                tier = quotaPlan.principalTier(principalName);
+                if (tier >= 0) {
+                    subjectKey = QuotaPlan.principalKey(principalName);
+                } else {
+                    tier = 0;
+                    subjectKey = getClientKey(request);
+                }
+            }
 
-            if (bucket.tryConsume(1)) {
+            Quota quota = quotaPlan.quotaFor(tier, route);
+            long requested = getRequestedNumbers(request, route);
+            if (requested > quota.getMaxConsumption()) {
+                // Never grantable, so retrying after a 429 would not help
+                writeCountAboveQuota(response, quota);
+                return;
+            }
+            if (rateLimiter.tryConsume(QuotaPlan.bucketKey(subjectKey, quota), quota, requested)) {
                 filterChain.doFilter(request, response);
             } else {
-                logger.warn("Rate limit exceeded for IP: {}", clientIp);
+                logger.warn(LogEvents.RATE_LIMITED, "Rate limit {} exceeded for IP: {}", quota, getClientIpAddress(request));
                 response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
                 response.setContentType("application/json");
-                response.getWriter().write(
-                    "{\"error\":\"RATE_LIMIT_EXCEEDED\"," +
-                    "\"message\":\"Too many requests. Please try again later.\"," +
-                    "\"retryAfter\":60}"
-                );
+                response.setContentLength(RATE_LIMIT_EXCEEDED_BODY.length);
+                response.getOutputStream().write(RATE_LIMIT_EXCEEDED_BODY);
             }
         }
 
-        private Bucket getBucket(String clientIp) {
-            return buckets.computeIfAbsent(clientIp, key -> createNewBucket());
+        private void writeCountAboveQuota(HttpServletResponse response, Quota quota) throws IOException {
+            byte[] body = (
+                "{\"error\":\"COUNT_ABOVE_QUOTA\"," +
+                "\"message\":\"count must not exceed " + quota.getMaxConsumption() + " under this rate limit.\"," +
+                "\"maxCount\":" + quota.getMaxConsumption() + "}"
+            ).getBytes(StandardCharsets.UTF_8);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType("application/json");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+
+        /**
+         * Number of tracking numbers the request asks for.
+         * Unparseable batch sizes count as one number and are rejected later by validation.
+         */
+        private long getRequestedNumbers(HttpServletRequest request, QuotaPlan.Route route) {
+            if (route == QuotaPlan.Route.SINGLE) {
+                return 1;
+            }
+            try {
+                return Math.max(1, Integer.parseInt(request.getParameter("count")));
+            } catch (NumberFormatException e) {
+                return 1;
+            }
         }
 
-        private Bucket createNewBucket() {
-            Bandwidth limit = Bandwidth.classic(REQUESTS_PER_MINUTE, Refill.intervally(REQUESTS_PER_MINUTE, Duration.ofMinutes(1)));
-            return Bucket.builder()
-                    .addLimit(limit)
-                    .build();
+        // Same precedence as getClientIpAddress, without building a String per request
+        private long getClientKey(HttpServletRequest request) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                return ClientAddressKeys.firstOf(xForwardedFor);
+            }
+
+            String xRealIp = request.getHeader("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return ClientAddressKeys.of(xRealIp);
+            }
+
+            return ClientAddressKeys.of(request.getRemoteAddr());
         }
 
         private String getClientIpAddress(HttpServletRequest request) {
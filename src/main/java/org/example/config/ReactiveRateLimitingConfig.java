@@ -0,0 +1,147 @@
+package org.example.config;
+
+import org.example.service.ClientAddressKeys;
+import org.example.service.LogEvents;
+import org.example.service.Quota;
+import org.example.service.QuotaPlan;
+import org.example.service.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRateLimitingConfig {
+
+    @Bean
+    public ReactiveRateLimitingFilter reactiveRateLimitingFilter(RateLimiter rateLimiter, QuotaPlan quotaPlan) {
+        return new ReactiveRateLimitingFilter(rateLimiter, quotaPlan);
+    }
+
+    /**
+     * Reactive counterpart of {@link RateLimitingConfig.RateLimitingFilter}. Local buckets never
+     * block, so the check runs inline on the event loop; a limiter that may wait on the network
+     * is called on the bounded elastic scheduler instead.
+     */
+    public static class ReactiveRateLimitingFilter implements WebFilter {
+
+        private static final Logger logger = LoggerFactory.getLogger(ReactiveRateLimitingFilter.class);
+
+        private static final byte[] RATE_LIMIT_EXCEEDED_BODY = (
+            "{\"error\":\"RATE_LIMIT_EXCEEDED\"," +
+            "\"message\":\"Too many requests. Please try again later.\"," +
+            "\"retryAfter\":60}"
+        ).getBytes(StandardCharsets.UTF_8);
+
+        private final RateLimiter rateLimiter;
+        private final QuotaPlan quotaPlan;
+
+        public ReactiveRateLimitingFilter(RateLimiter rateLimiter, QuotaPlan quotaPlan) {
+            this.rateLimiter = rateLimiter;
+            this.quotaPlan = quotaPlan;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+            // Only apply rate limiting to the tracking number endpoint
+            QuotaPlan.Route route = QuotaPlan.Route.match(exchange.getRequest().getPath().value());
+            if (route != QuotaPlan.Route.SINGLE) {
+                return chain.filter(exchange);
+            }
+
+            return exchange.getPrincipal()
+                .map(Principal::getName)
+                .defaultIfEmpty("")
+                .flatMap(principalName -> checkAs(exchange, chain, route, principalName.isEmpty() ? null : principalName));
+        }
+
+        // Customer tier if the principal may act for the customer, then principal tier, then the
+        // default tier per client address
+        private Mono<Void> checkAs(ServerWebExchange exchange, WebFilterChain chain, QuotaPlan.Route route, String principalName) {
+            String customerId = exchange.getRequest().getQueryParams().getFirst("customer_id");
+            int tier = quotaPlan.customerTier(customerId, principalName);
+            if (tier >= 0) {
+                return check(exchange, chain, QuotaPlan.customerKey(customerId), quotaPlan.quotaFor(tier, route));
+            }
+            tier = quotaPlan.principalTier(principalName);
+            if (tier >= 0) {
+                return check(exchange, chain, QuotaPlan.principalKey(principalName), quotaPlan.quotaFor(tier, route));
+            }
+            return check(exchange, chain, getClientKey(exchange.getRequest()), quotaPlan.quotaFor(0, route));
+        }
+
+        private Mono<Void> check(ServerWebExchange exchange, WebFilterChain chain, long subjectKey, Quota quota) {
+            long key = QuotaPlan.bucketKey(subjectKey, quota);
+            if (!rateLimiter.isBlocking()) {
+                return rateLimiter.tryConsume(key, quota, 1) ? chain.filter(exchange) : reject(exchange, quota);
+            }
+            return Mono.fromCallable(() -> rateLimiter.tryConsume(key, quota, 1))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(allowed -> allowed ? chain.filter(exchange) : reject(exchange, quota));
+        }
+
+        private Mono<Void> reject(ServerWebExchange exchange, Quota quota) {
+            return ReactiveTracingConfig.withCorrelationId(() -> {
+                logger.warn(LogEvents.RATE_LIMITED, "Rate limit {} exceeded for IP: {}", quota, getClientIpAddress(exchange.getRequest()));
+                return exchange.getResponse();
+            }).flatMap(this::writeRejection);
+        }
+
+        private Mono<Void> writeRejection(ServerHttpResponse response) {
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            DataBuffer body = response.bufferFactory().wrap(RATE_LIMIT_EXCEEDED_BODY);
+            return response.writeWith(Mono.just(body));
+        }
+
+        private long getClientKey(ServerHttpRequest request) {
+            HttpHeaders headers = request.getHeaders();
+            String xForwardedFor = headers.getFirst("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                return ClientAddressKeys.firstOf(xForwardedFor);
+            }
+
+            String xRealIp = headers.getFirst("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return ClientAddressKeys.of(xRealIp);
+            }
+
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            return remoteAddress != null && remoteAddress.getAddress() != null
+                ? ClientAddressKeys.of(remoteAddress.getAddress()) : 0;
+        }
+
+        private String getClientIpAddress(ServerHttpRequest request) {
+            HttpHeaders headers = request.getHeaders();
+            String xForwardedFor = headers.getFirst("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                return xForwardedFor.split(",")[0].trim();
+            }
+
+            String xRealIp = headers.getFirst("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty()) {
+                return xRealIp;
+            }
+
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            return remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "unknown";
+        }
+    }
+}
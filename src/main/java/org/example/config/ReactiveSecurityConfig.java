@@ -0,0 +1,55 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * WebFlux equivalent of {@link SecurityConfig}. Password checks run on the bounded elastic
+ * scheduler, so BCrypt never blocks the event loop, and share the same verified-credential cache.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http
+            .csrf(csrf -> csrf.disable())
+            .authorizeExchange(authorize -> authorize
+                .pathMatchers("/next-tracking-number").authenticated()
+                .pathMatchers("/actuator/**").permitAll()
+                .anyExchange().authenticated()
+            )
+            .httpBasic(httpBasic -> {});
+
+        return http.build();
+    }
+
+    @Bean
+    public MapReactiveUserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
+        UserDetails user = User.builder()
+            .username("developer")
+            .password(passwordEncoder.encode("test123"))
+            .roles("USER")
+            .build();
+
+        return new MapReactiveUserDetailsService(user);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CachingPasswordEncoder passwordEncoder(
+            @Value("${app.security.auth-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.security.auth-cache.ttl-ms:300000}") long ttlMillis) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), maxEntries, ttlMillis);
+    }
+}
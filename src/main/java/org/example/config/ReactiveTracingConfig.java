@@ -0,0 +1,85 @@
+package org.example.config;
+
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.example.config.TracingConfig.CORRELATION_ID_HEADER;
+import static org.example.config.TracingConfig.CORRELATION_ID_MDC_KEY;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTracingConfig {
+
+    @Bean
+    public ReactiveCorrelationIdFilter reactiveCorrelationIdFilter() {
+        return new ReactiveCorrelationIdFilter();
+    }
+
+    /**
+     * Runs {@code work} on subscription with the correlation id from the Reactor context in the MDC,
+     * so what it logs carries the id as it would on the servlet stack. The MDC is restored
+     * afterwards, since the thread goes on to serve other requests.
+     * @param work Synchronous work that may log, such as generating a number
+     * @return Mono of the work's result, empty if it returns null
+     */
+    public static <T> Mono<T> withCorrelationId(Supplier<T> work) {
+        return Mono.deferContextual(context -> {
+            String id = context.getOrDefault(CORRELATION_ID_MDC_KEY, null);
+            if (id == null) {
+                return Mono.justOrEmpty(work.get());
+            }
+            String previous = MDC.get(CORRELATION_ID_MDC_KEY);
+            MDC.put(CORRELATION_ID_MDC_KEY, id);
+            try {
+                return Mono.justOrEmpty(work.get());
+            } finally {
+                if (previous != null) {
+                    MDC.put(CORRELATION_ID_MDC_KEY, previous);
+                } else {
+                    MDC.remove(CORRELATION_ID_MDC_KEY);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reactive counterpart of {@link TracingConfig.CorrelationIdFilter}. A request hops between threads,
+     * so the id travels in the Reactor context under {@link TracingConfig#CORRELATION_ID_MDC_KEY}
+     * instead of the thread-bound MDC, and {@link #withCorrelationId} puts it in the MDC around the
+     * work that logs.
+     */
+    public static class ReactiveCorrelationIdFilter implements WebFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+            String correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID_HEADER);
+
+            if (correlationId == null || correlationId.trim().isEmpty()) {
+                correlationId = UUID.randomUUID().toString();
+            }
+
+            // Add to response header
+            exchange.getResponse().getHeaders().set(CORRELATION_ID_HEADER, correlationId);
+
+            String id = correlationId;
+            return chain.filter(exchange)
+                .contextWrite(context -> context.put(CORRELATION_ID_MDC_KEY, id));
+        }
+
+        // Run ahead of security so rejected requests carry the id as well
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender that hands events to its child appenders on a single worker thread.
+ * <p>
+ * Logging threads publish into a bounded ring buffer with one CAS per event and never take a
+ * lock, unlike Logback's {@code AsyncAppender} and its blocking queue. Only the thread name and
+ * MDC are captured on the calling thread; formatting the message and encoding it happen on the
+ * worker, so arguments must not be mutated after logging, which holds for the strings and numbers
+ * this application logs. A full buffer drops the event when {@code neverBlock} is set, and the
+ * number dropped is reported through the child appenders; otherwise the caller waits for space,
+ * which is what a stream that must not lose records wants.
+ * <p>
+ * Child appenders writing to a stream can turn off {@code immediateFlush}: the worker flushes
+ * them whenever it has emptied the buffer, so a burst is written in bulk and nothing is left
+ * sitting in their buffers while the worker is idle.
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    // Longest a stopping appender waits for the worker to write out buffered events
+    private static final long MAX_FLUSH_MILLIS = 1000;
+
+    // Longest the idle worker sleeps before checking the buffer without being woken
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private int capacity = 8192;
+    private boolean neverBlock = true;
+
+    private AtomicReferenceArray<ILoggingEvent> events;
+    // Vyukov bounded queue: a slot is free for position p when its sequence is p, full when p + 1
+    private AtomicLongArray sequences;
+    private long mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+
+    private Thread worker;
+    private volatile boolean sleeping;
+    private volatile boolean stopping;
+
+    /**
+     * @param capacity Events buffered at most, rounded up to a power of two
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param neverBlock Drop events when the buffer is full rather than wait for space
+     */
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void start() {
+        if (capacity < 2 || capacity > 1 << 24) {
+            addError("Capacity must be between 2 and 2^24: " + capacity);
+            return;
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        events = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        stopping = false;
+        worker = new Thread(this::drain, "log-ring-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        stopping = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(MAX_FLUSH_MILLIS);
+            if (worker.isAlive()) {
+                addWarn("Worker did not write out all buffered events within " + MAX_FLUSH_MILLIS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // State that lives in thread-locals of the caller has to be read now
+        event.getThreadName();
+        event.getMDCPropertyMap();
+        while (!offer(event)) {
+            if (neverBlock || stopping) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        if (sleeping) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private boolean offer(ILoggingEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events.lazySet(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return The oldest buffered event, null if there is none; worker thread only
+     */
+    private ILoggingEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        ILoggingEvent event = events.get(index);
+        events.lazySet(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return event;
+    }
+
+    private void drain() {
+        boolean unflushed = false;
+        while (true) {
+            ILoggingEvent event = poll();
+            if (event != null) {
+                appenders.appendLoopOnAppenders(event);
+                unflushed = true;
+                continue;
+            }
+            unflushed |= reportDropped();
+            if (unflushed) {
+                flushAppenders();
+                unflushed = false;
+            }
+            if (stopping) {
+                return;
+            }
+            sleeping = true;
+            // Check again, an event published before the flag was set would not unpark us
+            if (sequences.get((int) (head & mask)) != head + 1 && !stopping) {
+                LockSupport.parkNanos(MAX_IDLE_NANOS);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * @return Whether a report was appended
+     */
+    private boolean reportDropped() {
+        long total = dropped.sum();
+        if (total == droppedReported || !(getContext() instanceof LoggerContext loggerContext)) {
+            return false;
+        }
+        LoggingEvent event = new LoggingEvent(RingBufferAppender.class.getName(),
+            loggerContext.getLogger(RingBufferAppender.class), Level.WARN,
+            "Log buffer {} full, dropped {} events", null, new Object[] {getName(), total - droppedReported});
+        droppedReported = total;
+        appenders.appendLoopOnAppenders(event);
+        return true;
+    }
+
+    // Only the worker writes to the children, so their streams need no lock beyond their own
+    private void flushAppenders() {
+        for (Iterator<Appender<ILoggingEvent>> it = appenders.iteratorForAppenders(); it.hasNext(); ) {
+            if (it.next() instanceof OutputStreamAppender<ILoggingEvent> appender) {
+                OutputStream out = appender.getOutputStream();
+                if (out == null) {
+                    continue;
+                }
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    addWarn("Could not flush appender " + appender.getName(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
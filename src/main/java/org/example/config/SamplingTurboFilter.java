@@ -0,0 +1,70 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.joran.spi.DefaultClass;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a random sample of the events of each type, the type being the event's marker.
+ * <p>
+ * Runs before Logback creates an event, so a dropped event costs one random draw and no
+ * formatting or allocation. Events without a marker, or with a marker that has no sample rate,
+ * pass unchanged. The draw uses a per-thread generator, so busy threads share no state.
+ * <pre>
+ * &lt;turboFilter class="org.example.config.SamplingTurboFilter"&gt;
+ *     &lt;sample&gt;&lt;marker&gt;GENERATION&lt;/marker&gt;&lt;oneIn&gt;100&lt;/oneIn&gt;&lt;/sample&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final Map<String, Integer> oneIn = new HashMap<>();
+
+    @DefaultClass(Sample.class)
+    public void addSample(Sample sample) {
+        if (sample.marker == null || sample.oneIn < 1) {
+            addError("Sample needs a marker and a oneIn rate of at least 1");
+            return;
+        }
+        oneIn.put(sample.marker, sample.oneIn);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null when called for an isXxxEnabled() check, which must not be sampled
+        if (marker == null || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        Integer rate = oneIn.get(marker.getName());
+        if (rate == null || rate == 1) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    /**
+     * Sample rate of one event type
+     */
+    public static class Sample {
+        private String marker;
+        private int oneIn = 1;
+
+        public void setMarker(String marker) {
+            this.marker = marker;
+        }
+
+        /**
+         * @param oneIn Keep one event in this many
+         */
+        public void setOneIn(int oneIn) {
+            this.oneIn = oneIn;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,6 +15,7 @@ import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 public class SecurityConfig {
     @Bean
@@ -20,7 +23,7 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authorize -> authorize
-                .requestMatchers("/next-tracking-number").authenticated()
+                .requestMatchers("/next-tracking-number", "/next-tracking-numbers", "/next-tracking-numbers/stream").authenticated()
                 .requestMatchers("/actuator/**").permitAll()
                 .anyRequest().authenticated()
             )
@@ -30,18 +33,23 @@ public class SecurityConfig {
     }
     
     @Bean
-    public UserDetailsService userDetailsService() {
+    public UserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
         UserDetails user = User.builder()
             .username("developer")
-            .password(passwordEncoder().encode("test123"))
+            .password(passwordEncoder.encode("test123"))
             .roles("USER")
             .build();
             
         return new InMemoryUserDetailsManager(user);
     }
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * BCrypt behind a cache of verified credentials, so repeat requests skip the BCrypt verify
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CachingPasswordEncoder passwordEncoder(
+            @Value("${app.security.auth-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.security.auth-cache.ttl-ms:300000}") long ttlMillis) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), maxEntries, ttlMillis);
     }
 }
\ No newline at end of file
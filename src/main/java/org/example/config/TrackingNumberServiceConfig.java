@@ -0,0 +1,43 @@
+package org.example.config;
+
+import org.example.service.GenerationMetrics;
+import org.example.service.IssuedNumberRegistry;
+import org.example.service.RegisteringTrackingNumberService;
+import org.example.service.TenantNamespaces;
+import org.example.service.TenantRoutingTrackingNumberService;
+import org.example.service.TrackingNumberService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class TrackingNumberServiceConfig {
+
+    /**
+     * The service the controllers use when a decorator is enabled: the engine selected by
+     * {@code app.tracking-number.engine}, wrapped explicitly. Tenant routing sits inside the
+     * registry, so tenant numbers are registered too. Without decorators the engine is the only
+     * {@link TrackingNumberService} and is used as it is.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnExpression("${app.registry.enabled:false} or ${app.tenants.enabled:false}")
+    public TrackingNumberService trackingNumberService(@Qualifier(TrackingNumberService.ENGINE) TrackingNumberService engine,
+                                                       ObjectProvider<TenantNamespaces> tenantNamespaces,
+                                                       ObjectProvider<IssuedNumberRegistry> issuedNumberRegistry,
+                                                       GenerationMetrics generationMetrics) {
+        TrackingNumberService service = engine;
+        TenantNamespaces tenants = tenantNamespaces.getIfAvailable();
+        if (tenants != null) {
+            service = new TenantRoutingTrackingNumberService(service, tenants, generationMetrics);
+        }
+        IssuedNumberRegistry registry = issuedNumberRegistry.getIfAvailable();
+        if (registry != null) {
+            service = new RegisteringTrackingNumberService(service, registry);
+        }
+        return service;
+    }
+}
@@ -0,0 +1,378 @@
+package org.example.controller;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.example.controller.TrackingNumberController.TrackingNumberBatchRequest;
+import org.example.service.IssuanceAudit;
+import org.example.service.TrackingNumberGenerationException;
+import org.example.service.TrackingNumberService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Compact binary transport for internal callers, next to the HTTP {@link TrackingNumberController}.
+ * <p>
+ * Clients keep a TCP connection open and may pipeline any number of fixed-size requests on it;
+ * responses come back in request order. All integers are big-endian.
+ * <pre>
+ * Request, 37 bytes
+ *   0  u8   version, always 1
+ *   1  u32  request id, echoed in the response
+ *   5  2    origin country, ASCII
+ *   7  2    destination country, ASCII
+ *   9  f64  weight
+ *  17  16   customer id, UUID as most then least significant 64 bits
+ *  33  u32  count of tracking numbers
+ *
+ * Response
+ *   0  u32  request id
+ *   4  u8   status: 0 ok, 1 invalid request, 2 generation failed, 3 internal error
+ *   ok:    i64 created at (epoch millis), u32 count, then per number u8 length and ASCII characters
+ *   error: u16 length and UTF-8 message
+ * </pre>
+ * Requests are validated with the constraints of {@link TrackingNumberBatchRequest}. Connections
+ * are spread over a few event loop threads that parse, generate and write without blocking; a
+ * connection is not read while its pending response bytes exceed a limit, so a slow reader cannot
+ * make the server buffer without bound. A request with another version closes the connection.
+ * There is no authentication or rate limiting, so bind it to an internal interface only.
+ */
+@Component
+@ConditionalOnProperty(name = "app.binary.enabled", havingValue = "true")
+public class BinaryTrackingNumberServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryTrackingNumberServer.class);
+
+    public static final byte VERSION = 1;
+    public static final int REQUEST_SIZE = 37;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_INVALID_REQUEST = 1;
+    public static final byte STATUS_GENERATION_FAILED = 2;
+    public static final byte STATUS_INTERNAL_ERROR = 3;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    // Pending response bytes past which a connection's further requests wait for the client to read
+    private static final int WRITE_HIGH_WATER_MARK = 256 * 1024;
+
+    @Autowired
+    private TrackingNumberService trackingNumberService;
+
+    @Autowired
+    private Validator validator;
+
+    private final InetSocketAddress address;
+    private final EventLoop[] eventLoops;
+
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+
+    /**
+     * @param host Interface to listen on
+     * @param port Port to listen on, 0 for any free port
+     * @param ioThreads Event loop threads, 0 for one per processor
+     */
+    public BinaryTrackingNumberServer(@Value("${app.binary.host:127.0.0.1}") String host,
+                                      @Value("${app.binary.port:8093}") int port,
+                                      @Value("${app.binary.io-threads:0}") int ioThreads) {
+        this.address = new InetSocketAddress(host, port);
+        this.eventLoops = new EventLoop[ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors()];
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address);
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new EventLoop("binary-io-" + i);
+                eventLoops[i].start();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + address, e);
+        }
+        acceptor = new Thread(this::acceptConnections, "binary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Binary protocol listening on {}", serverChannel.socket().getLocalSocketAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverChannel.close();
+        for (EventLoop eventLoop : eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.close();
+            }
+        }
+    }
+
+    /**
+     * @return Port the server listens on, the one chosen by the system if configured as 0
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void acceptConnections() {
+        int next = 0;
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                eventLoops[next++ % eventLoops.length].register(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to accept binary protocol connection", e);
+            }
+        }
+    }
+
+    /**
+     * Handle one request and append its response
+     */
+    void handle(ByteBuffer request, ResponseBuffer response) {
+        int requestId = request.getInt();
+        String originCountryId = ascii(request, 2);
+        String destinationCountryId = ascii(request, 2);
+        double weight = request.getDouble();
+        String customerId = new UUID(request.getLong(), request.getLong()).toString();
+        long count = Integer.toUnsignedLong(request.getInt());
+
+        TrackingNumberBatchRequest batchRequest = new TrackingNumberBatchRequest(
+            originCountryId, destinationCountryId, weight, customerId, (int) Math.min(count, Integer.MAX_VALUE));
+        Set<ConstraintViolation<TrackingNumberBatchRequest>> violations = validator.validate(batchRequest);
+        if (!violations.isEmpty()) {
+            response.error(requestId, STATUS_INVALID_REQUEST, violations.stream()
+                .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+            return;
+        }
+
+        int start = response.position();
+        try {
+            response.ensureCapacity(17);
+            response.buffer.putInt(requestId).put(STATUS_OK).putLong(System.currentTimeMillis()).putInt((int) count);
+            if (count == 1) {
+                String trackingNumber = trackingNumberService.generateTrackingNumber(
+                    originCountryId, destinationCountryId, weight, customerId);
+                IssuanceAudit.issued(trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+                response.number(trackingNumber);
+            } else {
+                Iterator<String> trackingNumbers = trackingNumberService.generateBatch(
+                    originCountryId, destinationCountryId, weight, customerId, (int) count).iterator();
+                while (trackingNumbers.hasNext()) {
+                    String trackingNumber = trackingNumbers.next();
+                    IssuanceAudit.issued(trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+                    response.number(trackingNumber);
+                }
+            }
+        } catch (TrackingNumberGenerationException e) {
+            logger.error("Tracking number generation failed", e);
+            response.rewind(start);
+            response.error(requestId, STATUS_GENERATION_FAILED, "Unable to generate tracking number. Please try again.");
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error occurred", e);
+            response.rewind(start);
+            response.error(requestId, STATUS_INTERNAL_ERROR, "An unexpected error occurred. Please try again later.");
+        }
+    }
+
+    private static String ascii(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Response bytes of one connection waiting to be written, grown on demand
+     */
+    static final class ResponseBuffer {
+        private ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+        int position() {
+            return buffer.position();
+        }
+
+        void rewind(int position) {
+            buffer.position(position);
+        }
+
+        void ensureCapacity(int additional) {
+            if (buffer.remaining() < additional) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + additional));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+
+        void number(String trackingNumber) {
+            ensureCapacity(1 + trackingNumber.length());
+            buffer.put((byte) trackingNumber.length());
+            // Tracking numbers are plain ASCII
+            for (int i = 0; i < trackingNumber.length(); i++) {
+                buffer.put((byte) trackingNumber.charAt(i));
+            }
+        }
+
+        void error(int requestId, byte status, String message) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, 0xFFFF);
+            ensureCapacity(7 + length);
+            buffer.putInt(requestId).put(status).putShort((short) length).put(bytes, 0, length);
+        }
+
+        /**
+         * Write as much as the socket takes
+         * @return true once everything was written
+         */
+        boolean writeTo(SocketChannel channel) throws IOException {
+            buffer.flip();
+            channel.write(buffer);
+            boolean drained = !buffer.hasRemaining();
+            buffer.compact();
+            if (drained && buffer.capacity() > WRITE_HIGH_WATER_MARK) {
+                // Give back the space a large batch needed
+                buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            }
+            return drained;
+        }
+    }
+
+    private static final class Connection {
+        final ByteBuffer requests = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ResponseBuffer responses = new ResponseBuffer();
+    }
+
+    /**
+     * Selector thread serving a share of the connections
+     */
+    private final class EventLoop extends Thread {
+        private final Selector selector;
+        private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        EventLoop(String name) throws IOException {
+            super(name);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        void close() throws IOException {
+            running = false;
+            selector.wakeup();
+            try {
+                join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    for (SocketChannel channel; (channel = registrations.poll()) != null; ) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection());
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            service(key);
+                        } catch (IOException | RuntimeException e) {
+                            logger.debug("Closing binary protocol connection", e);
+                            closeConnection(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Binary protocol event loop failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeConnection(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close selector", e);
+                }
+            }
+        }
+
+        private void service(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            if (key.isValid() && key.isReadable() && channel.read(connection.requests) < 0) {
+                closeConnection(key);
+                return;
+            }
+            ByteBuffer requests = connection.requests.flip();
+            try {
+                while (true) {
+                    // Requests pipelined behind a large response wait until the client reads it
+                    while (requests.remaining() >= REQUEST_SIZE
+                            && connection.responses.position() < WRITE_HIGH_WATER_MARK) {
+                        if (requests.get() != VERSION) {
+                            closeConnection(key);
+                            return;
+                        }
+                        handle(requests, connection.responses);
+                    }
+                    if (!connection.responses.writeTo(channel)) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    if (requests.remaining() < REQUEST_SIZE) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        return;
+                    }
+                }
+            } finally {
+                requests.compact();
+            }
+        }
+
+        private void closeConnection(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                logger.debug("Failed to close binary protocol connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.controller;
+
+import java.time.Instant;
+
+/**
+ * ISO-8601 text of the current instant, formatted at most once per millisecond.
+ * <p>
+ * Responses carry millisecond timestamps in the same format as {@link Instant#toString()}.
+ * Requests served within the same millisecond share one formatted string instead of each
+ * formatting {@code Instant.now()} anew. Threads racing on a new millisecond may both format it,
+ * which is harmless.
+ */
+public final class CachedTimestamp {
+
+    private static volatile Formatted current = new Formatted(Long.MIN_VALUE, "");
+
+    private CachedTimestamp() {
+    }
+
+    /**
+     * @return The current time as {@code Instant.ofEpochMilli(System.currentTimeMillis()).toString()}
+     */
+    public static String now() {
+        long millis = System.currentTimeMillis();
+        Formatted formatted = current;
+        if (formatted.millis != millis) {
+            formatted = new Formatted(millis, Instant.ofEpochMilli(millis).toString());
+            current = formatted;
+        }
+        return formatted.text;
+    }
+
+    private record Formatted(long millis, String text) {
+    }
+}
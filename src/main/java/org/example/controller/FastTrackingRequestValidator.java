@@ -0,0 +1,112 @@
+package org.example.controller;
+
+import org.example.controller.TrackingNumberController.TrackingNumberBatchRequest;
+import org.example.controller.TrackingNumberController.TrackingNumberRequest;
+import org.example.controller.TrackingNumberController.ValidTrackingRequest;
+import org.example.service.RouteCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+
+/**
+ * Hand-written checks for the tracking number request records, used instead of Bean Validation
+ * when {@code app.validation.mode=fast}.
+ * <p>
+ * Reports the same fields with the same messages as the constraint annotations on
+ * {@link TrackingNumberRequest} and {@link TrackingNumberBatchRequest}, so error responses keep
+ * their shape, but needs neither reflection nor regular expressions and allocates nothing for a
+ * valid request. Country codes are looked up in the table of assigned ISO 3166-1 alpha-2 codes
+ * kept by {@link RouteCodec}, which also rejects well-formed codes such as {@code XX} that no
+ * country has.
+ */
+@Component
+@ConditionalOnProperty(name = "app.validation.mode", havingValue = "fast")
+public class FastTrackingRequestValidator implements Validator {
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return ValidTrackingRequest.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        if (target instanceof TrackingNumberRequest request) {
+            validate(errors, request.origin_country_id(), request.destination_country_id(),
+                     request.weight(), request.customer_id());
+        } else if (target instanceof TrackingNumberBatchRequest request) {
+            validate(errors, request.origin_country_id(), request.destination_country_id(),
+                     request.weight(), request.customer_id());
+            if (request.count() < 1) {
+                reject(errors, "count", request.count(), "Min", "Count must be at least 1");
+            } else if (request.count() > TrackingNumberController.MAX_BATCH_SIZE) {
+                reject(errors, "count", request.count(), "Max",
+                       "Count must not exceed " + TrackingNumberController.MAX_BATCH_SIZE);
+            }
+        }
+    }
+
+    private static void validate(Errors errors, String originCountryId, String destinationCountryId,
+                                 double weight, String customerId) {
+        if (originCountryId == null) {
+            reject(errors, "origin_country_id", null, "NotNull", "Origin country ID is required");
+        } else if (!isCountryCode(originCountryId)) {
+            reject(errors, "origin_country_id", originCountryId, "Pattern",
+                   "Origin country code must be in ISO 3166-1 alpha-2 format");
+        }
+        if (destinationCountryId == null) {
+            reject(errors, "destination_country_id", null, "NotNull", "Destination country ID is required");
+        } else if (!isCountryCode(destinationCountryId)) {
+            reject(errors, "destination_country_id", destinationCountryId, "Pattern",
+                   "Destination country code must be in ISO 3166-1 alpha-2 format");
+        }
+        // Also false for NaN
+        if (!(weight > 0)) {
+            reject(errors, "weight", weight, "Positive", "Weight must be positive");
+        }
+        if (customerId == null) {
+            reject(errors, "customer_id", null, "NotNull", "Customer ID is required");
+        } else if (!isUuid(customerId)) {
+            reject(errors, "customer_id", customerId, "Pattern", "Customer ID must be a valid UUID");
+        }
+    }
+
+    /**
+     * @return true for an assigned ISO 3166-1 alpha-2 code in upper case
+     */
+    public static boolean isCountryCode(String code) {
+        return RouteCodec.countryIndex(code) >= 0;
+    }
+
+    /**
+     * @return true for a UUID in canonical lower case form, 8-4-4-4-12 hex digits
+     */
+    public static boolean isUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reject(Errors errors, String field, Object rejectedValue, String code, String message) {
+        if (errors instanceof BindingResult bindingResult) {
+            // Record components have no getters for rejectValue to read the value through
+            bindingResult.addError(new FieldError(bindingResult.getObjectName(), field, rejectedValue, false,
+                                                  bindingResult.resolveMessageCodes(code, field), null, message));
+        } else {
+            errors.rejectValue(field, code, message);
+        }
+    }
+}
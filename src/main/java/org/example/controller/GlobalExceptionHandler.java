@@ -1,9 +1,13 @@
 package org.example.controller;
 
+import org.example.service.IdempotencyKeyInProgressException;
+import org.example.service.IdempotencyKeyReusedException;
 import org.example.service.TrackingNumberGenerationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,27 +16,23 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
     @ExceptionHandler(TrackingNumberGenerationException.class)
-    public ResponseEntity<Map<String, Object>> handleTrackingNumberGenerationException(
+    public ResponseEntity<byte[]> handleTrackingNumberGenerationException(
             TrackingNumberGenerationException ex) {
         
         logger.error("Tracking number generation failed", ex);
-        
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("error", "TRACKING_NUMBER_GENERATION_FAILED");
-        errorResponse.put("message", "Unable to generate tracking number. Please try again.");
-        errorResponse.put("timestamp", Instant.now().toString());
-        
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "TRACKING_NUMBER_GENERATION_FAILED",
+                             "Unable to generate tracking number. Please try again.");
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -53,7 +53,7 @@ public class GlobalExceptionHandler {
         errorResponse.put("error", "VALIDATION_FAILED");
         errorResponse.put("message", "Request validation failed");
         errorResponse.put("fieldErrors", fieldErrors);
-        errorResponse.put("timestamp", Instant.now().toString());
+        errorResponse.put("timestamp", CachedTimestamp.now());
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
@@ -68,7 +68,7 @@ public class GlobalExceptionHandler {
         errorResponse.put("error", "MISSING_PARAMETER");
         errorResponse.put("message", "Required parameter '" + ex.getParameterName() + "' is missing");
         errorResponse.put("parameter", ex.getParameterName());
-        errorResponse.put("timestamp", Instant.now().toString());
+        errorResponse.put("timestamp", CachedTimestamp.now());
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
@@ -84,21 +84,46 @@ public class GlobalExceptionHandler {
         errorResponse.put("message", "Invalid type for parameter '" + ex.getName() + "'");
         errorResponse.put("parameter", ex.getName());
         errorResponse.put("expectedType", ex.getRequiredType().getSimpleName());
-        errorResponse.put("timestamp", Instant.now().toString());
+        errorResponse.put("timestamp", CachedTimestamp.now());
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<byte[]> handleIdempotencyKeyReusedException(
+            IdempotencyKeyReusedException ex) {
+
+        logger.warn(ex.getMessage());
+
+        return errorResponse(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+                             "Idempotency key was already used for a request with different parameters");
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<byte[]> handleIdempotencyKeyInProgressException(
+            IdempotencyKeyInProgressException ex) {
+
+        logger.warn(ex.getMessage());
+
+        return errorResponse(HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS",
+                             "The first request with this idempotency key has not finished, please retry");
+    }
+
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
+    public ResponseEntity<byte[]> handleGenericException(Exception ex) {
         
         logger.error("Unexpected error occurred", ex);
-        
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("error", "INTERNAL_SERVER_ERROR");
-        errorResponse.put("message", "An unexpected error occurred. Please try again later.");
-        errorResponse.put("timestamp", Instant.now().toString());
-        
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_SERVER_ERROR",
+                             "An unexpected error occurred. Please try again later.");
+    }
+
+    /**
+     * Body with only error code, message and timestamp, encoded by {@link JsonResponseWriter}
+     */
+    private static ResponseEntity<byte[]> errorResponse(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(JsonResponseWriter.current().error(error, message, CachedTimestamp.now()).toByteArray());
     }
 }
@@ -0,0 +1,159 @@
+package org.example.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes the fixed-shape JSON bodies of the tracking number and error responses without building
+ * a map for Jackson to serialize reflectively.
+ * <p>
+ * A body is assembled from pre-encoded field templates in a buffer that each thread reuses, then
+ * written out or copied. Fields come in the order Jackson emitted them for the {@code HashMap}
+ * these bodies used to be built from, and strings are escaped the way Jackson escapes them, so the
+ * bytes are the same as before.
+ */
+public final class JsonResponseWriter {
+
+    private static final byte[] DESTINATION_COUNTRY_ID = ascii("{\"destination_country_id\":\"");
+    private static final byte[] TRACKING_NUMBER = ascii("\",\"tracking_number\":\"");
+    private static final byte[] CREATED_AT = ascii("\",\"created_at\":\"");
+    private static final byte[] ORIGIN_COUNTRY_ID = ascii("\",\"origin_country_id\":\"");
+
+    private static final byte[] ERROR = ascii("{\"error\":\"");
+    private static final byte[] MESSAGE = ascii("\",\"message\":\"");
+    private static final byte[] TIMESTAMP = ascii("\",\"timestamp\":\"");
+
+    private static final byte[] END = ascii("\"}");
+
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // Fits every tracking number response, longer error messages grow it
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final ThreadLocal<JsonResponseWriter> WRITERS = ThreadLocal.withInitial(JsonResponseWriter::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private JsonResponseWriter() {
+    }
+
+    /**
+     * @return The calling thread's writer; its body is only valid until the thread encodes the next one
+     */
+    public static JsonResponseWriter current() {
+        return WRITERS.get();
+    }
+
+    /**
+     * Encode the body of a generated tracking number
+     */
+    public JsonResponseWriter trackingNumber(String trackingNumber, String createdAt,
+                                             String originCountryId, String destinationCountryId) {
+        length = 0;
+        append(DESTINATION_COUNTRY_ID);
+        appendEscaped(destinationCountryId);
+        append(TRACKING_NUMBER);
+        appendEscaped(trackingNumber);
+        append(CREATED_AT);
+        appendEscaped(createdAt);
+        append(ORIGIN_COUNTRY_ID);
+        appendEscaped(originCountryId);
+        append(END);
+        return this;
+    }
+
+    /**
+     * Encode an error body with error code, message and timestamp
+     */
+    public JsonResponseWriter error(String error, String message, String timestamp) {
+        length = 0;
+        append(ERROR);
+        appendEscaped(error);
+        append(MESSAGE);
+        appendEscaped(message);
+        append(TIMESTAMP);
+        appendEscaped(timestamp);
+        append(END);
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Append a string as UTF-8, escaping quotes, backslashes and control characters as Jackson does
+     */
+    private void appendEscaped(String value) {
+        // Worst case is six bytes per char for \\u00XX escapes
+        ensureCapacity(value.length() * 6);
+        byte[] out = buffer;
+        int position = length;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                out[position++] = (byte) c;
+            } else if (c < 0x80) {
+                out[position++] = '\\';
+                switch (c) {
+                    case '"', '\\' -> out[position++] = (byte) c;
+                    case '\b' -> out[position++] = 'b';
+                    case '\t' -> out[position++] = 't';
+                    case '\n' -> out[position++] = 'n';
+                    case '\f' -> out[position++] = 'f';
+                    case '\r' -> out[position++] = 'r';
+                    default -> {
+                        out[position++] = 'u';
+                        out[position++] = '0';
+                        out[position++] = '0';
+                        out[position++] = HEX[c >> 4];
+                        out[position++] = HEX[c & 0xF];
+                    }
+                }
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes characters outside the BMP as their surrogate pair
+                out[position++] = '\\';
+                out[position++] = 'u';
+                out[position++] = HEX[c >> 12];
+                out[position++] = HEX[(c >> 8) & 0xF];
+                out[position++] = HEX[(c >> 4) & 0xF];
+                out[position++] = HEX[c & 0xF];
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        length = position;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.controller;
+
+import org.example.service.IdempotencyKeyInProgressException;
+import org.example.service.IdempotencyKeyReusedException;
+import org.example.service.TrackingNumberGenerationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.MissingRequestValueException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps WebFlux exceptions to the same error bodies as {@link GlobalExceptionHandler}
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveGlobalExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveGlobalExceptionHandler.class);
+
+    @ExceptionHandler(TrackingNumberGenerationException.class)
+    public ResponseEntity<byte[]> handleTrackingNumberGenerationException(
+            TrackingNumberGenerationException ex) {
+
+        logger.error("Tracking number generation failed", ex);
+
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "TRACKING_NUMBER_GENERATION_FAILED",
+                             "Unable to generate tracking number. Please try again.");
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidationExceptions(WebExchangeBindException ex) {
+
+        logger.warn("Validation failed for request", ex);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        Map<String, String> fieldErrors = new HashMap<>();
+
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            fieldErrors.put(fieldName, errorMessage);
+        });
+
+        errorResponse.put("error", "VALIDATION_FAILED");
+        errorResponse.put("message", "Request validation failed");
+        errorResponse.put("fieldErrors", fieldErrors);
+        errorResponse.put("timestamp", CachedTimestamp.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(MissingRequestValueException.class)
+    public ResponseEntity<Map<String, Object>> handleMissingParameterException(MissingRequestValueException ex) {
+
+        logger.warn("Missing required parameter: {}", ex.getName());
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "MISSING_PARAMETER");
+        errorResponse.put("message", "Required parameter '" + ex.getName() + "' is missing");
+        errorResponse.put("parameter", ex.getName());
+        errorResponse.put("timestamp", CachedTimestamp.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<?> handleTypeMismatchException(ServerWebInputException ex) {
+
+        if (!(ex.getCause() instanceof TypeMismatchException typeMismatch)) {
+            return handleGenericException(ex);
+        }
+
+        logger.warn("Type mismatch for parameter: {}", typeMismatch.getPropertyName());
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "INVALID_PARAMETER_TYPE");
+        errorResponse.put("message", "Invalid type for parameter '" + typeMismatch.getPropertyName() + "'");
+        errorResponse.put("parameter", typeMismatch.getPropertyName());
+        errorResponse.put("expectedType", typeMismatch.getRequiredType().getSimpleName());
+        errorResponse.put("timestamp", CachedTimestamp.now());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<byte[]> handleIdempotencyKeyReusedException(
+            IdempotencyKeyReusedException ex) {
+
+        logger.warn(ex.getMessage());
+
+        return errorResponse(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+                             "Idempotency key was already used for a request with different parameters");
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<byte[]> handleIdempotencyKeyInProgressException(
+            IdempotencyKeyInProgressException ex) {
+
+        logger.warn(ex.getMessage());
+
+        return errorResponse(HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS",
+                             "The first request with this idempotency key has not finished, please retry");
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<byte[]> handleGenericException(Exception ex) {
+
+        logger.error("Unexpected error occurred", ex);
+
+        return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_SERVER_ERROR",
+                             "An unexpected error occurred. Please try again later.");
+    }
+
+    /**
+     * Body with only error code, message and timestamp, encoded by {@link JsonResponseWriter}
+     */
+    private static ResponseEntity<byte[]> errorResponse(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(JsonResponseWriter.current().error(error, message, CachedTimestamp.now()).toByteArray());
+    }
+}
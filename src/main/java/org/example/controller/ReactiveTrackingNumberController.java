@@ -0,0 +1,133 @@
+package org.example.controller;
+
+import org.example.config.ReactiveTracingConfig;
+import org.example.controller.TrackingNumberController.TrackingNumberRequest;
+import org.example.service.GenerationMetrics;
+import org.example.service.IdempotencyCache;
+import org.example.service.IssuanceAudit;
+import org.example.service.TrackingNumberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.validation.Valid;
+import java.security.Principal;
+import java.util.function.Supplier;
+
+/**
+ * WebFlux variant of {@link TrackingNumberController} for {@code spring.main.web-application-type=reactive}.
+ * Plain generation is CPU-bound and runs directly on the Netty event loop. With the issued-number
+ * registry (locks, log segment rolls and forces), a sequence checkpoint (may force the file on the
+ * calling thread) or the issuance audit (waits when its buffer is full) it can block, and runs on
+ * the bounded elastic scheduler instead.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTrackingNumberController {
+
+    @Autowired
+    private TrackingNumberService trackingNumberService;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    @Value("${app.registry.enabled:false}")
+    private boolean registryEnabled;
+
+    @Value("${app.tracking-number.checkpoint-file:}")
+    private String checkpointFile;
+
+    // Present when app.validation.mode=fast
+    @Autowired(required = false)
+    private FastTrackingRequestValidator fastTrackingRequestValidator;
+
+    @InitBinder("trackingNumberRequest")
+    public void initBinder(WebDataBinder binder) {
+        if (fastTrackingRequestValidator != null) {
+            binder.setValidator(fastTrackingRequestValidator);
+        }
+    }
+
+    @GetMapping("/next-tracking-number")
+    public Mono<ResponseEntity<byte[]>> getNextTrackingNumber(
+            @Valid TrackingNumberRequest request,
+            @RequestHeader(value = TrackingNumberController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return generate(() -> generateResponse(request, null));
+        }
+        return Mono.defer(() -> {
+            IdempotencyCache.Claim claim = idempotencyCache.claim(
+                principal != null ? principal.getName() : "", idempotencyKey,
+                IdempotencyCache.fingerprint(request.origin_country_id(), request.destination_country_id(),
+                                             request.weight(), request.customer_id()));
+            if (!claim.isOwner()) {
+                // Completes when the first request has its number, without blocking the event loop
+                return Mono.fromFuture(claim.result()).map(result -> ResponseEntity.ok()
+                    .header(TrackingNumberController.IDEMPOTENT_REPLAYED_HEADER, "true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(trackingNumberResponse(result.trackingNumber(), result.createdAt(), request)));
+            }
+            return generate(() -> {
+                try {
+                    return generateResponse(request, claim);
+                } catch (Throwable e) {
+                    // Errors too, which Reactor rethrows instead of signalling
+                    claim.abandon(e);
+                    throw e;
+                }
+            });
+        });
+    }
+
+    private <T> Mono<T> generate(Supplier<T> work) {
+        Mono<T> generation = ReactiveTracingConfig.withCorrelationId(work);
+        return generationMayBlock() ? generation.subscribeOn(Schedulers.boundedElastic()) : generation;
+    }
+
+    private boolean generationMayBlock() {
+        return registryEnabled || !checkpointFile.isEmpty() || IssuanceAudit.isEnabled();
+    }
+
+    private ResponseEntity<byte[]> generateResponse(TrackingNumberRequest request, IdempotencyCache.Claim claim) {
+        String trackingNumber = trackingNumberService.generateTrackingNumber(
+            request.origin_country_id(), request.destination_country_id(),
+            request.weight(), request.customer_id());
+        IssuanceAudit.issued(trackingNumber, request.origin_country_id(), request.destination_country_id(),
+                             request.weight(), request.customer_id());
+        String createdAt = CachedTimestamp.now();
+        if (claim != null) {
+            claim.complete(trackingNumber, createdAt);
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(trackingNumberResponse(trackingNumber, createdAt, request));
+    }
+
+    /**
+     * Body encoded by {@link JsonResponseWriter}; copied out of its buffer since Netty writes it later
+     */
+    private byte[] trackingNumberResponse(String trackingNumber, String createdAt, TrackingNumberRequest request) {
+        boolean timePhase = generationMetrics.samplePhases();
+        long start = timePhase ? System.nanoTime() : 0;
+        byte[] body = JsonResponseWriter.current().trackingNumber(
+            trackingNumber, createdAt, request.origin_country_id(), request.destination_country_id()).toByteArray();
+        if (timePhase) {
+            generationMetrics.recordPhase(GenerationMetrics.Phase.SERIALIZATION, start);
+        }
+        return body;
+    }
+}
@@ -1,46 +1,355 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.service.CheckCharacterCodec;
+import org.example.service.GenerationMetrics;
+import org.example.service.IdempotencyCache;
+import org.example.service.IdempotencyCache.IdempotentResult;
+import org.example.service.IssuanceAudit;
+import org.example.service.IssuedNumber;
+import org.example.service.IssuedNumberRegistry;
+import org.example.service.RouteCodec;
+import org.example.service.TrackingNumberEncoder;
 import org.example.service.TrackingNumberService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.constraints.*;
 import jakarta.validation.Valid;
-import java.time.Instant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TrackingNumberController {
 
+    // Upper bound for a single batch request
+    public static final int MAX_BATCH_SIZE = 100_000;
+
+    // Largest text body for verification: a full batch of numbers with CRLF line ends
+    static final int MAX_VERIFY_BODY_BYTES = MAX_BATCH_SIZE * (TrackingNumberEncoder.LENGTH + 2);
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    // Set on responses that repeat an earlier response for the same idempotency key
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final byte[] NDJSON_LINE_PREFIX = "{\"tracking_number\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NDJSON_LINE_SUFFIX = "\"}\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Bytes buffered before each write/flush to the client socket
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
     @Autowired
     private TrackingNumberService trackingNumberService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    // Present when app.registry.enabled=true
+    @Autowired(required = false)
+    private IssuedNumberRegistry issuedNumberRegistry;
+
+    // Present when app.validation.mode=fast
+    @Autowired(required = false)
+    private FastTrackingRequestValidator fastTrackingRequestValidator;
     
     // Request validation interface
-    public sealed interface ValidTrackingRequest permits TrackingNumberRequest {}
+    public sealed interface ValidTrackingRequest permits TrackingNumberRequest, TrackingNumberBatchRequest {}
+
+    /**
+     * Validate the request records with {@link FastTrackingRequestValidator} instead of Bean Validation when enabled
+     */
+    @InitBinder({"trackingNumberRequest", "trackingNumberBatchRequest"})
+    public void initBinder(WebDataBinder binder) {
+        if (fastTrackingRequestValidator != null) {
+            binder.setValidator(fastTrackingRequestValidator);
+        }
+    }
     
     @GetMapping("/next-tracking-number")
-    public ResponseEntity<Map<String, Object>> getNextTrackingNumber(@Valid TrackingNumberRequest request) {
-        return generateResponse(request.origin_country_id(), request.destination_country_id(),
-                              request.weight(), request.customer_id());
+    public void getNextTrackingNumber(
+            @Valid TrackingNumberRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal,
+            HttpServletResponse response) throws IOException {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            generateResponse(request, null, response);
+            return;
+        }
+
+        // A retry with the same key gets the number generated for the first attempt
+        IdempotencyCache.Claim claim = idempotencyCache.claim(
+            principal != null ? principal.getName() : "", idempotencyKey,
+            IdempotencyCache.fingerprint(request.origin_country_id(), request.destination_country_id(),
+                                         request.weight(), request.customer_id()));
+        if (!claim.isOwner()) {
+            IdempotentResult result;
+            try {
+                result = claim.result().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+            writeTrackingNumberResponse(response, result.trackingNumber(), result.createdAt(), request);
+            return;
+        }
+        try {
+            generateResponse(request, claim, response);
+        } catch (Throwable e) {
+            // Errors too, or duplicates would wait on the claim until they time out
+            claim.abandon(e);
+            throw e;
+        }
+    }
+
+    @GetMapping(value = "/next-tracking-numbers/stream", produces = APPLICATION_NDJSON_VALUE)
+    public void streamTrackingNumbersAsJson(@Valid TrackingNumberBatchRequest request,
+                                            HttpServletResponse response) throws IOException {
+        streamTrackingNumbers(request, response, APPLICATION_NDJSON_VALUE, NDJSON_LINE_PREFIX, NDJSON_LINE_SUFFIX);
+    }
+
+    @GetMapping(value = "/next-tracking-numbers/stream", produces = MediaType.TEXT_PLAIN_VALUE)
+    public void streamTrackingNumbersAsText(@Valid TrackingNumberBatchRequest request,
+                                            HttpServletResponse response) throws IOException {
+        streamTrackingNumbers(request, response, MediaType.TEXT_PLAIN_VALUE, new byte[0], new byte[] {'\n'});
     }
 
     
-    private ResponseEntity<Map<String, Object>> generateResponse(String originCountryId, String destinationCountryId,
-                                                                 double weight, String customerId) {
+    private void generateResponse(TrackingNumberRequest request, IdempotencyCache.Claim claim,
+                                  HttpServletResponse response) throws IOException {
         String trackingNumber = trackingNumberService.generateTrackingNumber(
-            originCountryId, destinationCountryId, weight, customerId);
+            request.origin_country_id(), request.destination_country_id(), request.weight(), request.customer_id());
+        IssuanceAudit.issued(trackingNumber, request.origin_country_id(), request.destination_country_id(),
+                             request.weight(), request.customer_id());
+        String createdAt = CachedTimestamp.now();
+        if (claim != null) {
+            claim.complete(trackingNumber, createdAt);
+        }
+        writeTrackingNumberResponse(response, trackingNumber, createdAt, request);
+    }
+
+    /**
+     * Write the response body straight from the thread's reusable buffer, see {@link JsonResponseWriter}
+     */
+    private void writeTrackingNumberResponse(HttpServletResponse response, String trackingNumber, String createdAt,
+                                             TrackingNumberRequest request) throws IOException {
+        boolean timePhase = generationMetrics.samplePhases();
+        long start = timePhase ? System.nanoTime() : 0;
+        JsonResponseWriter body = JsonResponseWriter.current().trackingNumber(
+            trackingNumber, createdAt, request.origin_country_id(), request.destination_country_id());
+        if (timePhase) {
+            generationMetrics.recordPhase(GenerationMetrics.Phase.SERIALIZATION, start);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length());
+        body.writeTo(response.getOutputStream());
+    }
+
+    @GetMapping("/tracking-numbers/{trackingNumber}")
+    public ResponseEntity<Map<String, Object>> getTrackingNumber(@PathVariable String trackingNumber) {
+        if (issuedNumberRegistry == null) {
+            return errorResponse(HttpStatus.NOT_IMPLEMENTED, "LOOKUP_UNAVAILABLE",
+                                 "Tracking number lookup requires the issued number registry");
+        }
+        IssuedNumber issued = issuedNumberRegistry.lookup(trackingNumber);
+        if (issued == null) {
+            return errorResponse(HttpStatus.NOT_FOUND, "TRACKING_NUMBER_NOT_FOUND",
+                                 "Tracking number was not issued by this service");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("tracking_number", trackingNumber);
+        response.put("created_at", issued.createdAt().toString());
+        response.put("origin_country_id", issued.originCountryId());
+        response.put("destination_country_id", issued.destinationCountryId());
+        response.put("weight", issued.weight());
+        response.put("customer_id", issued.customerId());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Route carried in a number issued with {@code app.tracking-number.format=route}, read from the
+     * number itself; needs neither the registry nor the node that issued it
+     */
+    @GetMapping("/tracking-numbers/{trackingNumber}/route")
+    public ResponseEntity<Map<String, Object>> getTrackingNumberRoute(@PathVariable String trackingNumber) {
+        RouteCodec.Route route = RouteCodec.decode(trackingNumber);
+        if (route == null) {
+            return errorResponse(HttpStatus.NOT_FOUND, "ROUTE_NOT_ENCODED",
+                                 "Tracking number does not carry a route");
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("tracking_number", trackingNumber);
-        response.put("created_at", Instant.now().toString());
-        response.put("origin_country_id", originCountryId);
-        response.put("destination_country_id", destinationCountryId);
-        
+        response.put("origin_country_id", route.originCountryId());
+        response.put("destination_country_id", route.destinationCountryId());
+
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Check the check characters of numbers issued with {@code app.tracking-number.format=checked},
+     * one per line, without touching storage
+     */
+    @PostMapping(value = "/tracking-numbers/verify", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Map<String, Object>> verifyTrackingNumbers(InputStream body) throws IOException {
+        // Read no more than a full batch can take, so an oversized body is refused before any work
+        byte[] text = body.readNBytes(MAX_VERIFY_BODY_BYTES + 1);
+        if (text.length > MAX_VERIFY_BODY_BYTES) {
+            return tooManyToVerify();
+        }
+        BitSet invalid = new BitSet();
+        int count = CheckCharacterCodec.verifyLines(text, text.length, MAX_BATCH_SIZE, invalid);
+        return verificationResponse(count, invalid);
+    }
+
+    @PostMapping(value = "/tracking-numbers/verify", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> verifyTrackingNumbersJson(InputStream body) throws IOException {
+        BitSet invalid = new BitSet();
+        int count = 0;
+        // Streamed, so reading stops at the first number past a full batch
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return errorResponse(HttpStatus.BAD_REQUEST, "INVALID_REQUEST_BODY",
+                                     "Request body must be a JSON array of tracking numbers");
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.VALUE_STRING) {
+                    return errorResponse(HttpStatus.BAD_REQUEST, "INVALID_REQUEST_BODY",
+                                         "Request body must be a JSON array of tracking numbers");
+                }
+                if (count == MAX_BATCH_SIZE) {
+                    return tooManyToVerify();
+                }
+                if (!CheckCharacterCodec.isValid(parser.getText())) {
+                    invalid.set(count);
+                }
+                count++;
+            }
+        }
+        return verificationResponse(count, invalid);
+    }
+
+    private ResponseEntity<Map<String, Object>> verificationResponse(int count, BitSet invalid) {
+        if (count > MAX_BATCH_SIZE) {
+            return tooManyToVerify();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", count);
+        response.put("valid", count - invalid.cardinality());
+        response.put("invalid_indexes", invalid.stream().toArray());
+
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> tooManyToVerify() {
+        return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, "TOO_MANY_TRACKING_NUMBERS",
+                             "At most " + MAX_BATCH_SIZE + " tracking numbers can be verified per request");
+    }
+
+    private ResponseEntity<Map<String, Object>> errorResponse(HttpStatus status, String error, String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", error);
+        errorResponse.put("message", message);
+        errorResponse.put("timestamp", CachedTimestamp.now());
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @GetMapping("/next-tracking-numbers")
+    public void getNextTrackingNumbers(@Valid TrackingNumberBatchRequest request,
+                                       HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        // Numbers are written as they are generated, so memory use does not grow with the batch size
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("created_at", CachedTimestamp.now());
+            generator.writeStringField("origin_country_id", request.origin_country_id());
+            generator.writeStringField("destination_country_id", request.destination_country_id());
+            generator.writeNumberField("count", request.count());
+            generator.writeArrayFieldStart("tracking_numbers");
+            Iterator<String> trackingNumbers = trackingNumberService.generateBatch(
+                request.origin_country_id(), request.destination_country_id(),
+                request.weight(), request.customer_id(), request.count()).iterator();
+            while (trackingNumbers.hasNext()) {
+                String trackingNumber = trackingNumbers.next();
+                IssuanceAudit.issued(trackingNumber, request.origin_country_id(), request.destination_country_id(),
+                                     request.weight(), request.customer_id());
+                generator.writeString(trackingNumber);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
     
 
+    /**
+     * Write one tracking number per line straight to the servlet output stream.
+     * Lines are collected in a fixed-size chunk and flushed as soon as it fills up, so the blocking
+     * socket write throttles generation to the client's pace and memory use stays constant.
+     */
+    private void streamTrackingNumbers(TrackingNumberBatchRequest request, HttpServletResponse response,
+                                       String contentType, byte[] linePrefix, byte[] lineSuffix) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+
+        OutputStream out = response.getOutputStream();
+        byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+        int position = 0;
+
+        Iterator<String> trackingNumbers = trackingNumberService.generateBatch(
+            request.origin_country_id(), request.destination_country_id(),
+            request.weight(), request.customer_id(), request.count()).iterator();
+        while (trackingNumbers.hasNext()) {
+            String trackingNumber = trackingNumbers.next();
+            IssuanceAudit.issued(trackingNumber, request.origin_country_id(), request.destination_country_id(),
+                                 request.weight(), request.customer_id());
+            int lineLength = linePrefix.length + trackingNumber.length() + lineSuffix.length;
+            if (position + lineLength > chunk.length) {
+                out.write(chunk, 0, position);
+                out.flush();
+                position = 0;
+            }
+            System.arraycopy(linePrefix, 0, chunk, position, linePrefix.length);
+            position += linePrefix.length;
+            // Tracking numbers are plain ASCII
+            for (int i = 0; i < trackingNumber.length(); i++) {
+                chunk[position++] = (byte) trackingNumber.charAt(i);
+            }
+            System.arraycopy(lineSuffix, 0, chunk, position, lineSuffix.length);
+            position += lineSuffix.length;
+        }
+        out.write(chunk, 0, position);
+        out.flush();
+    }
+
     
     // Request data structure
     public record TrackingNumberRequest(
@@ -59,6 +368,28 @@ public class TrackingNumberController {
             @Pattern(regexp = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}",
                      message = "Customer ID must be a valid UUID")
             String customer_id) implements ValidTrackingRequest {}
+
+    // Batch request data structure
+    public record TrackingNumberBatchRequest(
+            @NotNull(message = "Origin country ID is required")
+            @Pattern(regexp = "[A-Z]{2}", message = "Origin country code must be in ISO 3166-1 alpha-2 format")
+            String origin_country_id,
+
+            @NotNull(message = "Destination country ID is required")
+            @Pattern(regexp = "[A-Z]{2}", message = "Destination country code must be in ISO 3166-1 alpha-2 format")
+            String destination_country_id,
+
+            @Positive(message = "Weight must be positive")
+            double weight,
+
+            @NotNull(message = "Customer ID is required")
+            @Pattern(regexp = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}",
+                     message = "Customer ID must be a valid UUID")
+            String customer_id,
+
+            @Min(value = 1, message = "Count must be at least 1")
+            @Max(value = MAX_BATCH_SIZE, message = "Count must not exceed " + MAX_BATCH_SIZE)
+            int count) implements ValidTrackingRequest {}
     
 
 }
\ No newline at end of file
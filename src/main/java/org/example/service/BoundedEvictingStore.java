@@ -0,0 +1,316 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded map from primitive {@code long} keys to values, with idle-time eviction and a hard size cap.
+ * <p>
+ * Entries live in a fixed number of segments, each a linear-probing table of parallel
+ * {@code long[]}/{@code Object[]} arrays guarded by a {@link ReentrantLock}, so neither keys nor
+ * entries are boxed and the memory footprint is fixed up front. A background sweeper removes
+ * entries not accessed for the idle timeout. When a segment is full, an insert first sweeps it and
+ * then evicts the least recently used of a small sample of entries.
+ *
+ * @param <V> Value type
+ */
+public class BoundedEvictingStore<V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedEvictingStore.class);
+
+    private static final int DEFAULT_SEGMENTS = 64;
+
+    // Entries compared when a full segment has to drop a live entry
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final String name;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int maxEntries;
+    private final long idleTimeoutNanos;
+
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    private volatile boolean running;
+    private Thread sweeperThread;
+
+    public BoundedEvictingStore(String name, int maxEntries, long idleTimeoutMillis) {
+        this(name, maxEntries, idleTimeoutMillis, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param name Used for the sweeper thread and log messages
+     * @param maxEntries Hard cap on the number of entries
+     * @param idleTimeoutMillis Entries not accessed for this long are evicted
+     * @param segments Number of independently locked segments, rounded down to a power of two
+     */
+    public BoundedEvictingStore(String name, int maxEntries, long idleTimeoutMillis, int segments) {
+        if (maxEntries < 1 || maxEntries > (1 << 29)) {
+            throw new IllegalArgumentException("Max entries must be between 1 and 2^29: " + maxEntries);
+        }
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeoutMillis);
+        }
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(segments, maxEntries)));
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(maxEntries / segmentCount);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    public void start() {
+        running = true;
+        sweeperThread = new Thread(this::sweepLoop, name + "-sweeper");
+        sweeperThread.setDaemon(true);
+        sweeperThread.start();
+        logger.info("Store {} started with {} entries max and {} ms idle timeout",
+                    name, maxEntries, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos));
+    }
+
+    public void stop() {
+        running = false;
+        if (sweeperThread != null) {
+            LockSupport.unpark(sweeperThread);
+        }
+    }
+
+    /**
+     * Look up a value and mark it as recently used
+     * @param key Entry key
+     * @return Stored value, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int slot = segment.find(key, hash);
+            if (segment.values[slot] == null) {
+                return null;
+            }
+            segment.lastAccess[slot] = System.nanoTime();
+            return (V) segment.values[slot];
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Look up a value, creating it with {@code factory} if absent. The factory runs under the
+     * segment lock and should be cheap.
+     * @param key Entry key
+     * @param factory Creates the value for a missing key
+     * @return Existing or newly created value
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            long now = System.nanoTime();
+            int slot = segment.find(key, hash);
+            if (segment.values[slot] != null) {
+                segment.lastAccess[slot] = now;
+                return (V) segment.values[slot];
+            }
+
+            if (segment.size >= segment.maxSize) {
+                idleEvictions.add(segment.sweep(now - idleTimeoutNanos));
+                if (segment.size >= segment.maxSize) {
+                    segment.evictLeastRecentlyUsed();
+                    capacityEvictions.increment();
+                }
+                slot = segment.find(key, hash);
+            }
+
+            V value = factory.apply(key);
+            segment.keys[slot] = key;
+            segment.values[slot] = value;
+            segment.lastAccess[slot] = now;
+            segment.size++;
+            return value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @param key Entry key
+     * @return Removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            int slot = segment.find(key, hash);
+            Object value = segment.values[slot];
+            if (value != null) {
+                segment.removeAt(slot);
+            }
+            return (V) value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry that has not been accessed for the idle timeout
+     * @return Number of entries evicted
+     */
+    public int evictIdle() {
+        int evicted = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                evicted += segment.sweep(System.nanoTime() - idleTimeoutNanos);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        idleEvictions.add(evicted);
+        return evicted;
+    }
+
+    /** Current number of entries, read without locking */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getIdleEvictions() {
+        return idleEvictions.sum();
+    }
+
+    public long getCapacityEvictions() {
+        return capacityEvictions.sum();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    private void sweepLoop() {
+        long interval = Math.max(idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(100));
+        while (running) {
+            LockSupport.parkNanos(this, interval);
+            if (running) {
+                int evicted = evictIdle();
+                if (evicted > 0 && logger.isDebugEnabled()) {
+                    logger.debug("Store {} evicted {} idle entries, {} remaining", name, evicted, size());
+                }
+            }
+        }
+    }
+
+    // The top bits pick the segment, the bottom bits the slot
+    private static long hash(long key) {
+        return Hashes.mix(key);
+    }
+
+    /**
+     * Linear-probing table kept at most half full. A null value marks an empty slot,
+     * so every long is a valid key.
+     */
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] keys;
+        private final Object[] values;
+        private final long[] lastAccess;
+        private final int mask;
+        private final int maxSize;
+        private volatile int size;
+        private int evictionCursor;
+
+        private Segment(int maxSize) {
+            int length = Integer.highestOneBit(Math.max(1, maxSize) * 2 - 1) << 1;
+            this.keys = new long[length];
+            this.values = new Object[length];
+            this.lastAccess = new long[length];
+            this.mask = length - 1;
+            this.maxSize = Math.max(1, maxSize);
+        }
+
+        // Slot holding the key, or the empty slot where it would be inserted
+        private int find(long key, long hash) {
+            int slot = (int) hash & mask;
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int sweep(long idleBefore) {
+            int evicted = 0;
+            for (int slot = 0; slot < values.length; ) {
+                if (values[slot] != null && lastAccess[slot] - idleBefore < 0) {
+                    // Backward shift may move another entry into this slot, so check it again
+                    removeAt(slot);
+                    evicted++;
+                } else {
+                    slot++;
+                }
+            }
+            return evicted;
+        }
+
+        private void evictLeastRecentlyUsed() {
+            int victim = -1;
+            int sampled = 0;
+            for (int i = 0; i < values.length && sampled < EVICTION_SAMPLE_SIZE; i++) {
+                int slot = (evictionCursor + i) & mask;
+                if (values[slot] != null) {
+                    if (victim < 0 || lastAccess[slot] - lastAccess[victim] < 0) {
+                        victim = slot;
+                    }
+                    sampled++;
+                }
+            }
+            evictionCursor = (victim + 1) & mask;
+            removeAt(victim);
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        private void removeAt(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int home = (int) hash(keys[next]) & mask;
+                boolean reachable = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+                if (!reachable) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    lastAccess[hole] = lastAccess[next];
+                    hole = next;
+                }
+            }
+            values[hole] = null;
+            size--;
+        }
+    }
+}
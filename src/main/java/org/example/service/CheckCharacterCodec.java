@@ -0,0 +1,170 @@
+package org.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Self-validating tracking number layout, used by the engines when
+ * {@code app.tracking-number.format=checked}.
+ * <p>
+ * A checked number is the engine's full 64-bit value as 15 base-36 digits (unsigned, zero padded,
+ * so it always starts with {@code 00}) followed by an ISO 7064 MOD 37,36 check character. The
+ * check character catches every single character error and all but about 0.15% of swaps of
+ * adjacent characters, so mistyped or misscanned numbers can be rejected without a lookup.
+ * <p>
+ * Verification runs the ISO 7064 recurrence as a precomputed state table: one lookup per character,
+ * with characters outside {@code 0-9A-Z} leading to a state the number never leaves, so the loop
+ * has no data-dependent branches and allocates nothing.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracking-number.format", havingValue = "checked")
+public class CheckCharacterCodec implements TrackingNumberLayout {
+
+    private static final int MODULUS = 36;
+
+    // Digits of the 64-bit value: 36^15 is far above 2^64
+    private static final int VALUE_LENGTH = TrackingNumberEncoder.LENGTH - 1;
+
+    // 36^12, below 2^63: the low 12 digits of any value are a positive long
+    private static final long LOW_DIGITS_RANGE = 4_738_381_338_321_616_896L;
+    private static final int LOW_DIGITS = 12;
+
+    private static final byte[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    // Recurrence states 1-36 as in ISO 7064 (the start state is 36), plus INVALID
+    private static final int INVALID = MODULUS + 1;
+    private static final int STATES = INVALID + 1;
+
+    // Next state for every state and input byte, indexed by state << 8 | byte: one lookup per character.
+    // Bytes that are not digits lead to INVALID, which never leads anywhere else.
+    private static final byte[] NEXT = new byte[STATES << 8];
+
+    // A number and its line feed
+    private static final int LINE_LENGTH = TrackingNumberEncoder.LENGTH + 1;
+
+    // A number whose last step had a sum of 1 ends in state 2 * 1 mod 37
+    private static final int VALID = 2;
+
+    static {
+        Arrays.fill(NEXT, (byte) INVALID);
+        for (int state = 1; state <= MODULUS; state++) {
+            for (int digit = 0; digit < MODULUS; digit++) {
+                int sum = (state + digit) % MODULUS;
+                NEXT[state << 8 | DIGITS[digit]] = (byte) ((sum == 0 ? MODULUS : sum) * 2 % (MODULUS + 1));
+            }
+        }
+    }
+
+    /**
+     * Write a checked number; the route is not part of it
+     * @return Always true
+     */
+    @Override
+    public boolean encode(String originCountryId, String destinationCountryId, long value, byte[] dst, int offset) {
+        long high = Long.divideUnsigned(value, LOW_DIGITS_RANGE);
+        long low = Long.remainderUnsigned(value, LOW_DIGITS_RANGE);
+        int pos = offset;
+        for (int i = LOW_DIGITS; i < VALUE_LENGTH - 1; i++) {
+            dst[pos++] = '0';
+        }
+        dst[pos++] = DIGITS[(int) high];
+        TrackingNumberEncoder.encodeBase36(low, dst, pos, LOW_DIGITS);
+        int state = MODULUS;
+        for (int i = offset; i < offset + VALUE_LENGTH; i++) {
+            state = NEXT[state << 8 | dst[i]];
+        }
+        // The check character brings the final sum to 1
+        dst[offset + VALUE_LENGTH] = DIGITS[(MODULUS + 1 - state) % MODULUS];
+        return true;
+    }
+
+    /**
+     * @return true for a 16 character number whose check character matches
+     */
+    public static boolean isValid(CharSequence trackingNumber) {
+        if (trackingNumber == null || trackingNumber.length() != TrackingNumberEncoder.LENGTH) {
+            return false;
+        }
+        int state = MODULUS;
+        for (int i = 0; i < TrackingNumberEncoder.LENGTH; i++) {
+            // Characters past Latin-1 are folded onto a byte that is not a digit
+            char c = trackingNumber.charAt(i);
+            state = NEXT[state << 8 | (c <= 0xFF ? c : 0)];
+        }
+        return state == VALID;
+    }
+
+    /**
+     * @return true if the ASCII characters {@code [offset, offset + length)} are a valid checked number
+     */
+    public static boolean isValid(byte[] src, int offset, int length) {
+        int state = MODULUS;
+        for (int i = offset; i < offset + length; i++) {
+            state = NEXT[state << 8 | (src[i] & 0xFF)];
+        }
+        return length == TrackingNumberEncoder.LENGTH & state == VALID;
+    }
+
+    /**
+     * Verify one number per line, ignoring a trailing carriage return and empty lines
+     * @param src ASCII text
+     * @param length Number of bytes to read from the start of {@code src}
+     * @param maxCount Stop once more than this many numbers were read
+     * @param invalid Set to the positions of the numbers that fail
+     * @return Number of numbers read, above {@code maxCount} if reading stopped early
+     */
+    public static int verifyLines(byte[] src, int length, int maxCount, BitSet invalid) {
+        int count = 0;
+        int start = 0;
+        while (start < length && count <= maxCount) {
+            if (start + 4 * LINE_LENGTH <= length && src[start + 16] == '\n' && src[start + 33] == '\n'
+                    && src[start + 50] == '\n' && src[start + 67] == '\n') {
+                // Four 16 byte spans side by side, so the four chains of dependent lookups overlap
+                int a = MODULUS;
+                int b = MODULUS;
+                int c = MODULUS;
+                int d = MODULUS;
+                for (int i = start; i < start + TrackingNumberEncoder.LENGTH; i++) {
+                    a = NEXT[a << 8 | (src[i] & 0xFF)];
+                    b = NEXT[b << 8 | (src[i + LINE_LENGTH] & 0xFF)];
+                    c = NEXT[c << 8 | (src[i + 2 * LINE_LENGTH] & 0xFF)];
+                    d = NEXT[d << 8 | (src[i + 3 * LINE_LENGTH] & 0xFF)];
+                }
+                // A span with any byte that is not a digit, a newline included, may not be one line;
+                // it is left to the line by line path below
+                if (a != INVALID && b != INVALID && c != INVALID && d != INVALID) {
+                    if ((a & b & c & d) != VALID || (a | b | c | d) != VALID) {
+                        setIf(invalid, count, a != VALID);
+                        setIf(invalid, count + 1, b != VALID);
+                        setIf(invalid, count + 2, c != VALID);
+                        setIf(invalid, count + 3, d != VALID);
+                    }
+                    count += 4;
+                    start += 4 * LINE_LENGTH;
+                    continue;
+                }
+            }
+            int end = start;
+            while (end < length && src[end] != '\n') {
+                end++;
+            }
+            int lineEnd = end > start && src[end - 1] == '\r' ? end - 1 : end;
+            if (lineEnd > start) {
+                setIf(invalid, count, !isValid(src, start, lineEnd - start));
+                count++;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    private static void setIf(BitSet bits, int index, boolean set) {
+        if (set) {
+            bits.set(index);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.service;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+
+/**
+ * Packs client addresses into {@code long} keys without allocating.
+ * <ul>
+ *   <li>IPv4 (including IPv4-mapped IPv6): the 32-bit address tagged with {@link #IPV4_TAG}</li>
+ *   <li>IPv6: the /64 network prefix, the smallest block normally assigned to one subscriber</li>
+ *   <li>Anything else: a 64-bit FNV-1a hash of the text</li>
+ * </ul>
+ */
+public final class ClientAddressKeys {
+
+    static final long IPV4_TAG = 0xFFFFFFFF00000000L;
+
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private ClientAddressKeys() {
+    }
+
+    /**
+     * Key for the first address of an {@code X-Forwarded-For} style list
+     * @param addresses Comma separated addresses, client first
+     * @return Key of the first address
+     */
+    public static long firstOf(String addresses) {
+        int comma = addresses.indexOf(',');
+        return of(addresses, 0, comma < 0 ? addresses.length() : comma);
+    }
+
+    public static long of(CharSequence address) {
+        return of(address, 0, address.length());
+    }
+
+    public static long of(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            return IPV4_TAG | readInt(bytes, 0) & 0xFFFFFFFFL;
+        }
+        return (long) readInt(bytes, 0) << 32 | readInt(bytes, 4) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @param address Text holding the address
+     * @param start Index of the first character
+     * @param end Index after the last character
+     * @return Key of the address in {@code address[start, end)}
+     */
+    public static long of(CharSequence address, int start, int end) {
+        while (start < end && address.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && address.charAt(end - 1) == ' ') {
+            end--;
+        }
+        // [v6-address]:port and zone ids (fe80::1%eth0)
+        if (start < end && address.charAt(start) == '[') {
+            int close = indexOf(address, ']', start, end);
+            if (close > start) {
+                start++;
+                end = close;
+            }
+        }
+        int zone = indexOf(address, '%', start, end);
+        if (zone >= 0) {
+            end = zone;
+        }
+
+        long ipv4 = parseIpv4(address, start, end);
+        if (ipv4 >= 0) {
+            return IPV4_TAG | ipv4;
+        }
+        if (indexOf(address, ':', start, end) >= 0) {
+            long key = parseIpv6(address, start, end);
+            if (key != INVALID) {
+                return key;
+            }
+        }
+        return Hashes.fnv1a(address, start, end);
+    }
+
+    // Dotted quad as an unsigned 32-bit value, -1 if malformed
+    private static long parseIpv4(CharSequence s, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int i = start;
+        while (i < end) {
+            int octet = 0;
+            int digits = 0;
+            while (i < end && s.charAt(i) != '.') {
+                char c = s.charAt(i++);
+                if (c < '0' || c > '9' || ++digits > 3) {
+                    return -1;
+                }
+                octet = octet * 10 + (c - '0');
+            }
+            if (digits == 0 || octet > 255 || ++octets > 4) {
+                return -1;
+            }
+            value = value << 8 | octet;
+            if (i < end && ++i == end) {
+                return -1; // trailing dot
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    /**
+     * First pass validates and counts the groups, second pass places them, expanding a "::" gap.
+     * Returns the /64 prefix, the IPv4 key for IPv4-mapped addresses, or {@link #INVALID}.
+     */
+    private static long parseIpv6(CharSequence s, int start, int end) {
+        int groups = 0;
+        int gapAt = -1;
+        int i = start;
+        if (end - start >= 2 && s.charAt(start) == ':' && s.charAt(start + 1) == ':') {
+            gapAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            int groupStart = i;
+            while (i < end && s.charAt(i) != ':') {
+                i++;
+            }
+            if (i == groupStart) {
+                return INVALID;
+            }
+            if (i == end && indexOf(s, '.', groupStart, end) >= 0) {
+                // Embedded IPv4 tail takes the last two groups
+                if (parseIpv4(s, groupStart, end) < 0) {
+                    return INVALID;
+                }
+                groups += 2;
+                break;
+            }
+            if (i - groupStart > 4 || parseHex(s, groupStart, i) < 0) {
+                return INVALID;
+            }
+            groups++;
+            if (i < end) {
+                i++;
+                if (i < end && s.charAt(i) == ':') {
+                    if (gapAt >= 0) {
+                        return INVALID;
+                    }
+                    gapAt = groups;
+                    i++;
+                } else if (i == end) {
+                    return INVALID;
+                }
+            }
+        }
+        if (gapAt < 0 ? groups != 8 : groups > 7) {
+            return INVALID;
+        }
+
+        long high = 0;
+        long low = 0;
+        int group = 0;
+        i = start;
+        while (i < end) {
+            if (s.charAt(i) == ':') {
+                i++;
+                continue;
+            }
+            int groupStart = i;
+            while (i < end && s.charAt(i) != ':') {
+                i++;
+            }
+            int index = gapAt >= 0 && group >= gapAt ? group + 8 - groups : group;
+            if (i == end && indexOf(s, '.', groupStart, end) >= 0) {
+                low |= parseIpv4(s, groupStart, end);
+                break;
+            }
+            long value = parseHex(s, groupStart, i);
+            if (index < 4) {
+                high |= value << (16 * (3 - index));
+            } else {
+                low |= value << (16 * (7 - index));
+            }
+            group++;
+        }
+
+        if (high == 0 && low >>> 32 == 0xFFFF) {
+            return IPV4_TAG | low & 0xFFFFFFFFL;
+        }
+        return high;
+    }
+
+    private static long parseHex(CharSequence s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(CharSequence s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+            | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+}
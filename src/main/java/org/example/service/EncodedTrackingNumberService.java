@@ -0,0 +1,98 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocation-free tracking number generator.
+ * Each thread keeps a primitive 64-bit state that is advanced and scrambled with a bijective
+ * mixing function, then written as hex into a reused buffer by {@link TrackingNumberEncoder}.
+ * Enabled with {@code app.tracking-number.engine=encoded}. With the {@link RouteCodec} route layout
+ * only the low 62 bits of the state are kept, so numbers are no longer a strict bijection of it.
+ */
+@Service
+@Qualifier(TrackingNumberService.ENGINE)
+@ConditionalOnProperty(name = "app.tracking-number.engine", havingValue = "encoded")
+public class EncodedTrackingNumberService implements TrackingNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncodedTrackingNumberService.class);
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Seeded once from the OS; new threads derive their state with a CAS, never a lock
+    private final AtomicLong seeder = new AtomicLong(new SecureRandom().nextLong());
+
+    private final ThreadLocal<GeneratorState> state = ThreadLocal.withInitial(this::newState);
+
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    // Present when app.tracking-number.format is route or checked
+    @Autowired(required = false)
+    private TrackingNumberLayout layout;
+
+    @Override
+    public String generateTrackingNumber(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId) {
+        long start = System.nanoTime();
+        boolean timePhases = generationMetrics.samplePhases(start);
+        try {
+            GeneratorState generator = state.get();
+            long value = generator.next();
+            long phaseStart = timePhases ? generationMetrics.recordPhase(GenerationMetrics.Phase.ENTROPY, start) : 0;
+            if (layout == null || !layout.encode(originCountryId, destinationCountryId, value, generator.buffer, 0)) {
+                TrackingNumberEncoder.encodeHex(value, generator.buffer, 0);
+            }
+            String trackingNumber = TrackingNumberEncoder.toString(generator.buffer, 0, TrackingNumberEncoder.LENGTH);
+            if (timePhases) {
+                generationMetrics.recordPhase(GenerationMetrics.Phase.ENCODING, phaseStart);
+            }
+
+            generationMetrics.recordGeneration(originCountryId, destinationCountryId, System.nanoTime() - start);
+            if (logger.isDebugEnabled()) {
+                logger.debug(LogEvents.GENERATION, "Generated tracking number {} for route: {} -> {}, weight: {}, customer: {}",
+                            trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+            }
+            return trackingNumber;
+        } catch (RuntimeException e) {
+            generationMetrics.recordError();
+            logger.error("Error generating tracking number", e);
+            throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
+        }
+    }
+
+    private GeneratorState newState() {
+        // Seed once per thread; an odd increment gives every thread a full-period sequence
+        long base = seeder.getAndAdd(2 * GOLDEN_GAMMA);
+        long seed = Hashes.mix(base);
+        long gamma = Hashes.mix(base + GOLDEN_GAMMA) | 1L;
+        return new GeneratorState(seed, gamma == 1L ? GOLDEN_GAMMA : gamma);
+    }
+
+    /**
+     * Mutable per-thread state: the running counter and the output buffer it is encoded into
+     */
+    private static final class GeneratorState {
+
+        private final byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+        private final long gamma;
+        private long seed;
+
+        private GeneratorState(long seed, long gamma) {
+            this.seed = seed;
+            this.gamma = gamma;
+        }
+
+        private long next() {
+            // A bijection, so distinct counter values never map to the same number
+            return Hashes.mix(seed += gamma);
+        }
+    }
+}
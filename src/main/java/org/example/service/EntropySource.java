@@ -0,0 +1,13 @@
+package org.example.service;
+
+/**
+ * Source of the random component mixed into every tracking number
+ */
+public interface EntropySource {
+
+    /**
+     * Draw the next random value. Implementations must be safe to call from any thread.
+     * @return Random 64-bit value
+     */
+    long nextLong();
+}
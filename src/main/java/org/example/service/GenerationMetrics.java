@@ -0,0 +1,464 @@
+package org.example.service;
+
+import org.HdrHistogram.Histogram;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Instrumentation of tracking number generation, cheap enough to run on every call.
+ * <p>
+ * Latencies are counted in HdrHistogram-style buckets kept per thread, so recording one is a plain
+ * write (striped buckets with virtual threads), and the buckets are merged into an HdrHistogram
+ * when the metrics are read: percentiles cover the calls since the previous read. Calls are
+ * counted per route in the same per-thread (or striped) array, after the latency buckets, so one
+ * lookup finds both. Each route reported separately has a slot there, found in a pre-sized array
+ * indexed by the two country codes with no tag lookup or map on the way; calls on other routes are
+ * rare and go to one shared array. Phase timings (entropy, hashing, encoding, serialization) need
+ * extra clock reads, so they are taken on a random sample of calls. Registered by {@code MetricsConfig},
+ * which exposes all of it through Micrometer.
+ */
+public class GenerationMetrics {
+
+    public enum Phase {
+        ENTROPY, HASHING, ENCODING, SERIALIZATION
+    }
+
+    // Country codes are two letters A-Z; the route slot is origin * CODES + destination
+    private static final int CODES = 26 * 26;
+    // Counts routes with any other country code
+    private static final int OTHER_ROUTE = CODES * CODES;
+
+    // Longer latencies, over a minute, are recorded as this value
+    private static final long HIGHEST_TRACKABLE_NANOS = (1L << 36) - 1;
+    private static final int BUCKETS = bucket(HIGHEST_TRACKABLE_NANOS) + 1;
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int UNTRACKED = -1;
+    // Reads within this time of the last merge, such as the meters of one scrape, share it
+    private static final long MIN_MERGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Latency buckets, then one counter per route reported separately
+    private final Counts generations;
+    private final LatencyWindow latency;
+    private final LatencyWindow[] phases = new LatencyWindow[Phase.values().length];
+    private final int phaseSampleRate;
+
+    // Counter slot plus one of each route reported separately, UNTRACKED for the others, 0 until first seen.
+    // Written once per route under the lock; a reader that still sees 0 takes the lock and finds the slot.
+    private final int[] routeSlots = new int[OTHER_ROUTE + 1];
+    // Routes not reported separately, beyond the route limit or with other country codes
+    private final AtomicLongArray untrackedRouteCounts = new AtomicLongArray(OTHER_ROUTE + 1);
+    private final int maxRoutes;
+    private int trackedRouteCount;
+    private final Set<Integer> trackedRoutes = ConcurrentHashMap.newKeySet();
+    private volatile BiConsumer<String, String> routeListener;
+
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param phaseSampleRate Time the phases of one call in this many, 0 to not time phases
+     * @param maxRoutes Routes reported separately at most, calls on further routes are reported together
+     * @param perThread Give every thread its own latency buckets, for a fixed pool of platform
+     *                  threads; otherwise threads share striped buckets, as a virtual thread per
+     *                  request needs
+     */
+    public GenerationMetrics(int phaseSampleRate, int maxRoutes, boolean perThread) {
+        if (phaseSampleRate < 0 || maxRoutes < 0) {
+            throw new IllegalArgumentException("Phase sample rate and route limit must not be negative");
+        }
+        this.phaseSampleRate = phaseSampleRate;
+        this.maxRoutes = maxRoutes;
+        int stripes = Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        this.generations = perThread ? new PerThreadCounts(BUCKETS + maxRoutes)
+                : new StripedCounts(BUCKETS + maxRoutes, stripes);
+        this.latency = new LatencyWindow(generations);
+        routeSlots[OTHER_ROUTE] = UNTRACKED;
+        // Sampled, so the phases see little contention
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyWindow(new StripedCounts(BUCKETS, 1));
+        }
+    }
+
+    /**
+     * @return Whether the caller should time the phases of this call
+     */
+    public boolean samplePhases() {
+        return phaseSampleRate != 0 && (phaseSampleRate == 1 || ThreadLocalRandom.current().nextInt(phaseSampleRate) == 0);
+    }
+
+    /**
+     * Same as {@link #samplePhases()}, but cheaper for a caller that has just read the clock: the
+     * reading is hashed instead of drawing a random number
+     *
+     * @param startNanos {@link System#nanoTime()} at the start of the call
+     */
+    public boolean samplePhases(long startNanos) {
+        // Fibonacci hashing spreads even a coarse clock over the high bits, mapped onto [0, rate)
+        long hash = (startNanos * 0x9E3779B97F4A7C15L) >>> 32;
+        return phaseSampleRate != 0 && (hash * phaseSampleRate) >>> 32 == 0;
+    }
+
+    /**
+     * Records a phase lasting from {@code startNanos} until now
+     *
+     * @return The current {@link System#nanoTime()}, the start of the next phase
+     */
+    public long recordPhase(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Records one generated tracking number
+     */
+    public void recordGeneration(String originCountryId, String destinationCountryId, long nanos) {
+        int route = route(originCountryId, destinationCountryId);
+        int slot = routeSlots[route];
+        if (slot == 0) {
+            slot = track(route);
+        }
+        if (slot != UNTRACKED) {
+            generations.increment(bucket(nanos), BUCKETS + slot - 1);
+        } else {
+            generations.increment(bucket(nanos));
+            untrackedRouteCounts.incrementAndGet(route);
+        }
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    // Only the first calls on a route get here
+    private int track(int route) {
+        int slot;
+        synchronized (routeSlots) {
+            slot = routeSlots[route];
+            if (slot != 0) {
+                return slot;
+            }
+            slot = trackedRouteCount < maxRoutes ? ++trackedRouteCount : UNTRACKED;
+            routeSlots[route] = slot;
+        }
+        if (slot != UNTRACKED) {
+            trackedRoutes.add(route);
+            BiConsumer<String, String> listener = routeListener;
+            if (listener != null) {
+                listener.accept(countryCode(route / CODES), countryCode(route % CODES));
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * @param routeListener Called with the origin and destination of each route reported separately,
+     * once for every route seen so far and then on the first call on a new route
+     */
+    public void setRouteListener(BiConsumer<String, String> routeListener) {
+        this.routeListener = routeListener;
+        for (int route : trackedRoutes) {
+            routeListener.accept(countryCode(route / CODES), countryCode(route % CODES));
+        }
+    }
+
+    public long getGeneratedCount(String originCountryId, String destinationCountryId) {
+        int route = route(originCountryId, destinationCountryId);
+        int slot;
+        synchronized (routeSlots) {
+            slot = routeSlots[route];
+        }
+        return slot > 0 ? generations.sum(BUCKETS + slot - 1) : untrackedRouteCounts.get(route);
+    }
+
+    /**
+     * @return Numbers generated on routes not reported separately
+     */
+    public long getUntrackedRouteCount() {
+        long total = 0;
+        for (int route = 0; route <= OTHER_ROUTE; route++) {
+            total += untrackedRouteCounts.get(route);
+        }
+        return total;
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getLatencyCount() {
+        return latency.count();
+    }
+
+    public double getLatencyTotalNanos() {
+        return latency.totalNanos();
+    }
+
+    /**
+     * @param percentile Percentile, 0 to 100, of the calls since the previous read
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        return latency.percentile(percentile);
+    }
+
+    /**
+     * @param percentile Percentile, 0 to 100, of the sampled calls since the previous read
+     */
+    public long getPhasePercentileNanos(Phase phase, double percentile) {
+        return phases[phase.ordinal()].percentile(percentile);
+    }
+
+    static int route(String originCountryId, String destinationCountryId) {
+        int origin = countryIndex(originCountryId);
+        int destination = countryIndex(destinationCountryId);
+        return origin < 0 || destination < 0 ? OTHER_ROUTE : origin * CODES + destination;
+    }
+
+    private static int countryIndex(String countryId) {
+        if (countryId == null || countryId.length() != 2) {
+            return -1;
+        }
+        int first = countryId.charAt(0) - 'A';
+        int second = countryId.charAt(1) - 'A';
+        return first >= 0 && first < 26 && second >= 0 && second < 26 ? first * 26 + second : -1;
+    }
+
+    private static String countryCode(int index) {
+        return new String(new char[] {(char) ('A' + index / 26), (char) ('A' + index % 26)});
+    }
+
+    // Log-linear buckets as in HdrHistogram: exact below 128 ns, then 64 per power of two (under 1.6% wide)
+    static int bucket(long nanos) {
+        if (nanos < 128) {
+            return nanos < 0 ? 0 : (int) nanos;
+        }
+        long value = Math.min(nanos, HIGHEST_TRACKABLE_NANOS);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return 128 + ((exponent - 7) << 6) + (int) ((value >>> (exponent - 6)) & 63);
+    }
+
+    // Middle of the bucket
+    static long bucketValue(int bucket) {
+        if (bucket < 128) {
+            return bucket;
+        }
+        int shift = ((bucket - 128) >> 6) + 1;
+        return ((64L + ((bucket - 128) & 63)) << shift) + (1L << shift >> 1);
+    }
+
+    /**
+     * Latency buckets recorded by many threads and merged on read. Counts only grow, so the calls
+     * since the previous read are the difference between two merges.
+     */
+    private static final class LatencyWindow {
+
+        private final Counts buckets;
+        private final long[] cumulative = new long[BUCKETS];
+        private final long[] previous = new long[BUCKETS];
+        private final Histogram interval = new Histogram(HIGHEST_TRACKABLE_NANOS, 2);
+        private long mergedAt = System.nanoTime() - MIN_MERGE_INTERVAL_NANOS;
+        private long count;
+        private double totalNanos;
+
+        private LatencyWindow(Counts buckets) {
+            this.buckets = buckets;
+        }
+
+        void record(long nanos) {
+            buckets.increment(bucket(nanos));
+        }
+
+        private synchronized void merge() {
+            long now = System.nanoTime();
+            if (now - mergedAt < MIN_MERGE_INTERVAL_NANOS) {
+                return;
+            }
+            mergedAt = now;
+            Arrays.fill(cumulative, 0);
+            buckets.collect(cumulative);
+            interval.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                long calls = cumulative[i] - previous[i];
+                if (calls > 0) {
+                    long nanos = bucketValue(i);
+                    interval.recordValueWithCount(nanos, calls);
+                    count += calls;
+                    totalNanos += (double) nanos * calls;
+                }
+            }
+            System.arraycopy(cumulative, 0, previous, 0, BUCKETS);
+        }
+
+        synchronized long count() {
+            merge();
+            return count;
+        }
+
+        synchronized double totalNanos() {
+            merge();
+            return totalNanos;
+        }
+
+        synchronized long percentile(double percentile) {
+            merge();
+            return interval.getTotalCount() == 0 ? 0 : interval.getValueAtPercentile(percentile);
+        }
+    }
+
+    /**
+     * Fixed number of counters incremented by many threads and summed on read
+     */
+    private abstract static class Counts {
+
+        final int width;
+
+        Counts(int width) {
+            this.width = width;
+        }
+
+        abstract void increment(int index);
+
+        /** Increments two counters, for the price of one lookup */
+        abstract void increment(int first, int second);
+
+        /**
+         * Adds the counts recorded so far to {@code counts}, for as many counters as it holds
+         */
+        abstract void collect(long[] counts);
+
+        abstract long sum(int index);
+    }
+
+    /**
+     * One array of counters per thread, written only by that thread, so incrementing takes no
+     * atomic instruction. Meant for a fixed pool of platform threads: the counters of a thread
+     * that has ended are folded into a shared array on the next read.
+     */
+    private static final class PerThreadCounts extends Counts {
+
+        private final ThreadLocal<long[]> counters = ThreadLocal.withInitial(this::register);
+        private final Map<Thread, long[]> threads = new ConcurrentHashMap<>();
+        private final long[] ended;
+
+        private PerThreadCounts(int width) {
+            super(width);
+            this.ended = new long[width];
+        }
+
+        private long[] register() {
+            long[] counts = new long[width];
+            threads.put(Thread.currentThread(), counts);
+            return counts;
+        }
+
+        @Override
+        void increment(int index) {
+            long[] counts = counters.get();
+            // Opaque, so a reading thread sees the whole count; no other thread writes it
+            COUNTS.setOpaque(counts, index, counts[index] + 1);
+        }
+
+        @Override
+        void increment(int first, int second) {
+            long[] counts = counters.get();
+            COUNTS.setOpaque(counts, first, counts[first] + 1);
+            COUNTS.setOpaque(counts, second, counts[second] + 1);
+        }
+
+        @Override
+        synchronized void collect(long[] counts) {
+            foldEnded();
+            for (long[] threadCounts : threads.values()) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += (long) COUNTS.getOpaque(threadCounts, i);
+                }
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += ended[i];
+            }
+        }
+
+        @Override
+        synchronized long sum(int index) {
+            foldEnded();
+            long total = ended[index];
+            for (long[] threadCounts : threads.values()) {
+                total += (long) COUNTS.getOpaque(threadCounts, index);
+            }
+            return total;
+        }
+
+        private void foldEnded() {
+            for (Iterator<Map.Entry<Thread, long[]>> it = threads.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Thread, long[]> thread = it.next();
+                // Once the thread is seen to have ended, all its writes are visible
+                if (!thread.getKey().isAlive()) {
+                    long[] threadCounts = thread.getValue();
+                    for (int i = 0; i < width; i++) {
+                        ended[i] += threadCounts[i];
+                    }
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Counters shared by the threads of each stripe, one atomic increment each. Used with virtual
+     * threads, where a thread per request would otherwise get its own counters.
+     */
+    private static final class StripedCounts extends Counts {
+
+        private final AtomicLongArray counters;
+        private final int stripeMask;
+
+        private StripedCounts(int width, int stripes) {
+            super(width);
+            this.counters = new AtomicLongArray(stripes * width);
+            this.stripeMask = stripes - 1;
+        }
+
+        @Override
+        void increment(int index) {
+            @SuppressWarnings("deprecation")
+            int stripe = (int) Thread.currentThread().getId() & stripeMask;
+            counters.incrementAndGet(stripe * width + index);
+        }
+
+        @Override
+        void increment(int first, int second) {
+            @SuppressWarnings("deprecation")
+            int stripe = (int) Thread.currentThread().getId() & stripeMask;
+            counters.incrementAndGet(stripe * width + first);
+            counters.incrementAndGet(stripe * width + second);
+        }
+
+        @Override
+        void collect(long[] counts) {
+            for (int stripe = 0; stripe < counters.length(); stripe += width) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += counters.get(stripe + i);
+                }
+            }
+        }
+
+        @Override
+        long sum(int index) {
+            long total = 0;
+            for (int i = index; i < counters.length(); i += width) {
+                total += counters.get(i);
+            }
+            return total;
+        }
+    }
+}
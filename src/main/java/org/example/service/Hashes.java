@@ -0,0 +1,43 @@
+package org.example.service;
+
+/**
+ * The two hash functions behind the long-keyed tables, subject keys and seeds in this package
+ */
+final class Hashes {
+
+    private Hashes() {
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer: every input bit affects every output bit, so both the top and
+     * the bottom bits of the result can pick a slot. It is a bijection, so it also turns a counter
+     * into distinct, well-spread values
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters; mix the result before using its low bits
+     */
+    static long fnv1a(CharSequence s) {
+        return fnv1a(s, 0, s.length());
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters in {@code s[start, end)}
+     */
+    static long fnv1a(CharSequence s, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the tracking number generated for each {@code Idempotency-Key}, so a client retrying
+ * a request within the window gets the same number back instead of a second one.
+ * <p>
+ * Keys are scoped by the authenticated principal and held in a {@link BoundedEvictingStore}, whose
+ * independently locked segments keep concurrent requests from contending on one lock. The first
+ * request for a key claims it and generates the number; duplicates arriving meanwhile wait for
+ * that result rather than generating their own, for at most the wait time, after which they fail
+ * with {@link IdempotencyKeyInProgressException}. A key reused with different parameters is
+ * rejected with {@link IdempotencyKeyReusedException}.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final BoundedEvictingStore<Claim> claims;
+    private final long windowNanos;
+    private final long waitMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries Keys remembered at most; the least recently used go first beyond that
+     * @param windowMillis How long a key returns the same number
+     * @param waitMillis How long a duplicate waits for the first request's number
+     */
+    public IdempotencyCache(@Value("${app.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${app.idempotency.window-ms:600000}") long windowMillis,
+                            @Value("${app.idempotency.wait-ms:5000}") long waitMillis) {
+        this.claims = new BoundedEvictingStore<>("idempotency-keys", maxEntries, windowMillis);
+        this.windowNanos = windowMillis * 1_000_000;
+        this.waitMillis = waitMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        claims.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        claims.stop();
+    }
+
+    /**
+     * Claim a key, or join the request that claimed it first
+     * @param principal Authenticated user the key belongs to
+     * @param idempotencyKey Client supplied key
+     * @param fingerprint Hash of the request parameters, see {@link #fingerprint}
+     * @return A claim to complete when {@link Claim#isOwner()}, otherwise one whose result to wait for
+     * @throws IdempotencyKeyReusedException if the key was used for a request with other parameters
+     */
+    public Claim claim(String principal, String idempotencyKey, long fingerprint) {
+        String scopedKey = principal + '\n' + idempotencyKey;
+        long key = Hashes.fnv1a(scopedKey);
+        long now = System.nanoTime();
+        while (true) {
+            Claim fresh = new Claim(scopedKey, fingerprint, now);
+            Claim claim = claims.computeIfAbsent(key, k -> fresh);
+            if (claim == fresh) {
+                misses.increment();
+                return claim;
+            }
+            if (!claim.scopedKey.equals(scopedKey)) {
+                // Two keys with the same 64-bit hash, too rare to be worth deduplicating
+                misses.increment();
+                return fresh;
+            }
+            if (now - claim.claimedAt >= windowNanos || claim.result.isCompletedExceptionally()) {
+                claims.remove(key);
+                continue;
+            }
+            if (claim.fingerprint != fingerprint) {
+                throw new IdempotencyKeyReusedException(idempotencyKey);
+            }
+            hits.increment();
+            return claim.asDuplicate(idempotencyKey, waitMillis);
+        }
+    }
+
+    public int size() {
+        return claims.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Hash of the parameters a tracking number is generated from
+     */
+    public static long fingerprint(String originCountryId, String destinationCountryId, double weight, String customerId) {
+        long hash = Hashes.fnv1a(originCountryId);
+        hash = hash * 31 + Hashes.fnv1a(destinationCountryId);
+        hash = hash * 31 + Double.hashCode(weight);
+        return hash * 31 + Hashes.fnv1a(customerId);
+    }
+
+    /**
+     * A request's hold on an idempotency key
+     */
+    public static final class Claim {
+        private final String scopedKey;
+        private final long fingerprint;
+        private final long claimedAt;
+        private final CompletableFuture<IdempotentResult> result;
+        private final boolean owner;
+
+        private Claim(String scopedKey, long fingerprint, long claimedAt) {
+            this(scopedKey, fingerprint, claimedAt, new CompletableFuture<>(), true);
+        }
+
+        private Claim(String scopedKey, long fingerprint, long claimedAt,
+                      CompletableFuture<IdempotentResult> result, boolean owner) {
+            this.scopedKey = scopedKey;
+            this.fingerprint = fingerprint;
+            this.claimedAt = claimedAt;
+            this.result = result;
+            this.owner = owner;
+        }
+
+        // A copy per duplicate, so giving up on the wait leaves the owner's result alone
+        private Claim asDuplicate(String idempotencyKey, long waitMillis) {
+            CompletableFuture<IdempotentResult> waiting = result.copy();
+            if (!waiting.isDone()) {
+                CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS).execute(
+                    () -> waiting.completeExceptionally(new IdempotencyKeyInProgressException(idempotencyKey)));
+            }
+            return new Claim(scopedKey, fingerprint, claimedAt, waiting, false);
+        }
+
+        /** True for the first request with the key, which has to generate the number */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * Result of the first request, completed once it generated its number. For a duplicate it
+         * fails with {@link IdempotencyKeyInProgressException} if that takes longer than the wait.
+         */
+        public CompletableFuture<IdempotentResult> result() {
+            return result;
+        }
+
+        /** Publish the generated number to duplicates of this request */
+        public void complete(String trackingNumber, String createdAt) {
+            result.complete(new IdempotentResult(trackingNumber, createdAt));
+        }
+
+        /** Give the key up after a failed generation, so a retry generates again */
+        public void abandon(Throwable cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * @param trackingNumber Number generated for the key
+     * @param createdAt {@code created_at} of the original response
+     */
+    public record IdempotentResult(String trackingNumber, String createdAt) {
+    }
+}
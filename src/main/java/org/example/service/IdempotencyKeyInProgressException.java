@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * Exception thrown when a request waited too long for the first request with its idempotency key
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String idempotencyKey) {
+        super("Timed out waiting for the first request with idempotency key: " + idempotencyKey);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * Exception thrown when an idempotency key is sent again with different request parameters
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key was already used for a different request: " + idempotencyKey);
+    }
+}
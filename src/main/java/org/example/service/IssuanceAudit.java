@@ -0,0 +1,36 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record of every tracking number handed out, kept apart from diagnostic logging.
+ * <p>
+ * Entries go to the {@value #LOGGER_NAME} logger, which the {@code json-logs} profile routes to its
+ * own file through an appender that never drops records and encodes the arguments as fields, so
+ * the message pattern below is never formatted. The logger is off otherwise.
+ */
+public final class IssuanceAudit {
+
+    public static final String LOGGER_NAME = "audit.issuance";
+
+    private static final Logger audit = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private IssuanceAudit() {
+    }
+
+    /**
+     * @return Whether entries are written, so that writing one may wait for the audit appender
+     */
+    public static boolean isEnabled() {
+        return audit.isInfoEnabled();
+    }
+
+    public static void issued(String trackingNumber, String originCountryId, String destinationCountryId,
+                              double weight, String customerId) {
+        if (audit.isInfoEnabled()) {
+            audit.info("Issued {} for route: {} -> {}, weight: {}, customer: {}",
+                       trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.service;
+
+import java.time.Instant;
+
+/**
+ * An issued tracking number as recorded in the {@link IssuedNumberLog}
+ * @param number Numeric key of the tracking number, see {@link IssuedNumberRegistry#numberKey}
+ * @param createdAt When the number was issued
+ * @param originCountryId Origin country code in ISO 3166-1 alpha-2 format
+ * @param destinationCountryId Destination country code in ISO 3166-1 alpha-2 format
+ * @param weight Package weight in kilograms
+ * @param customerId Customer UUID
+ */
+public record IssuedNumber(long number, Instant createdAt, String originCountryId,
+                           String destinationCountryId, double weight, String customerId) {
+}
@@ -0,0 +1,139 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Off-heap map from issued number to its position in the {@link IssuedNumberLog}.
+ * <p>
+ * A memory-mapped open-addressing table of 16-byte slots (number, position + 1), probed
+ * linearly. A slot is claimed with a CAS on its position word and the number is written after it,
+ * so readers confirm a hit against the log record rather than trusting the number alone. The
+ * table lives in a file in page cache rather than on the heap, and is rebuilt from the log on
+ * every start, which is a single sequential scan.
+ */
+public class IssuedNumberIndex implements AutoCloseable {
+
+    private static final int SLOT_SIZE = 16;
+
+    // Slots per mapped chunk, each chunk 1 GB so a table is not limited to one 2 GB mapping
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    // Fill level past which inserts are refused, probe sequences grow quickly beyond it
+    private static final double MAX_LOAD = 0.75;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Path file;
+    private final MappedByteBuffer[] chunks;
+    private final long slotMask;
+    private final long maxEntries;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param file Index file, replaced on open
+     * @param capacity Entries the table must hold; the slot count is the next power of two above capacity / 0.75
+     */
+    public IssuedNumberIndex(Path file, long capacity) {
+        long slots = Long.highestOneBit(Math.max(16, (long) (capacity / MAX_LOAD)) - 1) << 1;
+        this.file = file;
+        this.slotMask = slots - 1;
+        this.maxEntries = (long) (slots * MAX_LOAD);
+        this.chunks = new MappedByteBuffer[(int) ((slots + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        try {
+            Files.deleteIfExists(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < chunks.length; i++) {
+                    long chunkSlots = Math.min(slots - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                            ((long) i << CHUNK_SHIFT) * SLOT_SIZE, chunkSlots * SLOT_SIZE);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create issued number index " + file, e);
+        }
+    }
+
+    /**
+     * Add a number. Callers must not add the same number twice.
+     * @return false if the table is full and the number was not indexed
+     */
+    public boolean put(long number, long position) {
+        if (size.get() >= maxEntries) {
+            return false;
+        }
+        for (long slot = Hashes.mix(number) & slotMask; ; slot = (slot + 1) & slotMask) {
+            MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int offset = (int) (slot & CHUNK_MASK) * SLOT_SIZE;
+            if ((long) LONGS.getVolatile(chunk, offset + 8) == 0
+                    && LONGS.compareAndSet(chunk, offset + 8, 0L, position + 1)) {
+                LONGS.setRelease(chunk, offset, number);
+                size.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param number Number to find
+     * @param isRecordOf Confirms that the log record at a position holds the number
+     * @return Position of the number in the log, -1 if it is not indexed
+     */
+    public long get(long number, LongPredicate isRecordOf) {
+        for (long slot = Hashes.mix(number) & slotMask; ; slot = (slot + 1) & slotMask) {
+            MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int offset = (int) (slot & CHUNK_MASK) * SLOT_SIZE;
+            long stored = (long) LONGS.getVolatile(chunk, offset + 8);
+            if (stored == 0) {
+                return -1;
+            }
+            if ((long) LONGS.getAcquire(chunk, offset) == number && isRecordOf.test(stored - 1)) {
+                return stored - 1;
+            }
+        }
+    }
+
+    /**
+     * Put every entry of this table into another one; neither may change meanwhile
+     */
+    public void copyTo(IssuedNumberIndex other) {
+        for (long slot = 0; slot <= slotMask; slot++) {
+            MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int offset = (int) (slot & CHUNK_MASK) * SLOT_SIZE;
+            long stored = (long) LONGS.getVolatile(chunk, offset + 8);
+            if (stored != 0 && !other.put((long) LONGS.getAcquire(chunk, offset), stored - 1)) {
+                throw new IllegalArgumentException("Index of " + other.maxEntries + " entries cannot hold " + size.get());
+            }
+        }
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public long getCapacity() {
+        return maxEntries;
+    }
+
+    @Override
+    public void close() {
+        // Derived data, rebuilt on the next start
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete issued number index " + file, e);
+        }
+    }
+}
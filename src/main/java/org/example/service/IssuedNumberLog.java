@@ -0,0 +1,298 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of issued tracking numbers, kept in fixed-size memory-mapped segment files.
+ * <p>
+ * Each record is {@value #RECORD_SIZE} bytes: number, issue time, customer UUID, weight, origin and
+ * destination country, and a CRC32C of the rest. Appending copies the record into the mapped
+ * segment under a short lock; nothing is written to disk on the request thread. {@link #flush()}
+ * forces written records to disk and is meant to be called periodically, so one fsync commits
+ * every record appended since the previous one.
+ * <p>
+ * Mapped pages survive a crash of the process; only an OS crash or power loss can drop records
+ * appended since the last flush. On startup, the segments are read back and the log continues
+ * after the last record with a valid checksum.
+ */
+public class IssuedNumberLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuedNumberLog.class);
+
+    public static final int RECORD_SIZE = 48;
+
+    private static final String SEGMENT_PREFIX = "issued-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int NUMBER_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int CUSTOMER_HIGH_OFFSET = 16;
+    private static final int CUSTOMER_LOW_OFFSET = 24;
+    private static final int WEIGHT_OFFSET = 32;
+    private static final int ORIGIN_OFFSET = 40;
+    private static final int DESTINATION_OFFSET = 42;
+    private static final int CRC_OFFSET = 44;
+
+    /** Receives records read back from disk */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param recordIndex Position of the record in the whole log
+         * @param number Issued number key
+         */
+        void visit(long recordIndex, long number);
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    // Only added to when a segment fills up, readers look records up without the append lock
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    private MappedByteBuffer current;
+    private int currentSlot;
+    // Records appended and records known to be on disk
+    private volatile long appended;
+    private volatile long flushed;
+
+    /**
+     * @param directory Directory holding the segment files, created if missing
+     * @param segmentBytes Size of one segment file, rounded down to whole records
+     */
+    public IssuedNumberLog(Path directory, long segmentBytes) {
+        if (segmentBytes < RECORD_SIZE || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + RECORD_SIZE + " bytes and 2 GB: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) (segmentBytes / RECORD_SIZE);
+    }
+
+    /**
+     * Map the existing segments and pass every valid record to the visitor, then position the
+     * log for appending after the last one
+     */
+    public void open(Visitor visitor) {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .toList();
+            }
+            byte[] record = new byte[RECORD_SIZE];
+            long recovered = 0;
+            for (int segment = 0; segment < files.size(); segment++) {
+                MappedByteBuffer buffer = map(files.get(segment));
+                segments.add(buffer);
+                current = buffer;
+                currentSlot = 0;
+                for (int slot = 0; slot < recordsPerSegment; slot++) {
+                    buffer.get(slot * RECORD_SIZE, record);
+                    // Records are appended in order, so the first invalid one is the end of the log
+                    if (!isValid(record)) {
+                        break;
+                    }
+                    visitor.visit((long) segment * recordsPerSegment + slot, readLong(record, NUMBER_OFFSET));
+                    currentSlot = slot + 1;
+                    recovered++;
+                }
+            }
+            if (current == null) {
+                current = map(segmentPath(0));
+                segments.add(current);
+            }
+            appended = (long) (segments.size() - 1) * recordsPerSegment + currentSlot;
+            flushed = appended;
+            logger.info("Issued number log opened in {} with {} records in {} segments",
+                        directory, recovered, segments.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open issued number log in " + directory, e);
+        }
+    }
+
+    /**
+     * Append a record to the log. It reaches the disk on the next {@link #flush()}.
+     * @return Position of the record in the whole log
+     */
+    public long append(long number, long timestampMillis, long customerHigh, long customerLow,
+                       double weight, String originCountryId, String destinationCountryId) {
+        appendLock.lock();
+        try {
+            if (currentSlot == recordsPerSegment) {
+                rollSegment();
+            }
+            writeLong(scratch, NUMBER_OFFSET, number);
+            writeLong(scratch, TIMESTAMP_OFFSET, timestampMillis);
+            writeLong(scratch, CUSTOMER_HIGH_OFFSET, customerHigh);
+            writeLong(scratch, CUSTOMER_LOW_OFFSET, customerLow);
+            writeLong(scratch, WEIGHT_OFFSET, Double.doubleToRawLongBits(weight));
+            writeCountry(scratch, ORIGIN_OFFSET, originCountryId);
+            writeCountry(scratch, DESTINATION_OFFSET, destinationCountryId);
+            crc.reset();
+            crc.update(scratch, 0, CRC_OFFSET);
+            writeInt(scratch, CRC_OFFSET, (int) crc.getValue());
+            current.put(currentSlot * RECORD_SIZE, scratch);
+            currentSlot++;
+            return appended++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Force every record appended so far to disk. Cheap when nothing was appended since the last call.
+     */
+    public void flush() {
+        long target = appended;
+        if (target == flushed) {
+            return;
+        }
+        MappedByteBuffer buffer;
+        appendLock.lock();
+        try {
+            buffer = current;
+        } finally {
+            appendLock.unlock();
+        }
+        // Earlier segments were forced when they filled up
+        buffer.force();
+        flushed = target;
+    }
+
+    /**
+     * Read a record back
+     * @param recordIndex Position returned by {@link #append}
+     * @return The record, or null if there is no valid record at that position
+     */
+    public IssuedNumber read(long recordIndex) {
+        if (recordIndex < 0 || recordIndex >= appended) {
+            return null;
+        }
+        byte[] record = new byte[RECORD_SIZE];
+        segments.get((int) (recordIndex / recordsPerSegment))
+                .get((int) (recordIndex % recordsPerSegment) * RECORD_SIZE, record);
+        CRC32C check = new CRC32C();
+        check.update(record, 0, CRC_OFFSET);
+        if ((int) check.getValue() != readInt(record, CRC_OFFSET)) {
+            return null;
+        }
+        return new IssuedNumber(
+            readLong(record, NUMBER_OFFSET),
+            Instant.ofEpochMilli(readLong(record, TIMESTAMP_OFFSET)),
+            new String(record, ORIGIN_OFFSET, 2, StandardCharsets.US_ASCII),
+            new String(record, DESTINATION_OFFSET, 2, StandardCharsets.US_ASCII),
+            Double.longBitsToDouble(readLong(record, WEIGHT_OFFSET)),
+            new UUID(readLong(record, CUSTOMER_HIGH_OFFSET), readLong(record, CUSTOMER_LOW_OFFSET)).toString());
+    }
+
+    /**
+     * @return true if the record at the position holds the number
+     */
+    public boolean isNumberAt(long recordIndex, long number) {
+        if (recordIndex < 0 || recordIndex >= appended) {
+            return false;
+        }
+        return segments.get((int) (recordIndex / recordsPerSegment))
+                .getLong((int) (recordIndex % recordsPerSegment) * RECORD_SIZE + NUMBER_OFFSET) == number;
+    }
+
+    public long getRecordCount() {
+        return appended;
+    }
+
+    /** Records appended but not yet forced to disk */
+    public long getUnflushedCount() {
+        return appended - flushed;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    // Called with the append lock held
+    private void rollSegment() {
+        current.force();
+        try {
+            current = map(segmentPath(segments.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create issued number log segment", e);
+        }
+        segments.add(current);
+        currentSlot = 0;
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private boolean isValid(byte[] record) {
+        crc.reset();
+        crc.update(record, 0, CRC_OFFSET);
+        return (int) crc.getValue() == readInt(record, CRC_OFFSET);
+    }
+
+    private static void writeCountry(byte[] dst, int offset, String countryId) {
+        dst[offset] = (byte) countryId.charAt(0);
+        dst[offset + 1] = (byte) countryId.charAt(1);
+    }
+
+    private static void writeLong(byte[] dst, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            dst[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static void writeInt(byte[] dst, int offset, int value) {
+        for (int i = 3; i >= 0; i--) {
+            dst[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] src, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (src[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] src, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (src[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
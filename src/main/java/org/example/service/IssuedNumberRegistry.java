@@ -0,0 +1,364 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Record of every tracking number this instance issued, used to catch collisions before a number
+ * reaches a client.
+ * <p>
+ * Numbers are checked against a Bloom filter held in memory and, when new, appended to an
+ * {@link IssuedNumberLog}. A background thread flushes the log every
+ * {@code app.registry.flush-interval-ms}, so a single fsync commits a whole group of numbers.
+ * Issued numbers can be looked up through an off-heap {@link IssuedNumberIndex}, and a filter hit
+ * is confirmed against it before the number counts as a collision, so a false positive only costs
+ * one index probe. The filter is sized once for {@code app.registry.expected-numbers} and its false
+ * positive rate climbs past that, which is logged and shown by
+ * {@code tracking_number_registry_filter_load}. The flush thread doubles the index once it is two
+ * thirds full, so requests only wait on the copy, rather than make it, and only fill it themselves
+ * when that falls behind, which is logged. The filter and the index are rebuilt from the log on
+ * startup. Enabled with {@code app.registry.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.registry.enabled", havingValue = "true")
+public class IssuedNumberRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuedNumberRegistry.class);
+
+    // Makes check-and-add atomic per number without one global lock
+    private static final int LOCK_STRIPES = 64;
+
+    // Share of the index capacity at which the flush thread grows it ahead of the requests
+    private static final double GROW_AHEAD_LOAD = 2.0 / 3;
+
+    private final Path directory;
+    private final IssuedNumberLog log;
+    private final long expectedNumbers;
+    // Puts and gets share the read lock, growing the index takes the write lock
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private volatile IssuedNumberIndex index;
+    private int indexGeneration;
+    private final AtomicLongArray bits;
+    private final long bitMask;
+    private final int hashCount;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final long flushIntervalNanos;
+
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder backgroundIndexGrowths = new LongAdder();
+    private final LongAdder requestIndexGrowths = new LongAdder();
+
+    private volatile boolean running;
+    private Thread flushThread;
+
+    /**
+     * @param directory Directory of the log segments
+     * @param segmentSizeMb Size of one log segment
+     * @param flushIntervalMillis Longest time an appended number waits to be forced to disk
+     * @param expectedNumbers Numbers the filter and the initial index are sized for; the filter's false
+     *                        positive rate rises beyond that
+     * @param falsePositiveRate Chance that a new number is mistaken for an issued one at the expected size
+     */
+    public IssuedNumberRegistry(@Value("${app.registry.directory:./data/registry}") String directory,
+                                @Value("${app.registry.segment-size-mb:64}") int segmentSizeMb,
+                                @Value("${app.registry.flush-interval-ms:10}") long flushIntervalMillis,
+                                @Value("${app.registry.expected-numbers:10000000}") long expectedNumbers,
+                                @Value("${app.registry.false-positive-rate:0.001}") double falsePositiveRate) {
+        if (expectedNumbers < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Registry needs positive expected numbers and a false positive rate below 1");
+        }
+        this.directory = Path.of(directory);
+        this.log = new IssuedNumberLog(this.directory, (long) segmentSizeMb << 20);
+        this.expectedNumbers = expectedNumbers;
+        this.index = new IssuedNumberIndex(this.directory.resolve("issued.idx"), expectedNumbers);
+        double optimalBits = -expectedNumbers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long size = Long.highestOneBit(Math.max(64, (long) optimalBits) - 1) << 1;
+        this.bits = new AtomicLongArray((int) Math.min(size >>> 6, 1L << 30));
+        this.bitMask = ((long) bits.length() << 6) - 1;
+        this.hashCount = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / Math.log(2)));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        log.open((recordIndex, number) -> {
+            add(number);
+            addToIndex(number, recordIndex);
+        });
+        running = true;
+        flushThread = new Thread(this::flushLoop, "issued-number-registry-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        logger.info("Issued number registry started with {} numbers, {} MB filter and {} hashes",
+                    log.getRecordCount(), bits.length() >>> 17, hashCount);
+        if (log.getRecordCount() > expectedNumbers) {
+            warnFilterOverfull();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flushThread != null) {
+            LockSupport.unpark(flushThread);
+        }
+        log.close();
+        // Not while the flush thread is copying into a new index
+        indexLock.writeLock().lock();
+        try {
+            index.close();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record a freshly generated number unless it may have been issued before
+     * @return true if the number is new and was recorded, false if it has to be replaced
+     */
+    public boolean register(String trackingNumber, String originCountryId, String destinationCountryId,
+                            double weight, String customerId) {
+        long number = numberKey(trackingNumber);
+        ReentrantLock lock = locks[(int) Hashes.mix(number) & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            if (!add(number)) {
+                // The filter only says maybe; the index knows
+                if (indexPosition(number) >= 0) {
+                    collisions.increment();
+                    return false;
+                }
+                falsePositives.increment();
+            }
+            long position = log.append(number, System.currentTimeMillis(), uuidHigh(customerId), uuidLow(customerId),
+                                       weight, originCountryId, destinationCountryId);
+            addToIndex(number, position);
+            if (position == expectedNumbers) {
+                warnFilterOverfull();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the number was certainly not issued by this registry
+     */
+    public boolean mightContain(String trackingNumber) {
+        long hash = Hashes.mix(numberKey(trackingNumber));
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash + i * step) & bitMask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look up an issued number
+     * @return The recorded issue, or null if the number was not issued or is not indexed
+     */
+    public IssuedNumber lookup(String trackingNumber) {
+        if (!mightContain(trackingNumber)) {
+            return null;
+        }
+        long position = indexPosition(numberKey(trackingNumber));
+        return position < 0 ? null : log.read(position);
+    }
+
+    public long getIssuedCount() {
+        return log.getRecordCount();
+    }
+
+    public long getCollisionCount() {
+        return collisions.sum();
+    }
+
+    /** Filter hits the index showed to be new numbers */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    /** Times the flush thread grew the index ahead of the requests */
+    public long getBackgroundIndexGrowthCount() {
+        return backgroundIndexGrowths.sum();
+    }
+
+    /** Times a request found the index full and grew it itself, stalling every registration meanwhile */
+    public long getRequestIndexGrowthCount() {
+        return requestIndexGrowths.sum();
+    }
+
+    /**
+     * @return Issued numbers per number the filter was sized for; past 1 its false positive rate
+     *         climbs quickly, and every false positive costs an index probe
+     */
+    public double getFilterLoad() {
+        return (double) log.getRecordCount() / expectedNumbers;
+    }
+
+    /**
+     * Numeric key of a tracking number: the value of 16 upper-case hex digits, else a hash. Only
+     * the spelling the engines issue gets the value, so a lower-case or non-ASCII spelling of an
+     * issued number does not find its record.
+     */
+    public static long numberKey(String trackingNumber) {
+        if (trackingNumber.length() == TrackingNumberEncoder.LENGTH) {
+            long value = 0;
+            for (int i = 0; i < TrackingNumberEncoder.LENGTH; i++) {
+                char c = trackingNumber.charAt(i);
+                int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'A' && c <= 'F' ? c - 'A' + 10 : -1;
+                if (digit < 0) {
+                    return Hashes.fnv1a(trackingNumber);
+                }
+                value = value << 4 | digit;
+            }
+            return value;
+        }
+        return Hashes.fnv1a(trackingNumber);
+    }
+
+    // Sets the number's bits, true if any of them was clear, i.e. the number is certainly new
+    private boolean add(long number) {
+        long hash = Hashes.mix(number);
+        long step = (hash >>> 32) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash + i * step) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long value = bits.get(word);
+            while ((value & mask) == 0) {
+                if (bits.compareAndSet(word, value, value | mask)) {
+                    added = true;
+                    break;
+                }
+                value = bits.get(word);
+            }
+        }
+        return added;
+    }
+
+    // Position of the number in the log, -1 if it was not issued
+    private long indexPosition(long number) {
+        indexLock.readLock().lock();
+        try {
+            return index.get(number, recordIndex -> log.isNumberAt(recordIndex, number));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private void addToIndex(long number, long position) {
+        indexLock.readLock().lock();
+        try {
+            if (index.put(number, position)) {
+                return;
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        indexLock.writeLock().lock();
+        try {
+            while (!index.put(number, position)) {
+                long started = System.nanoTime();
+                growIndex();
+                // Growing while the log is replayed on startup holds up no request
+                if (running) {
+                    requestIndexGrowths.increment();
+                    logger.warn("Issued number index filled up before the flush thread grew it; registrations "
+                                + "stalled for {} ms while it doubled, raise app.registry.expected-numbers",
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                }
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void growIndexAhead() {
+        if (index.size() < index.getCapacity() * GROW_AHEAD_LOAD) {
+            return;
+        }
+        indexLock.writeLock().lock();
+        try {
+            if (running && index.size() >= index.getCapacity() * GROW_AHEAD_LOAD) {
+                growIndex();
+                backgroundIndexGrowths.increment();
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held: copy every entry into a table twice the size
+    private void growIndex() {
+        IssuedNumberIndex full = index;
+        long capacity = full.getCapacity() * 2;
+        IssuedNumberIndex grown = new IssuedNumberIndex(directory.resolve("issued-" + ++indexGeneration + ".idx"), capacity);
+        full.copyTo(grown);
+        index = grown;
+        full.close();
+        logger.info("Issued number index grew to {} numbers", capacity);
+    }
+
+    private void warnFilterOverfull() {
+        logger.warn("Issued number registry holds {} numbers, more than the {} its filter was sized for; "
+                    + "collisions are still exact but each false positive costs an index probe, "
+                    + "raise app.registry.expected-numbers", log.getRecordCount(), expectedNumbers);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            try {
+                log.flush();
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush issued number log", e);
+            }
+            try {
+                growIndexAhead();
+            } catch (RuntimeException e) {
+                logger.error("Failed to grow issued number index", e);
+            }
+        }
+    }
+
+    // Customer ids are validated as 8-4-4-4-12 lower-case hex before they get here; anything else is stored as zero
+    private static long uuidHigh(String uuid) {
+        return uuid.length() == 36 ? hexBits(uuid, 0, 8) << 32 | hexBits(uuid, 9, 13) << 16 | hexBits(uuid, 14, 18) : 0;
+    }
+
+    private static long uuidLow(String uuid) {
+        return uuid.length() == 36 ? hexBits(uuid, 19, 23) << 48 | hexBits(uuid, 24, 36) : 0;
+    }
+
+    private static long hexBits(String s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            value = value << 4 | (c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : 0);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.service;
+
+import io.github.bucket4j.Bucket;
+
+/**
+ * Rate limiter backed by in-memory Bucket4j buckets, so each instance enforces the limit on its own
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final BoundedEvictingStore<Bucket> buckets;
+
+    /**
+     * @param buckets Store holding one bucket per key
+     */
+    public LocalRateLimiter(BoundedEvictingStore<Bucket> buckets) {
+        this.buckets = buckets;
+    }
+
+    @Override
+    public boolean tryConsume(long key, Quota quota, long tokens) {
+        return buckets.computeIfAbsent(key, quota.getBucketFactory()).tryConsume(tokens);
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.service;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Markers naming high-volume event types, so logging configuration can sample them by type
+ */
+public final class LogEvents {
+
+    /** Per-number diagnostic events on the generation path */
+    public static final Marker GENERATION = MarkerFactory.getMarker("GENERATION");
+
+    /** Requests rejected by the rate limiter */
+    public static final Marker RATE_LIMITED = MarkerFactory.getMarker("RATE_LIMITED");
+
+    private LogEvents() {
+    }
+}
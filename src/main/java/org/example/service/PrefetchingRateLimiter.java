@@ -0,0 +1,168 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Rate limiter shared by all replicas through a Redis-compatible store.
+ * <p>
+ * Every request first passes the {@code local} limiter, which applies all of the quota's limits
+ * per replica. The quota's sustained (longest period) limit is then enforced across replicas as a
+ * fixed window of that period in the shared store.
+ * <p>
+ * Rather than making a round trip per request, a replica claims a slice of {@code prefetch} tokens
+ * with one {@code INCRBY} and serves later requests from that local lease. Claims never exceed
+ * what is left in the window, so replicas together never grant more than the limit. Tokens still
+ * leased when a window closes are lost, which can only make the limit stricter. Windows follow
+ * wall-clock time, so replica clocks should be in sync.
+ * <p>
+ * If the store cannot be reached, the local limiter alone decides, and the store is retried a
+ * second later.
+ */
+public class PrefetchingRateLimiter implements RateLimiter, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingRateLimiter.class);
+
+    private static final String KEY_PREFIX = "tracking-number:rate-limit:";
+
+    // How long to limit locally after the store failed, before trying it again
+    private static final long RETRY_AFTER_FAILURE_MILLIS = 1_000;
+
+    private static final LongFunction<Lease> LEASE_FACTORY = key -> new Lease();
+
+    private final RespClient client;
+    private final long prefetch;
+    private final RateLimiter local;
+    private final BoundedEvictingStore<Lease> leases;
+
+    private volatile long unavailableUntil;
+
+    /**
+     * @param client Connection to the shared store
+     * @param prefetch Tokens claimed from the store per round trip
+     * @param local Per-replica limiter, also the only one while the store is unreachable
+     * @param leases Holds this replica's lease per bucket key
+     */
+    public PrefetchingRateLimiter(RespClient client, int prefetch,
+                                  RateLimiter local, BoundedEvictingStore<Lease> leases) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be at least 1: " + prefetch);
+        }
+        this.client = client;
+        this.prefetch = prefetch;
+        this.local = local;
+        this.leases = leases;
+    }
+
+    @Override
+    public boolean tryConsume(long key, Quota quota, long tokens) {
+        if (tokens > quota.getSustainedCapacity() || !local.tryConsume(key, quota, tokens)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now < unavailableUntil) {
+            return true;
+        }
+        long window = now / quota.getSustainedPeriod().toMillis();
+        Lease lease = leases.computeIfAbsent(key, LEASE_FACTORY);
+        while (true) {
+            Slice slice = lease.slice;
+            if (slice.window == window) {
+                long remaining = slice.remaining.get();
+                if (remaining >= tokens) {
+                    if (slice.remaining.compareAndSet(remaining, remaining - tokens)) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (slice.windowExhausted) {
+                    return false;
+                }
+            }
+
+            try {
+                lease.refill(slice, window, tokens, key, quota, this);
+            } catch (IOException e) {
+                logger.warn("Shared rate limit store unavailable, limiting locally: {}", e.getMessage());
+                unavailableUntil = System.currentTimeMillis() + RETRY_AFTER_FAILURE_MILLIS;
+                return true;
+            }
+        }
+    }
+
+    // Most calls are served from the lease, but a refill is a blocking round trip
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+
+    /**
+     * Claim up to {@code wanted} tokens of the bucket's window in the shared store
+     * @return Tokens granted, less than wanted once the window runs out
+     */
+    private long claim(long key, Quota quota, long window, long wanted) throws IOException {
+        String storeKey = KEY_PREFIX + Long.toHexString(key) + ':' + window;
+        // Keep the counter a little past the end of its window to absorb clock skew
+        long total = client.incrementAndExpire(storeKey, wanted, 2 * quota.getSustainedPeriod().toMillis());
+        long before = total - wanted;
+        return Math.max(0, Math.min(wanted, quota.getSustainedCapacity() - before));
+    }
+
+    @Override
+    public void close() {
+        leases.stop();
+        client.close();
+    }
+
+    /**
+     * This replica's tokens for one client. The current slice is replaced rather than reset when
+     * its window closes, so lock-free consumers never see a half-reset state.
+     */
+    public static final class Lease {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Slice slice = new Slice(-1, false);
+
+        // Claim more tokens unless another thread already replaced the slice
+        private void refill(Slice seen, long window, long tokens, long key, Quota quota,
+                            PrefetchingRateLimiter limiter) throws IOException {
+            lock.lock();
+            try {
+                Slice current = slice;
+                if (current != seen) {
+                    return;
+                }
+                long remaining = current.window == window ? current.remaining.get() : 0;
+                long wanted = Math.max(tokens - remaining, Math.min(limiter.prefetch, quota.getSustainedCapacity()));
+                long granted = limiter.claim(key, quota, window, wanted);
+
+                Slice next = new Slice(window, granted < wanted);
+                next.remaining.set(remaining + granted);
+                if (current.window == window) {
+                    // Consumers may still be taking from the old slice, move over what they leave
+                    long leftover = current.remaining.getAndSet(0);
+                    next.remaining.addAndGet(leftover - remaining);
+                }
+                slice = next;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Slice {
+        private final long window;
+        private final AtomicLong remaining = new AtomicLong();
+        // The shared store had fewer tokens left than requested, so further claims this window would fail
+        private final boolean windowExhausted;
+
+        private Slice(long window, boolean windowExhausted) {
+            this.window = window;
+            this.windowExhausted = windowExhausted;
+        }
+    }
+}
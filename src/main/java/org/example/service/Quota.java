@@ -0,0 +1,107 @@
+package org.example.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.function.LongFunction;
+
+/**
+ * One or more token limits applied together, e.g. a short burst limit and a sustained limit.
+ * All limits are checked in a single {@link Bucket#tryConsume} call. Parsed once at startup from
+ * a spec such as {@code 20/1s,1000/1m}.
+ */
+public final class Quota {
+
+    private final int id;
+    private final String name;
+    private final long[] capacities;
+    private final Duration[] periods;
+    private final int sustainedIndex;
+    private final long maxConsumption;
+    private final LongFunction<Bucket> bucketFactory;
+
+    /**
+     * @param id Distinguishes buckets of different quotas for the same client
+     * @param name Shown in logs, e.g. {@code gold/batch}
+     * @param spec Comma separated {@code capacity/period} limits, periods as in {@code 500ms}, {@code 1s}, {@code 1m}
+     */
+    public Quota(int id, String name, String spec) {
+        String[] limits = spec.split(",");
+        this.id = id;
+        this.name = name;
+        this.capacities = new long[limits.length];
+        this.periods = new Duration[limits.length];
+        int longest = 0;
+        long smallest = Long.MAX_VALUE;
+        for (int i = 0; i < limits.length; i++) {
+            String limit = limits[i].trim();
+            int slash = limit.indexOf('/');
+            if (slash < 0) {
+                throw new IllegalArgumentException("Quota " + name + " limit must be capacity/period: " + limit);
+            }
+            capacities[i] = Long.parseLong(limit.substring(0, slash).trim());
+            periods[i] = DurationStyle.SIMPLE.parse(limit.substring(slash + 1).trim());
+            if (capacities[i] < 1 || periods[i].isZero() || periods[i].isNegative()) {
+                throw new IllegalArgumentException("Quota " + name + " limit must be positive: " + limit);
+            }
+            if (periods[i].compareTo(periods[longest]) > 0) {
+                longest = i;
+            }
+            smallest = Math.min(smallest, capacities[i]);
+        }
+        this.sustainedIndex = longest;
+        this.maxConsumption = smallest;
+        this.bucketFactory = key -> createBucket();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Capacity of the limit with the longest period */
+    public long getSustainedCapacity() {
+        return capacities[sustainedIndex];
+    }
+
+    /** Period of the limit with the longest period */
+    public Duration getSustainedPeriod() {
+        return periods[sustainedIndex];
+    }
+
+    /**
+     * Most tokens one request can ever get: the smallest capacity, since a full bucket holds no
+     * more. Larger requests would be refused however long the client waited.
+     */
+    public long getMaxConsumption() {
+        return maxConsumption;
+    }
+
+    /** Creates a fresh bucket for a client, shared so lookups don't allocate a lambda */
+    public LongFunction<Bucket> getBucketFactory() {
+        return bucketFactory;
+    }
+
+    private Bucket createBucket() {
+        // CAS-based state updates, no synchronized blocks for virtual threads to pin on
+        LocalBucketBuilder builder = Bucket.builder()
+                .withSynchronizationStrategy(SynchronizationStrategy.LOCK_FREE);
+        for (int i = 0; i < capacities.length; i++) {
+            builder.addLimit(Bandwidth.classic(capacities[i], Refill.intervally(capacities[i], periods[i])));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate-limit tiers, compiled once at startup into flat lookup tables.
+ * <p>
+ * A request's quota depends on its route and on the tier of its subject: the customer if the
+ * {@code customer_id} has a tier and the authenticated principal may act for that customer, else
+ * the principal if it has a tier, else the client address on the {@link #DEFAULT_TIER}. The
+ * {@code customer_id} is supplied by the caller, so a customer's tier and bucket are only used by
+ * the principals assigned to it. Each tier has a quota for all routes and may
+ * override it per route; routes without an override share one bucket.
+ * <p>
+ * Lookups parse the customer id in place and probe a primitive open-addressing table, so they
+ * neither split strings nor allocate.
+ */
+public final class QuotaPlan {
+
+    public static final String DEFAULT_TIER = "default";
+
+    /** Name used in tier specs for the quota that applies to every route without its own */
+    public static final String ALL_ROUTES = "all";
+
+    /** Rate-limited endpoints */
+    public enum Route {
+        SINGLE("single"),
+        BATCH("batch"),
+        STREAM("stream");
+
+        private final String configName;
+
+        Route(String configName) {
+            this.configName = configName;
+        }
+
+        public String getConfigName() {
+            return configName;
+        }
+
+        /**
+         * @param uri Request path
+         * @return Route of the path, or null if it is not rate limited
+         */
+        public static Route match(String uri) {
+            return switch (uri) {
+                case "/next-tracking-number" -> SINGLE;
+                case "/next-tracking-numbers" -> BATCH;
+                case "/next-tracking-numbers/stream" -> STREAM;
+                default -> null;
+            };
+        }
+    }
+
+    private final String[] tierNames;
+    private final Quota[][] quotas;
+    private final Map<String, Integer> principalTiers;
+    private final CustomerTiers customerTiers;
+
+    /**
+     * @param tiers Quota specs per tier name, then per route config name or {@link #ALL_ROUTES}
+     * @param defaultSpec Quota for tiers without an {@link #ALL_ROUTES} spec, including an unconfigured default tier
+     * @param principals Tier name per principal
+     * @param customers Tier name per customer id
+     * @param customerPrincipals Principals allowed to use each customer's tier, per customer id
+     */
+    public QuotaPlan(Map<String, Map<String, String>> tiers, String defaultSpec,
+                     Map<String, String> principals, Map<String, String> customers,
+                     Map<String, ? extends Collection<String>> customerPrincipals) {
+        List<String> names = new ArrayList<>();
+        names.add(DEFAULT_TIER);
+        for (String name : tiers.keySet()) {
+            if (!name.equals(DEFAULT_TIER)) {
+                names.add(name);
+            }
+        }
+        this.tierNames = names.toArray(new String[0]);
+
+        Route[] routes = Route.values();
+        this.quotas = new Quota[tierNames.length][routes.length];
+        int nextId = 0;
+        for (int tier = 0; tier < tierNames.length; tier++) {
+            Map<String, String> specs = tiers.getOrDefault(tierNames[tier], Map.of());
+            for (String route : specs.keySet()) {
+                if (!route.equals(ALL_ROUTES) && routeOf(route) == null) {
+                    throw new IllegalArgumentException("Unknown route '" + route + "' in rate limit tier " + tierNames[tier]);
+                }
+            }
+            Quota all = new Quota(nextId++, tierNames[tier] + "/" + ALL_ROUTES, specs.getOrDefault(ALL_ROUTES, defaultSpec));
+            for (Route route : routes) {
+                String spec = specs.get(route.getConfigName());
+                quotas[tier][route.ordinal()] = spec == null
+                    ? all : new Quota(nextId++, tierNames[tier] + "/" + route.getConfigName(), spec);
+            }
+        }
+
+        this.principalTiers = new HashMap<>();
+        principals.forEach((principal, tier) -> principalTiers.put(principal, tierIndex(tier)));
+
+        this.customerTiers = new CustomerTiers(customers.size());
+        customers.forEach((customerId, tier) -> {
+            if (!isUuid(customerId)) {
+                throw new IllegalArgumentException("Customer id for rate limit tier must be a UUID: " + customerId);
+            }
+            Collection<String> allowed = customerPrincipals.get(customerId);
+            if (allowed == null || allowed.isEmpty()) {
+                throw new IllegalArgumentException("Customer " + customerId + " has a rate limit tier but no principals");
+            }
+            customerTiers.put(uuidHigh(customerId), uuidLow(customerId), tierIndex(tier), allowed.toArray(new String[0]));
+        });
+        for (String customerId : customerPrincipals.keySet()) {
+            if (!customers.containsKey(customerId)) {
+                throw new IllegalArgumentException("Customer " + customerId + " has principals but no rate limit tier");
+            }
+        }
+    }
+
+    /**
+     * @param customerId Raw {@code customer_id} parameter, may be null
+     * @param principal Authenticated user name, may be null
+     * @return Tier index of the customer, -1 if it has none or the principal may not use it
+     */
+    public int customerTier(CharSequence customerId, String principal) {
+        if (customerId == null || principal == null || customerTiers.size == 0 || !isUuid(customerId)) {
+            return -1;
+        }
+        return customerTiers.get(uuidHigh(customerId), uuidLow(customerId), principal);
+    }
+
+    /**
+     * @param principal Authenticated user name, may be null
+     * @return Tier index of the principal, -1 if it has none
+     */
+    public int principalTier(String principal) {
+        if (principal == null) {
+            return -1;
+        }
+        Integer tier = principalTiers.get(principal);
+        return tier != null ? tier : -1;
+    }
+
+    public Quota quotaFor(int tier, Route route) {
+        return quotas[tier][route.ordinal()];
+    }
+
+    public String tierName(int tier) {
+        return tierNames[tier];
+    }
+
+    public int getTierCount() {
+        return tierNames.length;
+    }
+
+    public int getCustomerCount() {
+        return customerTiers.size;
+    }
+
+    /** Subject key of a customer with a tier, call only after {@link #customerTier} found one */
+    public static long customerKey(CharSequence customerId) {
+        return Hashes.mix(uuidHigh(customerId) * 31 + uuidLow(customerId));
+    }
+
+    /** Subject key of a principal, distinct from client address keys in practice */
+    public static long principalKey(String principal) {
+        return Hashes.mix(Hashes.fnv1a(principal));
+    }
+
+    /**
+     * @param subjectKey Customer, principal or client address key
+     * @param quota Quota the bucket enforces
+     * @return Key of the subject's bucket for that quota
+     */
+    public static long bucketKey(long subjectKey, Quota quota) {
+        return subjectKey ^ (quota.getId() + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    private int tierIndex(String name) {
+        for (int i = 0; i < tierNames.length; i++) {
+            if (tierNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rate limit tier: " + name);
+    }
+
+    private static Route routeOf(String configName) {
+        for (Route route : Route.values()) {
+            if (route.getConfigName().equals(configName)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Lower-case 8-4-4-4-12 hex, the format request validation accepts
+    static boolean isUuid(CharSequence s) {
+        if (s.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long uuidHigh(CharSequence s) {
+        return hexBits(s, 0, 8) << 32 | hexBits(s, 9, 13) << 16 | hexBits(s, 14, 18);
+    }
+
+    static long uuidLow(CharSequence s) {
+        return hexBits(s, 19, 23) << 48 | hexBits(s, 24, 36);
+    }
+
+    private static long hexBits(CharSequence s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            value = value << 4 | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+
+    /**
+     * Customer id to tier index and allowed principals, as parallel arrays probed linearly. Tiers
+     * are stored plus one so that zero marks an empty slot. Read-only after construction.
+     */
+    private static final class CustomerTiers {
+        private final long[] highs;
+        private final long[] lows;
+        private final short[] tiers;
+        private final String[][] principals;
+        private final int mask;
+        private int size;
+
+        private CustomerTiers(int expected) {
+            int length = Integer.highestOneBit(Math.max(2, expected * 2) - 1) << 1;
+            this.highs = new long[length];
+            this.lows = new long[length];
+            this.tiers = new short[length];
+            this.principals = new String[length][];
+            this.mask = length - 1;
+        }
+
+        private void put(long high, long low, int tier, String[] allowed) {
+            int slot = (int) Hashes.mix(high ^ low * 31) & mask;
+            while (tiers[slot] != 0 && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            if (tiers[slot] == 0) {
+                size++;
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            tiers[slot] = (short) (tier + 1);
+            principals[slot] = allowed;
+        }
+
+        private int get(long high, long low, String principal) {
+            int slot = (int) Hashes.mix(high ^ low * 31) & mask;
+            while (tiers[slot] != 0) {
+                if (highs[slot] == high && lows[slot] == low) {
+                    // A handful of principals per customer, so a scan beats a set
+                    for (String allowed : principals[slot]) {
+                        if (allowed.equals(principal)) {
+                            return tiers[slot] - 1;
+                        }
+                    }
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
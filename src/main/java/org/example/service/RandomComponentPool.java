@@ -0,0 +1,173 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free pool of pre-computed random components.
+ * <p>
+ * A background thread keeps the ring buffer topped up from the {@link EntropySource}, so taking a value
+ * on the request thread is a single CAS. Request threads wake the refill thread once the pool
+ * drops below the low-water mark, and fall back to drawing directly from the source when the
+ * pool has run empty. Enabled with {@code app.tracking-number.random-pool.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracking-number.random-pool.enabled", havingValue = "true")
+public class RandomComponentPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RandomComponentPool.class);
+
+    private final EntropySource entropySource;
+
+    // Vyukov-style ring: a slot is readable when its sequence is position + 1 and writable when it equals position
+    private final long[] values;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final int lowWaterMark;
+    private final long refillIntervalNanos;
+    private final AtomicBoolean refillRequested = new AtomicBoolean();
+
+    private final AtomicLong refilledTotal = new AtomicLong();
+    private final LongAdder emptyCount = new LongAdder();
+    private volatile double refillRate;
+
+    private volatile boolean running;
+    private Thread refillThread;
+
+    public RandomComponentPool(EntropySource entropySource,
+                               @Value("${app.tracking-number.random-pool.capacity:65536}") int capacity,
+                               @Value("${app.tracking-number.random-pool.low-water-mark:16384}") int lowWaterMark,
+                               @Value("${app.tracking-number.random-pool.refill-interval-ms:10}") long refillIntervalMillis) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Pool capacity must be between 2 and 2^30: " + capacity);
+        }
+        this.entropySource = entropySource;
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.values = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.lowWaterMark = Math.min(lowWaterMark, size);
+        this.refillIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refillIntervalMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        refillThread = new Thread(this::refillLoop, "tracking-number-random-pool");
+        refillThread.setDaemon(true);
+        refillThread.start();
+        logger.info("Random component pool started with capacity {} and low-water mark {}", values.length, lowWaterMark);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (refillThread != null) {
+            LockSupport.unpark(refillThread);
+        }
+    }
+
+    /**
+     * Take a pre-computed random value, or draw one directly if the pool is empty
+     * @return Random 64-bit value
+     */
+    public long nextLong() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    long value = values[index];
+                    sequences.set(index, position + mask + 1);
+                    if (tail.get() - (position + 1) < lowWaterMark) {
+                        requestRefill();
+                    }
+                    return value;
+                }
+            } else if (diff < 0) {
+                emptyCount.increment();
+                requestRefill();
+                return entropySource.nextLong();
+            }
+            // Another consumer took this slot first, retry with the next one
+        }
+    }
+
+    public int getDepth() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /** Values added by the refill thread per second, measured over the last second */
+    public double getRefillRate() {
+        return refillRate;
+    }
+
+    public long getEmptyCount() {
+        return emptyCount.sum();
+    }
+
+    private void requestRefill() {
+        if (!refillRequested.get() && refillRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(refillThread);
+        }
+    }
+
+    // Only the refill thread writes, so the tail needs no CAS
+    private boolean offer(long value) {
+        long position = tail.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position) {
+            return false;
+        }
+        values[index] = value;
+        sequences.set(index, position + 1);
+        tail.set(position + 1);
+        return true;
+    }
+
+    private void refillLoop() {
+        long rateWindowStart = System.nanoTime();
+        long rateWindowRefilled = 0;
+
+        while (running) {
+            refillRequested.set(false);
+            if (getDepth() < lowWaterMark) {
+                while (running && offer(entropySource.nextLong())) {
+                    refilledTotal.incrementAndGet();
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now - rateWindowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                long refilled = refilledTotal.get();
+                refillRate = (refilled - rateWindowRefilled) * 1e9 / (now - rateWindowStart);
+                rateWindowRefilled = refilled;
+                rateWindowStart = now;
+            }
+            LockSupport.parkNanos(this, refillIntervalNanos);
+        }
+    }
+}
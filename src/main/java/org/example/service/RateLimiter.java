@@ -0,0 +1,23 @@
+package org.example.service;
+
+/**
+ * Per-client token accounting behind the rate-limiting filters
+ */
+public interface RateLimiter {
+
+    /**
+     * Take tokens from the bucket identified by {@code key}
+     * @param key Bucket identity, see {@link QuotaPlan#bucketKey}
+     * @param quota Limits the bucket enforces
+     * @param tokens Tokens needed, one per tracking number
+     * @return true if the tokens were granted
+     */
+    boolean tryConsume(long key, Quota quota, long tokens);
+
+    /**
+     * @return true if {@link #tryConsume} may wait on network I/O, so event-loop callers must offload it
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+}
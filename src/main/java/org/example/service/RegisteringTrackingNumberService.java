@@ -0,0 +1,64 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.stream.Stream;
+
+/**
+ * Records every number the configured engine generates in the {@link IssuedNumberRegistry} and
+ * generates a replacement when the registry may have issued it before.
+ * Enabled with {@code app.registry.enabled=true}, which makes it the service the controllers use
+ * (see {@code TrackingNumberServiceConfig}).
+ */
+public class RegisteringTrackingNumberService implements TrackingNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteringTrackingNumberService.class);
+
+    // Collisions are rare enough that running out of attempts means the registry is overfull
+    static final int MAX_ATTEMPTS = 8;
+
+    private final TrackingNumberService delegate;
+    private final IssuedNumberRegistry issuedNumberRegistry;
+
+    /**
+     * @param delegate Service whose numbers are registered
+     * @param issuedNumberRegistry Registry to record them in
+     */
+    public RegisteringTrackingNumberService(TrackingNumberService delegate, IssuedNumberRegistry issuedNumberRegistry) {
+        this.delegate = delegate;
+        this.issuedNumberRegistry = issuedNumberRegistry;
+    }
+
+    @Override
+    public String generateTrackingNumber(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId) {
+        String trackingNumber = delegate.generateTrackingNumber(
+            originCountryId, destinationCountryId, weight, customerId);
+        return register(trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+    }
+
+    @Override
+    public Stream<String> generateBatch(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId, int count) {
+        return delegate.generateBatch(originCountryId, destinationCountryId, weight, customerId, count)
+                .map(trackingNumber -> register(trackingNumber, originCountryId, destinationCountryId, weight, customerId));
+    }
+
+    private String register(String trackingNumber, String originCountryId, String destinationCountryId,
+                            double weight, String customerId) {
+        for (int attempt = 1; ; attempt++) {
+            if (issuedNumberRegistry.register(trackingNumber, originCountryId, destinationCountryId, weight, customerId)) {
+                return trackingNumber;
+            }
+            logger.warn("Tracking number {} may have been issued before, generating another (attempt {})",
+                        trackingNumber, attempt);
+            if (attempt == MAX_ATTEMPTS) {
+                throw new TrackingNumberGenerationException(
+                    "No unissued tracking number after " + MAX_ATTEMPTS + " attempts");
+            }
+            trackingNumber = delegate.generateTrackingNumber(
+                originCountryId, destinationCountryId, weight, customerId);
+        }
+    }
+}
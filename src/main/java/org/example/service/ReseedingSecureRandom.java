@@ -0,0 +1,52 @@
+package org.example.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * A {@link SecureRandom} that reseeds itself after a fixed number of draws.
+ * Not thread-safe: callers confine each instance to one thread or guard it with a lock.
+ */
+final class ReseedingSecureRandom {
+
+    private static final int RESEED_BYTES = 32;
+
+    // Only used for algorithms without reseed() support, so contention does not matter
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private final SecureRandom random;
+    private final long reseedInterval;
+    private long draws;
+
+    /**
+     * @param algorithm SecureRandom algorithm, e.g. DRBG, SHA1PRNG or NativePRNG
+     * @param reseedInterval Draws between reseeds, 0 to never reseed
+     */
+    ReseedingSecureRandom(String algorithm, long reseedInterval) {
+        try {
+            this.random = SecureRandom.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported SecureRandom algorithm: " + algorithm, e);
+        }
+        this.reseedInterval = reseedInterval;
+    }
+
+    long nextLong() {
+        if (reseedInterval > 0 && ++draws >= reseedInterval) {
+            draws = 0;
+            reseed();
+        }
+        return random.nextLong();
+    }
+
+    private void reseed() {
+        try {
+            random.reseed();
+        } catch (UnsupportedOperationException e) {
+            // SHA1PRNG and friends only support mixing in additional seed material
+            byte[] seed = new byte[RESEED_BYTES];
+            SEED_SOURCE.nextBytes(seed);
+            random.setSeed(seed);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Minimal client for the Redis serialization protocol (RESP2), covering just the commands
+ * the shared rate limiter needs. Works with Redis, Valkey, KeyDB and other compatible stores.
+ * <p>
+ * Holds a fixed set of connections, each guarded by a {@link ReentrantLock}; callers are spread
+ * over them by thread id. Connections are opened lazily and dropped on any I/O error, so the
+ * next call reconnects.
+ */
+public class RespClient implements AutoCloseable {
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final Connection[] connections;
+    private final int mask;
+
+    /**
+     * @param host Server host
+     * @param port Server port
+     * @param timeoutMillis Connect and read timeout
+     * @param connections Number of connections, rounded up to a power of two
+     */
+    public RespClient(String host, int port, int timeoutMillis, int connections) {
+        if (connections < 1 || connections > 1024) {
+            throw new IllegalArgumentException("Connection count must be between 1 and 1024: " + connections);
+        }
+        int size = connections == 1 ? 1 : Integer.highestOneBit(connections - 1) << 1;
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.connections = new Connection[size];
+        for (int i = 0; i < size; i++) {
+            this.connections[i] = new Connection();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * {@code INCRBY key amount} and {@code PEXPIRE key ttl}, pipelined in one round trip
+     * @return Value of the key after the increment
+     * @throws IOException If the server cannot be reached or replies with an error
+     */
+    public long incrementAndExpire(String key, long amount, long ttlMillis) throws IOException {
+        @SuppressWarnings("deprecation")
+        Connection connection = connections[(int) Thread.currentThread().getId() & mask];
+        connection.lock.lock();
+        try {
+            try {
+                connection.open();
+                writeCommand(connection.out, "INCRBY", key, Long.toString(amount));
+                writeCommand(connection.out, "PEXPIRE", key, Long.toString(ttlMillis));
+                connection.out.flush();
+                long value = readInteger(connection.in);
+                readInteger(connection.in);
+                return value;
+            } catch (IOException e) {
+                connection.close();
+                throw e;
+            }
+        } finally {
+            connection.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Connection connection : connections) {
+            connection.lock.lock();
+            try {
+                connection.close();
+            } finally {
+                connection.lock.unlock();
+            }
+        }
+    }
+
+    private static void writeCommand(OutputStream out, String... arguments) throws IOException {
+        writeLine(out, '*', arguments.length);
+        for (String argument : arguments) {
+            byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+            writeLine(out, '$', bytes.length);
+            out.write(bytes);
+            out.write('\r');
+            out.write('\n');
+        }
+    }
+
+    private static void writeLine(OutputStream out, char type, long value) throws IOException {
+        out.write(type);
+        out.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static long readInteger(InputStream in) throws IOException {
+        int type = in.read();
+        String line = readLine(in);
+        if (type == ':') {
+            try {
+                return Long.parseLong(line);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed integer reply: " + line, e);
+            }
+        }
+        if (type == '-') {
+            throw new IOException("Server error: " + line);
+        }
+        throw new IOException("Unexpected reply type: " + (char) type);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+            line.append((char) c);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("Malformed reply line: " + line);
+        }
+        return line.toString();
+    }
+
+    private final class Connection {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Socket socket;
+        private InputStream in;
+        private OutputStream out;
+
+        private void open() throws IOException {
+            if (socket != null) {
+                return;
+            }
+            Socket newSocket = new Socket();
+            try {
+                newSocket.setTcpNoDelay(true);
+                newSocket.connect(new InetSocketAddress(host, port), timeoutMillis);
+                newSocket.setSoTimeout(timeoutMillis);
+                in = new BufferedInputStream(newSocket.getInputStream());
+                out = new BufferedOutputStream(newSocket.getOutputStream());
+                socket = newSocket;
+            } catch (IOException e) {
+                newSocket.close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Nothing left to clean up
+                }
+                socket = null;
+            }
+        }
+    }
+}
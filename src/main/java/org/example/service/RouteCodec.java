@@ -0,0 +1,172 @@
+package org.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tracking number layout that carries the route, used by the engines when
+ * {@code app.tracking-number.format=route}.
+ * <p>
+ * A route number is 16 base-36 characters laid out as {@code [4-char route code][12-char suffix]}.
+ * The route code indexes a precomputed table of every pair of assigned ISO 3166-1 alpha-2 codes
+ * and is offset so that it always starts with {@code G} or {@code H}, never a hex digit, which
+ * keeps route numbers apart from the plain 16 hex digit layout. The suffix holds the low 62 bits of
+ * the engine's value: all of a sequence id, so the sequence engine stays unique per node. Numbers
+ * for a route with a code outside the table keep the plain layout.
+ * <p>
+ * Encoding and decoding are lookups in fixed tables and decoding returns interned {@link Route}s,
+ * so neither allocates. Decoding is static: numbers issued with routes stay decodable whatever
+ * format is configured now.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracking-number.format", havingValue = "route")
+public class RouteCodec implements TrackingNumberLayout {
+
+    // Officially assigned ISO 3166-1 alpha-2 codes
+    private static final String COUNTRY_CODES =
+        "AD AE AF AG AI AL AM AO AQ AR AS AT AU AW AX AZ BA BB BD BE BF BG BH BI BJ BL BM BN BO BQ BR BS BT BV BW " +
+        "BY BZ CA CC CD CF CG CH CI CK CL CM CN CO CR CU CV CW CX CY CZ DE DJ DK DM DO DZ EC EE EG EH ER ES ET FI " +
+        "FJ FK FM FO FR GA GB GD GE GF GG GH GI GL GM GN GP GQ GR GS GT GU GW GY HK HM HN HR HT HU ID IE IL IM IN " +
+        "IO IQ IR IS IT JE JM JO JP KE KG KH KI KM KN KP KR KW KY KZ LA LB LC LI LK LR LS LT LU LV LY MA MC MD ME " +
+        "MF MG MH MK ML MM MN MO MP MQ MR MS MT MU MV MW MX MY MZ NA NC NE NF NG NI NL NO NP NR NU NZ OM PA PE PF " +
+        "PG PH PK PL PM PN PR PS PT PW PY QA RE RO RS RU RW SA SB SC SD SE SG SH SI SJ SK SL SM SN SO SR SS ST SV " +
+        "SX SY SZ TC TD TF TG TH TJ TK TL TM TN TO TR TT TV TW TZ UA UG UM US UY UZ VA VC VE VG VI VN VU WF WS YE " +
+        "YT ZA ZM ZW";
+
+    public static final int ROUTE_CODE_LENGTH = 4;
+    public static final int SUFFIX_LENGTH = TrackingNumberEncoder.LENGTH - ROUTE_CODE_LENGTH;
+
+    /** Bits of the engine's value kept in the suffix; 36^12 is just above 2^62 */
+    public static final int SUFFIX_BITS = 62;
+    public static final long SUFFIX_MASK = (1L << SUFFIX_BITS) - 1;
+
+    private static final int RADIX = 36;
+
+    // Lowest route code, "G000": everything below starts with a hex digit
+    private static final int ROUTE_CODE_BASE = 16 * RADIX * RADIX * RADIX;
+
+    private static final byte[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    // Digit value of every ASCII character, -1 for anything that is not a base-36 digit
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    // Country index for every two-letter combination, indexed by (first - 'A') * 26 + (second - 'A'); -1 if unassigned
+    private static final short[] COUNTRY_INDEX = new short[26 * 26];
+
+    private static final String[] COUNTRIES = COUNTRY_CODES.split(" ");
+
+    // Every route, indexed by origin index * countries + destination index
+    private static final Route[] ROUTES = new Route[COUNTRIES.length * COUNTRIES.length];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int i = 0; i < RADIX; i++) {
+            DIGIT_VALUES[DIGITS[i]] = (byte) i;
+        }
+        Arrays.fill(COUNTRY_INDEX, (short) -1);
+        for (int i = 0; i < COUNTRIES.length; i++) {
+            COUNTRY_INDEX[(COUNTRIES[i].charAt(0) - 'A') * 26 + (COUNTRIES[i].charAt(1) - 'A')] = (short) i;
+        }
+        for (int origin = 0; origin < COUNTRIES.length; origin++) {
+            for (int destination = 0; destination < COUNTRIES.length; destination++) {
+                ROUTES[origin * COUNTRIES.length + destination] = new Route(COUNTRIES[origin], COUNTRIES[destination]);
+            }
+        }
+    }
+
+    /**
+     * Route carried by a tracking number; one shared instance per country pair
+     */
+    public record Route(String originCountryId, String destinationCountryId) {
+    }
+
+    /**
+     * Write a route number for the given route and engine value
+     * @param originCountryId Origin country code
+     * @param destinationCountryId Destination country code
+     * @param value Engine value; only the low {@value #SUFFIX_BITS} bits are kept
+     * @param dst Destination buffer, at least {@code offset + 16} bytes long
+     * @param offset Position of the first character
+     * @return false, with nothing written, if either country code is not an assigned ISO 3166-1 code
+     */
+    @Override
+    public boolean encode(String originCountryId, String destinationCountryId, long value, byte[] dst, int offset) {
+        int origin = countryIndex(originCountryId);
+        int destination = countryIndex(destinationCountryId);
+        if (origin < 0 || destination < 0) {
+            return false;
+        }
+        TrackingNumberEncoder.encodeBase36(ROUTE_CODE_BASE + origin * COUNTRIES.length + destination,
+                                           dst, offset, ROUTE_CODE_LENGTH);
+        TrackingNumberEncoder.encodeBase36(value & SUFFIX_MASK, dst, offset + ROUTE_CODE_LENGTH, SUFFIX_LENGTH);
+        return true;
+    }
+
+    /**
+     * Read the route from a tracking number
+     * @param trackingNumber Tracking number
+     * @return The route, or null if the number is not a well-formed route number
+     */
+    public static Route decode(CharSequence trackingNumber) {
+        if (trackingNumber == null || trackingNumber.length() != TrackingNumberEncoder.LENGTH) {
+            return null;
+        }
+        // Malformed digits parse to -1, which is below the base as well
+        long route = parseDigits(trackingNumber, 0, ROUTE_CODE_LENGTH) - ROUTE_CODE_BASE;
+        if (route < 0 || route >= ROUTES.length) {
+            return null;
+        }
+        long suffix = parseDigits(trackingNumber, ROUTE_CODE_LENGTH, SUFFIX_LENGTH);
+        if (suffix < 0 || suffix > SUFFIX_MASK) {
+            return null;
+        }
+        return ROUTES[(int) route];
+    }
+
+    /**
+     * @return The suffix value of a route number, -1 if the number is not one
+     */
+    static long suffix(CharSequence trackingNumber) {
+        return decode(trackingNumber) == null ? -1 : parseDigits(trackingNumber, ROUTE_CODE_LENGTH, SUFFIX_LENGTH);
+    }
+
+    /**
+     * @return Position of an assigned ISO 3166-1 alpha-2 code in upper case in the route table, -1 for
+     *         anything else
+     */
+    public static int countryIndex(String code) {
+        if (code == null || code.length() != 2) {
+            return -1;
+        }
+        int first = code.charAt(0) - 'A';
+        int second = code.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return -1;
+        }
+        return COUNTRY_INDEX[first * 26 + second];
+    }
+
+    /**
+     * @return Number of countries in the route table
+     */
+    public static int countryCount() {
+        return COUNTRIES.length;
+    }
+
+    // At most 12 digits, which cannot overflow a long
+    private static long parseDigits(CharSequence src, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = src.charAt(i);
+            int digit = c < DIGIT_VALUES.length ? DIGIT_VALUES[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * RADIX + digit;
+        }
+        return value;
+    }
+}
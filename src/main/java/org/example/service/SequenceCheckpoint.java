@@ -0,0 +1,340 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe high-water mark of a node's sequence, kept in a small memory-mapped file.
+ * <p>
+ * The mark is a lease: ids below it may be issued, and it is on disk before any of them is. The
+ * {@link SequenceBlockAllocator} reserves every block with {@link #reserve(long)} before handing it
+ * out, and a background thread moves the mark {@code leaseAhead} ids past the highest reservation
+ * once reservations come within half a lease of it. Reserving is therefore a compare-and-set and a
+ * volatile read; only a burst that outruns the background thread checkpoints on the request thread.
+ * <p>
+ * The file holds two {@value #SLOT_SIZE}-byte slots written in turn, each with a generation, the
+ * node id, the mark and a CRC32C of the rest. A slot is forced to disk before its mark is used, so a
+ * torn write can only damage the newest slot, and the other one still covers every issued id. On
+ * startup the valid slot with the highest generation wins and the sequence resumes at its mark,
+ * skipping at most one lease: reading one page, however many ids were issued before.
+ */
+public class SequenceCheckpoint implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceCheckpoint.class);
+
+    /** "TNSQ" */
+    private static final int MAGIC = 0x544E5351;
+
+    public static final int SLOT_SIZE = 32;
+    private static final int FILE_SIZE = 2 * SLOT_SIZE;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int NODE_ID_OFFSET = 4;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int MARK_OFFSET = 16;
+    private static final int CRC_OFFSET = 24;
+
+    private final Path file;
+    private final int nodeId;
+    private final long leaseAhead;
+    private final long intervalNanos;
+    private final MappedByteBuffer buffer;
+    private final long recoveredMark;
+
+    // Guards writes to the file and the generation
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+    private final byte[] scratch = new byte[SLOT_SIZE];
+    private long generation;
+
+    // Ids below the persisted mark may be issued; the reserved mark is the highest id reserved plus one
+    private volatile long persistedMark;
+    private final AtomicLong reservedMark = new AtomicLong();
+
+    private final LongAdder backgroundCheckpoints = new LongAdder();
+    private final LongAdder requestCheckpoints = new LongAdder();
+
+    private volatile boolean running;
+    private Thread checkpointThread;
+
+    /**
+     * Map the file, created if missing, and recover the mark from it
+     * @param file Checkpoint file
+     * @param nodeId Node the sequence belongs to; a file written by another node is refused
+     * @param leaseAhead Ids persisted ahead of the highest reservation; a crash skips at most this many
+     * @param intervalMillis How often the background thread checks whether the lease needs extending
+     * @throws UncheckedIOException If the file cannot be opened or mapped
+     * @throws IllegalStateException If the file has no valid slot or belongs to another node
+     */
+    public SequenceCheckpoint(Path file, int nodeId, long leaseAhead, long intervalMillis) {
+        if (leaseAhead < 2) {
+            throw new IllegalArgumentException("Checkpoint lease must be at least 2 ids: " + leaseAhead);
+        }
+        this.file = file;
+        this.nodeId = nodeId;
+        this.leaseAhead = leaseAhead;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+
+        long started = System.nanoTime();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open sequence checkpoint " + file, e);
+        }
+        this.recoveredMark = recover();
+        this.persistedMark = recoveredMark;
+        this.reservedMark.set(recoveredMark);
+        logger.info("Sequence checkpoint {} recovered mark {} at generation {} in {} us",
+                    file, recoveredMark, generation, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+    }
+
+    /**
+     * Start the background thread that extends the lease
+     */
+    public void start() {
+        running = true;
+        checkpointThread = new Thread(this::checkpointLoop, "sequence-checkpoint");
+        checkpointThread.setDaemon(true);
+        checkpointThread.start();
+    }
+
+    /**
+     * Stop the background thread. The persisted mark already covers every reserved id, so nothing
+     * is written.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (checkpointThread != null) {
+            LockSupport.unpark(checkpointThread);
+        }
+    }
+
+    /**
+     * Persist a lease from {@code start} before the first id is issued, so the first requests after
+     * startup find one in place
+     */
+    void leaseFrom(long start) {
+        raiseReservedMark(start);
+        writeLock.lock();
+        try {
+            extendLease();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Make sure every id below {@code end} is covered by the persisted mark before returning.
+     * Checkpoints on the calling thread only if the background thread has fallen a whole lease behind.
+     * @param end Highest id about to be issued plus one
+     */
+    public void reserve(long end) {
+        raiseReservedMark(end);
+        long persisted = persistedMark;
+        if (end <= persisted - leaseAhead / 2) {
+            return;
+        }
+        if (end <= persisted) {
+            // Within half a lease of the mark: wake the background thread early
+            Thread thread = checkpointThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (end > persistedMark) {
+                extendLease();
+                requestCheckpoints.increment();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return Mark read from the file at startup; no id at or above it was issued before
+     */
+    public long getRecoveredMark() {
+        return recoveredMark;
+    }
+
+    public long getPersistedMark() {
+        return persistedMark;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /** Checkpoints written by the background thread */
+    public long getBackgroundCheckpointCount() {
+        return backgroundCheckpoints.sum();
+    }
+
+    /** Checkpoints a reservation had to wait for because the background thread fell behind */
+    public long getRequestCheckpointCount() {
+        return requestCheckpoints.sum();
+    }
+
+    /**
+     * Extend the lease if reservations are within half a lease of the persisted mark
+     * @return true if a checkpoint was written
+     */
+    boolean checkpointIfNeeded() {
+        writeLock.lock();
+        try {
+            if (reservedMark.get() <= persistedMark - leaseAhead / 2) {
+                return false;
+            }
+            extendLease();
+            backgroundCheckpoints.increment();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void raiseReservedMark(long end) {
+        long reserved = reservedMark.get();
+        while (end > reserved && !reservedMark.compareAndSet(reserved, end)) {
+            reserved = reservedMark.get();
+        }
+    }
+
+    private void checkpointLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            if (!running) {
+                break;
+            }
+            try {
+                checkpointIfNeeded();
+            } catch (RuntimeException e) {
+                // Reservations checkpoint for themselves until the file is writable again
+                logger.error("Failed to write sequence checkpoint {}", file, e);
+            }
+        }
+    }
+
+    // Called with the write lock held; the new mark is only used once it is on disk
+    private void extendLease() {
+        long mark = reservedMark.get() + leaseAhead;
+        long next = generation + 1;
+        int offset = (int) (next & 1) * SLOT_SIZE;
+        writeInt(scratch, MAGIC_OFFSET, MAGIC);
+        writeInt(scratch, NODE_ID_OFFSET, nodeId);
+        writeLong(scratch, GENERATION_OFFSET, next);
+        writeLong(scratch, MARK_OFFSET, mark);
+        crc.reset();
+        crc.update(scratch, 0, CRC_OFFSET);
+        writeInt(scratch, CRC_OFFSET, (int) crc.getValue());
+        buffer.put(offset, scratch);
+        buffer.force(offset, SLOT_SIZE);
+        generation = next;
+        persistedMark = mark;
+    }
+
+    // Newest valid slot; a new file is all zeros and starts from mark 0
+    private long recover() {
+        long bestGeneration = -1;
+        long bestMark = 0;
+        boolean written = false;
+        byte[] slot = new byte[SLOT_SIZE];
+        for (int offset = 0; offset < FILE_SIZE; offset += SLOT_SIZE) {
+            buffer.get(offset, slot);
+            written |= !isZero(slot);
+            if (!isValid(slot)) {
+                continue;
+            }
+            int slotNodeId = readInt(slot, NODE_ID_OFFSET);
+            if (slotNodeId != nodeId) {
+                throw new IllegalStateException(
+                    "Sequence checkpoint " + file + " belongs to node " + slotNodeId + ", not node " + nodeId);
+            }
+            long slotGeneration = readLong(slot, GENERATION_OFFSET);
+            if (slotGeneration > bestGeneration) {
+                bestGeneration = slotGeneration;
+                bestMark = readLong(slot, MARK_OFFSET);
+            }
+        }
+        if (written && bestGeneration < 0) {
+            // Starting from zero could reissue numbers; an operator has to look at the file
+            throw new IllegalStateException("Sequence checkpoint " + file + " has no valid slot");
+        }
+        generation = Math.max(bestGeneration, 0);
+        return bestMark;
+    }
+
+    private boolean isValid(byte[] slot) {
+        if (readInt(slot, MAGIC_OFFSET) != MAGIC) {
+            return false;
+        }
+        crc.reset();
+        crc.update(slot, 0, CRC_OFFSET);
+        return (int) crc.getValue() == readInt(slot, CRC_OFFSET);
+    }
+
+    private static boolean isZero(byte[] slot) {
+        for (byte b : slot) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeLong(byte[] dst, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            dst[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static void writeInt(byte[] dst, int offset, int value) {
+        for (int i = 3; i >= 0; i--) {
+            dst[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] src, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (src[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] src, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (src[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+
+/**
+ * Sequence based tracking number generator with guaranteed uniqueness.
+ * Ids are handed out by a {@link StripedSequence} over blocks leased from the node's
+ * {@link SequenceBlockAllocator}, so taking an id is a single uncontended increment.
+ * Enabled with {@code app.tracking-number.engine=sequence}; each node needs its own
+ * {@code app.tracking-number.node-id}.
+ * <p>
+ * With {@code app.tracking-number.checkpoint-file} set, the sequence is checkpointed to that file by a
+ * {@link SequenceCheckpoint}, so a restart never reissues a number even if the node ran ahead of
+ * the clock.
+ */
+@Service
+@Qualifier(TrackingNumberService.ENGINE)
+@ConditionalOnProperty(name = "app.tracking-number.engine", havingValue = "sequence")
+public class SequenceTrackingNumberService implements TrackingNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceTrackingNumberService.class);
+
+    private final StripedSequence sequence;
+
+    // Null when app.tracking-number.checkpoint-file is not set
+    private final SequenceCheckpoint checkpoint;
+
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[TrackingNumberEncoder.LENGTH]);
+
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    // Present when app.tracking-number.format is route or checked
+    @Autowired(required = false)
+    private TrackingNumberLayout layout;
+
+    public SequenceTrackingNumberService(int nodeId, int blockSize) {
+        this(nodeId, blockSize, "", 0, 0);
+    }
+
+    @Autowired
+    public SequenceTrackingNumberService(@Value("${app.tracking-number.node-id:0}") int nodeId,
+                                         @Value("${app.tracking-number.block-size:1024}") int blockSize,
+                                         @Value("${app.tracking-number.checkpoint-file:}") String checkpointFile,
+                                         @Value("${app.tracking-number.checkpoint-lease:1048576}") long checkpointLease,
+                                         @Value("${app.tracking-number.checkpoint-interval-ms:100}") long checkpointIntervalMillis) {
+        if (checkpointFile.isBlank()) {
+            this.checkpoint = null;
+        } else {
+            this.checkpoint = new SequenceCheckpoint(Path.of(checkpointFile), nodeId, checkpointLease, checkpointIntervalMillis);
+        }
+        this.sequence = new StripedSequence(new SequenceBlockAllocator(nodeId, blockSize, checkpoint),
+                                            StripedSequence.defaultStripeCount());
+        if (checkpoint != null) {
+            checkpoint.start();
+        }
+        logger.info("Sequence tracking number engine started for node {} with block size {}{}", nodeId, blockSize,
+                    checkpoint != null ? ", checkpointed to " + checkpointFile : "");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checkpoint != null) {
+            checkpoint.close();
+        }
+    }
+
+    /**
+     * @return The sequence checkpoint, or null if the sequence is not checkpointed
+     */
+    public SequenceCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    @Override
+    public String generateTrackingNumber(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId) {
+        long start = System.nanoTime();
+        boolean timePhases = generationMetrics.samplePhases(start);
+        try {
+            long id = sequence.next();
+            long phaseStart = timePhases ? System.nanoTime() : 0;
+            byte[] buffer = buffers.get();
+            // Ids are 62 bits, which every layout keeps whole
+            if (layout == null || !layout.encode(originCountryId, destinationCountryId, id, buffer, 0)) {
+                TrackingNumberEncoder.encodeHex(id, buffer, 0);
+            }
+            String trackingNumber = TrackingNumberEncoder.toString(buffer, 0, TrackingNumberEncoder.LENGTH);
+            if (timePhases) {
+                generationMetrics.recordPhase(GenerationMetrics.Phase.ENCODING, phaseStart);
+            }
+
+            generationMetrics.recordGeneration(originCountryId, destinationCountryId, System.nanoTime() - start);
+            if (logger.isDebugEnabled()) {
+                logger.debug(LogEvents.GENERATION, "Generated tracking number {} for route: {} -> {}, weight: {}, customer: {}",
+                            trackingNumber, originCountryId, destinationCountryId, weight, customerId);
+            }
+            return trackingNumber;
+        } catch (RuntimeException e) {
+            generationMetrics.recordError();
+            logger.error("Error generating tracking number", e);
+            throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.service;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, non-cryptographic entropy source backed by one {@link SplittableRandom} per thread.
+ * Numbers become predictable to anyone who learns a thread's seed, so this mode is only meant
+ * for deployments serving internal routes.
+ */
+public class SplittableRandomEntropySource implements EntropySource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Seeded once from the OS; new threads derive their seed with a CAS, never a lock
+    private final AtomicLong seeder = new AtomicLong(new SecureRandom().nextLong());
+
+    private final ThreadLocal<SplittableRandom> generators =
+            ThreadLocal.withInitial(() -> new SplittableRandom(Hashes.mix(seeder.getAndAdd(GOLDEN_GAMMA))));
+
+    @Override
+    public long nextLong() {
+        return generators.get().nextLong();
+    }
+}
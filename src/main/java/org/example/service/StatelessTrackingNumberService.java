@@ -1,60 +1,88 @@
 package org.example.service;
 
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service for generating unique tracking numbers using cryptographic hashing.
+ * This is the default engine ({@code app.tracking-number.engine=hash}).
  */
 @Service
+@Qualifier(TrackingNumberService.ENGINE)
+@ConditionalOnProperty(name = "app.tracking-number.engine", havingValue = "hash", matchIfMissing = true)
 public class StatelessTrackingNumberService implements TrackingNumberService {
 
     private static final Logger logger = LoggerFactory.getLogger(StatelessTrackingNumberService.class);
 
-    private final SecureRandom secureRandom = new SecureRandom();
-    
-    @Autowired
-    private Counter trackingNumberGeneratedCounter;
-    
     @Autowired
-    private Timer trackingNumberGenerationTimer;
-    
+    private GenerationMetrics generationMetrics;
+
     @Autowired
-    private Counter trackingNumberErrorCounter;
+    private EntropySource entropySource;
+
+    // Optional pool of pre-computed random components, keeps the entropy source off the request thread
+    @Autowired(required = false)
+    private RandomComponentPool randomComponentPool;
+
+    // Present when app.tracking-number.format is route or checked
+    @Autowired(required = false)
+    private TrackingNumberLayout layout;
     
     @Override
     public String generateTrackingNumber(String originCountryId, String destinationCountryId,
                                         double weight, String customerId) {
+        long start = System.nanoTime();
+        boolean timePhases = generationMetrics.samplePhases(start);
         try {
-            return trackingNumberGenerationTimer.recordCallable(() -> {
-                logger.info("Generating tracking number for route: {} -> {}, weight: {}, customer: {}",
-                           originCountryId, destinationCountryId, weight, customerId);
-                
-                try {
-                    // Create input string with high-resolution timing and randomness
-                    long nanoTime = System.nanoTime();
-                    long currentTime = System.currentTimeMillis();
-                    int randomInt = ThreadLocalRandom.current().nextInt();
-                    long secureRandomLong = secureRandom.nextLong();
-
-                    String input = originCountryId + destinationCountryId +
-                                  String.format("%.3f", weight) + customerId +
-                                  nanoTime + currentTime + randomInt + secureRandomLong;
-                    
-                    // Hash the input using SHA-256
-                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
-                    byte[] hashBytes = digest.digest(input.getBytes());
+            logger.info(LogEvents.GENERATION, "Generating tracking number for route: {} -> {}, weight: {}, customer: {}",
+                       originCountryId, destinationCountryId, weight, customerId);
 
+            try {
+                long phaseStart = timePhases ? System.nanoTime() : 0;
+
+                // Create input string with high-resolution timing and randomness
+                long nanoTime = System.nanoTime();
+                long currentTime = System.currentTimeMillis();
+                int randomInt = ThreadLocalRandom.current().nextInt();
+                long secureRandomLong = randomComponentPool != null
+                        ? randomComponentPool.nextLong() : entropySource.nextLong();
+                if (timePhases) {
+                    phaseStart = generationMetrics.recordPhase(GenerationMetrics.Phase.ENTROPY, phaseStart);
+                }
+
+                String input = originCountryId + destinationCountryId +
+                              String.format("%.3f", weight) + customerId +
+                              nanoTime + currentTime + randomInt + secureRandomLong;
+
+                // Hash the input using SHA-256
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] hashBytes = digest.digest(input.getBytes());
+                if (timePhases) {
+                    phaseStart = generationMetrics.recordPhase(GenerationMetrics.Phase.HASHING, phaseStart);
+                }
+
+                String trackingNumber = null;
+                if (layout != null) {
+                    // First 8 hash bytes, the same bits the hex layout shows
+                    long value = 0;
+                    for (int i = 0; i < 8; i++) {
+                        value = (value << 8) | (hashBytes[i] & 0xFF);
+                    }
+                    byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+                    if (layout.encode(originCountryId, destinationCountryId, value, buffer, 0)) {
+                        trackingNumber = TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+                    }
+                }
+                if (trackingNumber == null) {
                     // Convert to hex string
                     StringBuilder hexString = new StringBuilder();
                     for (int i = 0; i < Math.min(8, hashBytes.length); i++) {
@@ -64,9 +92,9 @@ public class StatelessTrackingNumberService implements TrackingNumberService {
                         }
                         hexString.append(hex);
                     }
-                    
+
                     // Format to 16 character uppercase string
-                    String trackingNumber = hexString.toString().toUpperCase();
+                    trackingNumber = hexString.toString().toUpperCase();
                     if (trackingNumber.length() > 16) {
                         trackingNumber = trackingNumber.substring(0, 16);
                     } else if (trackingNumber.length() < 16) {
@@ -77,47 +105,50 @@ public class StatelessTrackingNumberService implements TrackingNumberService {
                         }
                         trackingNumber = trackingNumber.substring(0, 16);
                     }
-                    
-                    trackingNumberGeneratedCounter.increment();
-                    logger.info("Successfully generated tracking number: {}", trackingNumber);
-                    
-                    return trackingNumber;
-                    
-                } catch (NoSuchAlgorithmException e) {
-                    trackingNumberErrorCounter.increment();
-                    logger.warn("SHA-256 not available, using fallback", e);
-
-                    // Fallback generation method with randomness
-                    long nanoTime = System.nanoTime();
-                    long currentTime = System.currentTimeMillis();
-                    int randomInt = ThreadLocalRandom.current().nextInt();
-
-                    String combined = originCountryId + destinationCountryId +
-                                    String.format("%.0f", weight * 1000) +
-                                    customerId.substring(0, Math.min(8, customerId.length())) +
-                                    nanoTime + currentTime + randomInt;
-                    
-                    // Clean and format the string
-                    String trackingNumber = combined.replaceAll("[^A-Z0-9]", "").toUpperCase();
-
-                    // Trim to 16 characters
-                    if (trackingNumber.length() > 16) {
-                        trackingNumber = trackingNumber.substring(0, 16);
-                    } else if (trackingNumber.length() < 16) {
-                        // Pad with numeric characters
-                        String padding = String.valueOf(System.nanoTime()).replaceAll("[^0-9]", "");
-                        trackingNumber += padding;
-                        trackingNumber = trackingNumber.substring(0, 16);
-                    }
-                    
-                    trackingNumberGeneratedCounter.increment();
-                    logger.info("Generated tracking number using fallback: {}", trackingNumber);
-                    
-                    return trackingNumber;
                 }
-            });
-        } catch (Exception e) {
-            trackingNumberErrorCounter.increment();
+                if (timePhases) {
+                    generationMetrics.recordPhase(GenerationMetrics.Phase.ENCODING, phaseStart);
+                }
+
+                generationMetrics.recordGeneration(originCountryId, destinationCountryId, System.nanoTime() - start);
+                logger.debug(LogEvents.GENERATION, "Successfully generated tracking number: {}", trackingNumber);
+
+                return trackingNumber;
+
+            } catch (NoSuchAlgorithmException e) {
+                generationMetrics.recordError();
+                logger.warn("SHA-256 not available, using fallback", e);
+
+                // Fallback generation method with randomness
+                long nanoTime = System.nanoTime();
+                long currentTime = System.currentTimeMillis();
+                int randomInt = ThreadLocalRandom.current().nextInt();
+
+                String combined = originCountryId + destinationCountryId +
+                                String.format("%.0f", weight * 1000) +
+                                customerId.substring(0, Math.min(8, customerId.length())) +
+                                nanoTime + currentTime + randomInt;
+
+                // Clean and format the string
+                String trackingNumber = combined.replaceAll("[^A-Z0-9]", "").toUpperCase();
+
+                // Trim to 16 characters
+                if (trackingNumber.length() > 16) {
+                    trackingNumber = trackingNumber.substring(0, 16);
+                } else if (trackingNumber.length() < 16) {
+                    // Pad with numeric characters
+                    String padding = String.valueOf(System.nanoTime()).replaceAll("[^0-9]", "");
+                    trackingNumber += padding;
+                    trackingNumber = trackingNumber.substring(0, 16);
+                }
+
+                generationMetrics.recordGeneration(originCountryId, destinationCountryId, System.nanoTime() - start);
+                logger.info("Generated tracking number using fallback: {}", trackingNumber);
+
+                return trackingNumber;
+            }
+        } catch (RuntimeException e) {
+            generationMetrics.recordError();
             logger.error("Error generating tracking number", e);
             throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
         }
@@ -0,0 +1,78 @@
+package org.example.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entropy source backed by a fixed set of {@link java.security.SecureRandom} stripes.
+ * <p>
+ * Each stripe is guarded by a {@link ReentrantLock} and a caller takes the first free stripe
+ * starting from one picked by its thread id. The generator's own {@code synchronized} methods
+ * are therefore never contended, so virtual threads park on the lock instead of pinning their
+ * carrier thread on a monitor.
+ */
+public class StripedSecureRandomEntropySource implements EntropySource {
+
+    private final String algorithm;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param algorithm SecureRandom algorithm, e.g. DRBG, SHA1PRNG or NativePRNG
+     * @param stripes Number of generators, rounded up to a power of two
+     * @param reseedInterval Draws per stripe between reseeds, 0 to never reseed
+     */
+    public StripedSecureRandomEntropySource(String algorithm, int stripes, long reseedInterval) {
+        if (stripes < 1 || stripes > (1 << 16)) {
+            throw new IllegalArgumentException("Stripe count must be between 1 and 65536: " + stripes);
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.algorithm = algorithm;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(new ReseedingSecureRandom(algorithm, reseedInterval));
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public long nextLong() {
+        @SuppressWarnings("deprecation")
+        int home = (int) Thread.currentThread().getId() & mask;
+        for (int i = 0; i <= mask; i++) {
+            Stripe stripe = stripes[(home + i) & mask];
+            if (stripe.lock.tryLock()) {
+                try {
+                    return stripe.random.nextLong();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        // Every stripe is busy, queue up on our own
+        Stripe stripe = stripes[home];
+        stripe.lock.lock();
+        try {
+            return stripe.random.nextLong();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReseedingSecureRandom random;
+
+        private Stripe(ReseedingSecureRandom random) {
+            this.random = random;
+        }
+    }
+}
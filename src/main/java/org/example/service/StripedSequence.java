@@ -0,0 +1,86 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids handed out from blocks leased from a {@link SequenceBlockAllocator}, one block per stripe,
+ * so the shared counter is only touched once per block. Threads are spread over the stripes by
+ * thread id; taking an id is a single uncontended increment, and stripes rather than
+ * thread-locals keep blocks from being wasted when every request runs on a new virtual thread.
+ */
+public class StripedSequence {
+
+    private final SequenceBlockAllocator allocator;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param allocator Source of the blocks
+     * @param stripeCount Number of stripes, rounded up to a power of two
+     */
+    public StripedSequence(SequenceBlockAllocator allocator, int stripeCount) {
+        this.allocator = allocator;
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * Four stripes per available processor, rounded up to a power of two
+     */
+    public static int defaultStripeCount() {
+        return 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return The next id; unique, but only ordered within a stripe
+     */
+    public long next() {
+        @SuppressWarnings("deprecation")
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        while (true) {
+            Block block = stripe.block;
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            stripe.replace(block, allocator);
+        }
+    }
+
+    /**
+     * Ids leased for one stripe, {@code [next, end)}
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Block block = new Block(0, 0);
+
+        // Only the first thread to find the block exhausted leases a new one
+        private void replace(Block exhausted, SequenceBlockAllocator allocator) {
+            lock.lock();
+            try {
+                if (block == exhausted) {
+                    long start = allocator.leaseBlock();
+                    block = new Block(start, start + allocator.getBlockSize());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Dedicated number spaces for selected customers, enabled with {@code app.tenants.enabled=true}.
+ * <p>
+ * The tenants file assigns customers to namespaces, one {@code customer_id,PREFIX} per line.
+ * Numbers for a customer with a namespace are the prefix, padded with zeros to 4 characters, and
+ * 12 base-36 digits of a 62-bit id from the namespace's own {@link StripedSequence}, laid out as in
+ * the sequence engine with this node's {@code app.tracking-number.node-id}. Numbers are therefore
+ * unique per namespace and node whatever engine is configured, and a busy tenant never touches
+ * another tenant's counters. Prefixes are 1 to 4 letters starting with {@code I} to {@code Z},
+ * which no plain number starts with.
+ * <p>
+ * With {@code app.tracking-number.checkpoint-file} set, each namespace checkpoints its counter to
+ * a file of its own next to it, named after the file and the prefix (for example
+ * {@code sequence.ckpt.STAR}), so a restart never reissues a tenant number either.
+ * <p>
+ * Tenant numbers have no room for a route code or a check character, so tenants can only be
+ * enabled with the plain layout; startup fails with {@code app.tracking-number.format} route or
+ * checked rather than issue numbers the route and verify endpoints would reject.
+ * <p>
+ * The file is checked for changes every reload interval and replaced as a whole; a file that
+ * cannot be read or parsed leaves the previous namespaces in place. A namespace, and its counter,
+ * lives on across reloads while its prefix is in the file. Lookups parse the customer id in place
+ * and probe a primitive open-addressing table, so they neither split strings nor allocate.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tenants.enabled", havingValue = "true")
+public class TenantNamespaces {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantNamespaces.class);
+
+    /** Characters taken by the zero-padded prefix */
+    public static final int PREFIX_LENGTH = 4;
+
+    private static final int SEQUENCE_LENGTH = TrackingNumberEncoder.LENGTH - PREFIX_LENGTH;
+
+    private final Path file;
+    private final long reloadIntervalNanos;
+    private final int nodeId;
+    private final int blockSize;
+    // Null when app.tracking-number.checkpoint-file is not set
+    private final Path checkpointFile;
+    private final long checkpointLease;
+    private final long checkpointIntervalMillis;
+
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[TrackingNumberEncoder.LENGTH]);
+
+    // Every namespace loaded so far by prefix, so counters survive reloads; guarded by this
+    private final Map<String, Namespace> namespaces = new LinkedHashMap<>();
+    private Consumer<Namespace> namespaceListener = namespace -> {};
+
+    private volatile CustomerNamespaces customerNamespaces;
+
+    private FileTime loadedModifiedTime;
+    private long loadedSize;
+    private final LongAdder reloadFailures = new LongAdder();
+
+    private volatile boolean running;
+    private Thread reloadThread;
+
+    public TenantNamespaces(String file, long reloadIntervalMillis, int nodeId, int blockSize, String format) throws IOException {
+        this(file, reloadIntervalMillis, nodeId, blockSize, format, "", 0, 0);
+    }
+
+    @Autowired
+    public TenantNamespaces(@Value("${app.tenants.file:./config/tenants.csv}") String file,
+                            @Value("${app.tenants.reload-interval-ms:5000}") long reloadIntervalMillis,
+                            @Value("${app.tracking-number.node-id:0}") int nodeId,
+                            @Value("${app.tracking-number.block-size:1024}") int blockSize,
+                            @Value("${app.tracking-number.format:plain}") String format,
+                            @Value("${app.tracking-number.checkpoint-file:}") String checkpointFile,
+                            @Value("${app.tracking-number.checkpoint-lease:1048576}") long checkpointLease,
+                            @Value("${app.tracking-number.checkpoint-interval-ms:100}") long checkpointIntervalMillis)
+            throws IOException {
+        if (!"plain".equals(format)) {
+            throw new IllegalStateException("Tenant namespaces need app.tracking-number.format=plain, "
+                                            + "their numbers carry no route or check character: " + format);
+        }
+        if (nodeId < 0 || nodeId > SequenceBlockAllocator.MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + SequenceBlockAllocator.MAX_NODE_ID + ": " + nodeId);
+        }
+        this.file = Path.of(file);
+        this.reloadIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reloadIntervalMillis);
+        this.nodeId = nodeId;
+        this.blockSize = blockSize;
+        this.checkpointFile = checkpointFile.isBlank() ? null : Path.of(checkpointFile);
+        this.checkpointLease = checkpointLease;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        // A broken file at startup fails fast rather than issuing numbers outside the namespaces
+        reloadIfChanged();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        reloadThread = new Thread(this::reloadLoop, "tenant-namespaces-reload");
+        reloadThread.setDaemon(true);
+        reloadThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reloadThread != null) {
+            LockSupport.unpark(reloadThread);
+        }
+        synchronized (this) {
+            namespaces.values().forEach(Namespace::close);
+        }
+    }
+
+    /**
+     * Generate a number in the customer's namespace
+     * @param customerId Raw {@code customer_id}, may be null
+     * @return The number, or null if the customer has no namespace
+     */
+    public String nextTrackingNumber(CharSequence customerId) {
+        Namespace namespace = namespaceOf(customerId);
+        return namespace != null ? namespace.nextTrackingNumber(buffers.get()) : null;
+    }
+
+    /**
+     * Generate a number in a namespace returned by {@link #namespaceOf}
+     */
+    public String nextTrackingNumberIn(Namespace namespace) {
+        return namespace.nextTrackingNumber(buffers.get());
+    }
+
+    /**
+     * @param customerId Raw {@code customer_id}, may be null
+     * @return The customer's namespace, or null if it has none
+     */
+    public Namespace namespaceOf(CharSequence customerId) {
+        CustomerNamespaces current = customerNamespaces;
+        if (customerId == null || current.size == 0 || !QuotaPlan.isUuid(customerId)) {
+            return null;
+        }
+        return current.get(QuotaPlan.uuidHigh(customerId), QuotaPlan.uuidLow(customerId));
+    }
+
+    /**
+     * Called for every namespace loaded so far and every namespace a later reload adds
+     */
+    public synchronized void setNamespaceListener(Consumer<Namespace> namespaceListener) {
+        this.namespaceListener = namespaceListener;
+        namespaces.values().forEach(namespaceListener);
+    }
+
+    /**
+     * @return Every namespace loaded since startup, including ones a reload has since dropped
+     */
+    public synchronized Collection<Namespace> getNamespaces() {
+        return Collections.unmodifiableList(new ArrayList<>(namespaces.values()));
+    }
+
+    public int getCustomerCount() {
+        return customerNamespaces.size;
+    }
+
+    public long getReloadFailureCount() {
+        return reloadFailures.sum();
+    }
+
+    /**
+     * Load the file if its modification time or size changed since the last load
+     * @return true if the file was loaded
+     * @throws IOException If the file cannot be read; the current namespaces stay in place
+     * @throws IllegalArgumentException If a line is malformed; the current namespaces stay in place
+     */
+    synchronized boolean reloadIfChanged() throws IOException {
+        FileTime modifiedTime = Files.getLastModifiedTime(file);
+        long size = Files.size(file);
+        if (modifiedTime.equals(loadedModifiedTime) && size == loadedSize) {
+            return false;
+        }
+
+        Map<String, String> prefixes = readPrefixes(Files.readAllLines(file, StandardCharsets.UTF_8));
+        Map<String, Namespace> added = new HashMap<>();
+        CustomerNamespaces loaded = new CustomerNamespaces(prefixes.size());
+        try {
+            prefixes.forEach((customerId, prefix) -> {
+                Namespace namespace = namespaces.get(prefix);
+                if (namespace == null) {
+                    namespace = added.computeIfAbsent(prefix, this::newNamespace);
+                }
+                loaded.put(QuotaPlan.uuidHigh(customerId), QuotaPlan.uuidLow(customerId), namespace);
+            });
+        } catch (RuntimeException e) {
+            // A checkpoint that cannot be opened; the namespaces opened so far are not kept
+            added.values().forEach(Namespace::close);
+            throw e;
+        }
+
+        namespaces.putAll(added);
+        customerNamespaces = loaded;
+        loadedModifiedTime = modifiedTime;
+        loadedSize = size;
+        added.values().forEach(namespaceListener);
+        logger.info("Loaded {} customers in {} tenant namespaces from {}",
+                    loaded.size, prefixes.values().stream().distinct().count(), file);
+        return true;
+    }
+
+    private Namespace newNamespace(String prefix) {
+        SequenceCheckpoint checkpoint = null;
+        if (checkpointFile != null) {
+            checkpoint = new SequenceCheckpoint(checkpointFile.resolveSibling(checkpointFile.getFileName() + "." + prefix),
+                                                nodeId, checkpointLease, checkpointIntervalMillis);
+            checkpoint.start();
+        }
+        return new Namespace(prefix, nodeId, blockSize, checkpoint);
+    }
+
+    private void reloadLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, reloadIntervalNanos);
+            if (!running) {
+                break;
+            }
+            try {
+                reloadIfChanged();
+            } catch (IOException | RuntimeException e) {
+                reloadFailures.increment();
+                logger.warn("Could not reload tenant namespaces from {}, keeping the previous ones", file, e);
+            }
+        }
+    }
+
+    // Prefix per customer id, in file order
+    private static Map<String, String> readPrefixes(List<String> lines) {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Tenant namespace line must be customer_id,prefix: " + line);
+            }
+            String customerId = line.substring(0, comma).trim();
+            String prefix = line.substring(comma + 1).trim();
+            if (!QuotaPlan.isUuid(customerId)) {
+                throw new IllegalArgumentException("Customer id for tenant namespace must be a UUID: " + customerId);
+            }
+            if (!isPrefix(prefix)) {
+                throw new IllegalArgumentException(
+                    "Tenant namespace prefix must be 1-4 upper case letters starting with I-Z: " + prefix);
+            }
+            if (prefixes.put(customerId, prefix) != null) {
+                throw new IllegalArgumentException("Customer is assigned to more than one tenant namespace: " + customerId);
+            }
+        }
+        return prefixes;
+    }
+
+    // Letters only, so zero padding cannot make two prefixes alike
+    private static boolean isPrefix(String prefix) {
+        if (prefix.isEmpty() || prefix.length() > PREFIX_LENGTH || prefix.charAt(0) < 'I' || prefix.charAt(0) > 'Z') {
+            return false;
+        }
+        for (int i = 1; i < prefix.length(); i++) {
+            if (prefix.charAt(i) < 'A' || prefix.charAt(i) > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number space of one tenant: its prefix and its own striped counter, checkpointed if configured
+     */
+    public static final class Namespace {
+
+        private final String prefix;
+        private final byte[] paddedPrefix = new byte[PREFIX_LENGTH];
+        private final StripedSequence sequence;
+        private final LongAdder generated = new LongAdder();
+        // Null when the counter is not checkpointed
+        private final SequenceCheckpoint checkpoint;
+
+        private Namespace(String prefix, int nodeId, int blockSize, SequenceCheckpoint checkpoint) {
+            this.prefix = prefix;
+            for (int i = 0; i < PREFIX_LENGTH; i++) {
+                paddedPrefix[i] = (byte) (i < prefix.length() ? prefix.charAt(i) : '0');
+            }
+            this.checkpoint = checkpoint;
+            this.sequence = new StripedSequence(new SequenceBlockAllocator(nodeId, blockSize, checkpoint),
+                                                StripedSequence.defaultStripeCount());
+        }
+
+        private void close() {
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+
+        private String nextTrackingNumber(byte[] buffer) {
+            long id = sequence.next();
+            System.arraycopy(paddedPrefix, 0, buffer, 0, PREFIX_LENGTH);
+            // 36^12 is above 2^62, so every id fits
+            TrackingNumberEncoder.encodeBase36(id, buffer, PREFIX_LENGTH, SEQUENCE_LENGTH);
+            generated.increment();
+            return TrackingNumberEncoder.toString(buffer, 0, TrackingNumberEncoder.LENGTH);
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public long getGeneratedCount() {
+            return generated.sum();
+        }
+    }
+
+    /**
+     * Customer id to namespace, as parallel arrays probed linearly; null marks an empty slot.
+     * Read-only once published.
+     */
+    private static final class CustomerNamespaces {
+        private final long[] highs;
+        private final long[] lows;
+        private final Namespace[] namespaces;
+        private final int mask;
+        private int size;
+
+        private CustomerNamespaces(int expected) {
+            int length = Integer.highestOneBit(Math.max(2, expected * 2) - 1) << 1;
+            this.highs = new long[length];
+            this.lows = new long[length];
+            this.namespaces = new Namespace[length];
+            this.mask = length - 1;
+        }
+
+        private void put(long high, long low, Namespace namespace) {
+            int slot = (int) Hashes.mix(high ^ low * 31) & mask;
+            while (namespaces[slot] != null && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            if (namespaces[slot] == null) {
+                size++;
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            namespaces[slot] = namespace;
+        }
+
+        private Namespace get(long high, long low) {
+            int slot = (int) Hashes.mix(high ^ low * 31) & mask;
+            while (namespaces[slot] != null) {
+                if (highs[slot] == high && lows[slot] == low) {
+                    return namespaces[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service;
+
+import java.util.stream.Stream;
+
+/**
+ * Gives customers with a {@link TenantNamespaces} namespace numbers from it, and everyone else
+ * numbers from the configured engine. Enabled with {@code app.tenants.enabled=true}, which makes it
+ * part of the service the controllers use (see {@code TrackingNumberServiceConfig}).
+ */
+public class TenantRoutingTrackingNumberService implements TrackingNumberService {
+
+    private final TrackingNumberService delegate;
+    private final TenantNamespaces tenantNamespaces;
+    private final GenerationMetrics generationMetrics;
+
+    /**
+     * @param delegate Service for customers without a namespace
+     * @param tenantNamespaces Namespaces of the other customers
+     * @param generationMetrics Metrics tenant numbers are recorded in, as the engines record theirs
+     */
+    public TenantRoutingTrackingNumberService(TrackingNumberService delegate, TenantNamespaces tenantNamespaces,
+                                              GenerationMetrics generationMetrics) {
+        this.delegate = delegate;
+        this.tenantNamespaces = tenantNamespaces;
+        this.generationMetrics = generationMetrics;
+    }
+
+    @Override
+    public String generateTrackingNumber(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId) {
+        TenantNamespaces.Namespace namespace = tenantNamespaces.namespaceOf(customerId);
+        if (namespace == null) {
+            return delegate.generateTrackingNumber(originCountryId, destinationCountryId, weight, customerId);
+        }
+        return generate(namespace, originCountryId, destinationCountryId);
+    }
+
+    @Override
+    public Stream<String> generateBatch(String originCountryId, String destinationCountryId,
+                                        double weight, String customerId, int count) {
+        // Looked up once, so a reload during the batch does not split it across namespaces
+        TenantNamespaces.Namespace namespace = tenantNamespaces.namespaceOf(customerId);
+        if (namespace == null) {
+            return delegate.generateBatch(originCountryId, destinationCountryId, weight, customerId, count);
+        }
+        return Stream.generate(() -> generate(namespace, originCountryId, destinationCountryId)).limit(count);
+    }
+
+    private String generate(TenantNamespaces.Namespace namespace, String originCountryId, String destinationCountryId) {
+        long start = System.nanoTime();
+        try {
+            String trackingNumber = tenantNamespaces.nextTrackingNumberIn(namespace);
+            generationMetrics.recordGeneration(originCountryId, destinationCountryId, System.nanoTime() - start);
+            return trackingNumber;
+        } catch (RuntimeException e) {
+            generationMetrics.recordError();
+            throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
+        }
+    }
+}
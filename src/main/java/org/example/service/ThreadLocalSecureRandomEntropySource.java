@@ -0,0 +1,38 @@
+package org.example.service;
+
+import java.security.SecureRandom;
+
+/**
+ * Entropy source with one {@link SecureRandom} per thread, so request threads never contend on
+ * a shared generator lock. Each instance seeds itself from the OS when it is created and is
+ * reseeded after a configurable number of draws.
+ * <p>
+ * Meant for a fixed pool of platform threads; with a virtual thread per request every request
+ * would pay for seeding a new generator, use {@link StripedSecureRandomEntropySource} instead.
+ */
+public class ThreadLocalSecureRandomEntropySource implements EntropySource {
+
+    private final String algorithm;
+
+    private final ThreadLocal<ReseedingSecureRandom> generators;
+
+    /**
+     * @param algorithm SecureRandom algorithm, e.g. DRBG, SHA1PRNG or NativePRNG
+     * @param reseedInterval Draws per thread between reseeds, 0 to never reseed
+     */
+    public ThreadLocalSecureRandomEntropySource(String algorithm, long reseedInterval) {
+        this.algorithm = algorithm;
+        this.generators = ThreadLocal.withInitial(() -> new ReseedingSecureRandom(algorithm, reseedInterval));
+        // Fail at startup rather than on the first request
+        new ReseedingSecureRandom(algorithm, reseedInterval);
+    }
+
+    @Override
+    public long nextLong() {
+        return generators.get().nextLong();
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+}
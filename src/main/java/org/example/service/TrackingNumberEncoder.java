@@ -0,0 +1,79 @@
+package org.example.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table-driven encoder that writes tracking numbers straight into a caller supplied buffer.
+ * No intermediate Strings are created; the only allocation is the final String.
+ */
+public final class TrackingNumberEncoder {
+
+    /** Length of an encoded tracking number */
+    public static final int LENGTH = 16;
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    // Two output characters for every possible byte value, so one lookup encodes a whole byte
+    private static final byte[] HEX_PAIRS = new byte[512];
+
+    private static final byte[] BASE36_DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    // Two output characters for every value below 36^2
+    private static final byte[] BASE36_PAIRS = new byte[36 * 36 * 2];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[i << 1] = HEX_DIGITS[i >>> 4];
+            HEX_PAIRS[(i << 1) + 1] = HEX_DIGITS[i & 0x0F];
+        }
+        for (int i = 0; i < 36 * 36; i++) {
+            BASE36_PAIRS[i << 1] = BASE36_DIGITS[i / 36];
+            BASE36_PAIRS[(i << 1) + 1] = BASE36_DIGITS[i % 36];
+        }
+    }
+
+    private TrackingNumberEncoder() {
+    }
+
+    /**
+     * Write the 64-bit value as 16 uppercase hex characters
+     * @param value Value to encode
+     * @param dst Destination buffer, at least {@code offset + 16} bytes long
+     * @param offset Position of the first character
+     */
+    public static void encodeHex(long value, byte[] dst, int offset) {
+        for (int shift = 56, pos = offset; shift >= 0; shift -= 8, pos += 2) {
+            int pair = (int) (value >>> shift) & 0xFF;
+            dst[pos] = HEX_PAIRS[pair << 1];
+            dst[pos + 1] = HEX_PAIRS[(pair << 1) + 1];
+        }
+    }
+
+    /**
+     * Write a non-negative value as zero-padded uppercase base-36 digits, two digits per lookup
+     * @param value Value to encode, below 36^length
+     * @param dst Destination buffer, at least {@code offset + length} bytes long
+     * @param offset Position of the first character
+     * @param length Number of digits, even
+     */
+    public static void encodeBase36(long value, byte[] dst, int offset, int length) {
+        for (int pos = offset + length - 2; pos >= offset; pos -= 2) {
+            int pair = (int) (value % (36 * 36));
+            value /= 36 * 36;
+            dst[pos] = BASE36_PAIRS[pair << 1];
+            dst[pos + 1] = BASE36_PAIRS[(pair << 1) + 1];
+        }
+    }
+
+    /**
+     * Create the String for an already encoded tracking number
+     * @param src Buffer holding ASCII characters
+     * @param offset Position of the first character
+     * @param length Number of characters
+     * @return Tracking number
+     */
+    public static String toString(byte[] src, int offset, int length) {
+        // ISO-8859-1 decoding is a plain copy into a compact (Latin-1) String
+        return new String(src, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
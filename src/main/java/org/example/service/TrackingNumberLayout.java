@@ -0,0 +1,20 @@
+package org.example.service;
+
+/**
+ * Alternative to the plain 16 hex digit layout, selected with {@code app.tracking-number.format}.
+ * The engines write their 64-bit value through the layout bean when one is present.
+ */
+public interface TrackingNumberLayout {
+
+    /**
+     * Write a tracking number for the engine's value
+     * @param originCountryId Origin country code
+     * @param destinationCountryId Destination country code
+     * @param value Engine value
+     * @param dst Destination buffer, at least {@code offset + 16} bytes long
+     * @param offset Position of the first character
+     * @return false, with nothing written, if the layout cannot represent this number; the engine
+     *         then falls back to the plain layout
+     */
+    boolean encode(String originCountryId, String destinationCountryId, long value, byte[] dst, int offset);
+}
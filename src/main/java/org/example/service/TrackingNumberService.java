@@ -1,10 +1,15 @@
 package org.example.service;
 
+import java.util.stream.Stream;
+
 /**
  * Service interface for generating unique tracking numbers
  */
 public interface TrackingNumberService {
 
+    /** Qualifier of the generation engines, the services the decorators delegate to */
+    String ENGINE = "engine";
+
     /**
      * Generate a unique tracking number based on shipment parameters
      * @param originCountryId Origin country code in ISO 3166-1 alpha-2 format
@@ -15,4 +20,20 @@ public interface TrackingNumberService {
      */
     String generateTrackingNumber(String originCountryId, String destinationCountryId,
                                  double weight, String customerId);
+
+    /**
+     * Generate a batch of unique tracking numbers for one shipment route and customer.
+     * The stream is lazy, so numbers are only generated as they are consumed.
+     * @param originCountryId Origin country code in ISO 3166-1 alpha-2 format
+     * @param destinationCountryId Destination country code in ISO 3166-1 alpha-2 format
+     * @param weight Package weight in kilograms
+     * @param customerId Customer UUID
+     * @param count Number of tracking numbers to generate
+     * @return Stream of {@code count} unique tracking numbers
+     */
+    default Stream<String> generateBatch(String originCountryId, String destinationCountryId,
+                                         double weight, String customerId, int count) {
+        return Stream.generate(() -> generateTrackingNumber(originCountryId, destinationCountryId, weight, customerId))
+                .limit(count);
+    }
 }
\ No newline at end of file
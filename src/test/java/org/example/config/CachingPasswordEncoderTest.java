@@ -0,0 +1,89 @@
+package org.example.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingPasswordEncoderTest {
+
+    private static final String HASH = "$2a$10$abcdefghijklmnopqrstuv";
+
+    private PasswordEncoder delegate;
+    private CachingPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(PasswordEncoder.class);
+        when(delegate.matches(any(), anyString())).thenAnswer(
+            invocation -> "secret".contentEquals((CharSequence) invocation.getArgument(0)));
+        encoder = new CachingPasswordEncoder(delegate, 100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.stop();
+    }
+
+    @Test
+    void matches_RepeatedCorrectPassword_ShouldVerifyOnce() {
+        assertTrue(encoder.matches("secret", HASH));
+        assertTrue(encoder.matches("secret", HASH));
+        assertTrue(encoder.matches("secret", HASH));
+
+        verify(delegate, times(1)).matches("secret", HASH);
+        assertEquals(2, encoder.getHits());
+        assertEquals(1, encoder.getMisses());
+        assertEquals(1, encoder.size());
+    }
+
+    @Test
+    void matches_WrongPassword_ShouldNeverBeCached() {
+        assertTrue(encoder.matches("secret", HASH));
+
+        assertFalse(encoder.matches("guess", HASH));
+        assertFalse(encoder.matches("guess", HASH));
+
+        verify(delegate, times(2)).matches("guess", HASH);
+        assertEquals(0, encoder.getHits());
+    }
+
+    @Test
+    void matches_AfterPasswordChange_ShouldVerifyAgainstNewHash() {
+        assertTrue(encoder.matches("secret", HASH));
+
+        assertTrue(encoder.matches("secret", HASH + "x"));
+
+        verify(delegate).matches("secret", HASH + "x");
+        assertEquals(2, encoder.getMisses());
+    }
+
+    @Test
+    void matches_AfterInvalidateAll_ShouldVerifyAgain() {
+        assertTrue(encoder.matches("secret", HASH));
+
+        encoder.invalidateAll();
+        assertTrue(encoder.matches("secret", HASH));
+        assertTrue(encoder.matches("secret", HASH));
+
+        verify(delegate, times(2)).matches("secret", HASH);
+        assertEquals(1, encoder.getHits());
+    }
+
+    @Test
+    void matches_AfterTtl_ShouldVerifyAgain() throws InterruptedException {
+        CachingPasswordEncoder shortLived = new CachingPasswordEncoder(delegate, 100, 20);
+        assertTrue(shortLived.matches("secret", HASH));
+
+        Thread.sleep(50);
+        assertTrue(shortLived.matches("secret", HASH));
+
+        verify(delegate, times(2)).matches("secret", HASH);
+        assertEquals(0, shortLived.getHits());
+    }
+}
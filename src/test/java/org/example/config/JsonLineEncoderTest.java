@@ -0,0 +1,90 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.service.LogEvents;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.MarkerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLineEncoderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = context.getLogger("json-line-encoder-test");
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void encode_ShouldWriteOneJsonLinePerEvent() throws Exception {
+        JsonLineEncoder encoder = new JsonLineEncoder();
+        MDC.put("correlationId", "abc-123");
+        LoggingEvent event;
+        try {
+            event = new LoggingEvent(Logger.class.getName(), logger, Level.WARN,
+                "Quote \" backslash \\ newline \n tab \t for {}", new IllegalStateException("boom"), new Object[] {"MY"});
+            // Captured by the appender on the logging thread
+            event.getMDCPropertyMap();
+        } finally {
+            MDC.remove("correlationId");
+        }
+
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+        Map<?, ?> json = objectMapper.readValue(line, Map.class);
+
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+        assertEquals("WARN", json.get("level"));
+        assertEquals(logger.getName(), json.get("logger"));
+        assertEquals("abc-123", json.get("correlationId"));
+        assertEquals("Quote \" backslash \\ newline \n tab \t for MY", json.get("message"));
+        assertTrue(((String) json.get("exception")).contains("IllegalStateException: boom"));
+        assertEquals(event.getTimeStamp(), java.time.Instant.parse((String) json.get("timestamp")).toEpochMilli());
+    }
+
+    @Test
+    void encode_WithArgumentNames_ShouldWriteArgumentsAsFields() throws Exception {
+        JsonLineEncoder encoder = new JsonLineEncoder();
+        encoder.setArgumentNames("tracking_number, weight, customer_id");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+            "Issued {} weight {} customer {}", null, new Object[] {"0123456789ABCDEF", 1.234, null});
+
+        Map<?, ?> json = objectMapper.readValue(encoder.encode(event), Map.class);
+
+        assertEquals("0123456789ABCDEF", json.get("tracking_number"));
+        assertEquals(1.234, json.get("weight"));
+        assertEquals("null", json.get("customer_id"));
+        assertFalse(json.containsKey("message"));
+    }
+
+    @Test
+    void samplingTurboFilter_ShouldSampleOnlyConfiguredMarkers() {
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        SamplingTurboFilter.Sample sample = new SamplingTurboFilter.Sample();
+        sample.setMarker(LogEvents.GENERATION.getName());
+        sample.setOneIn(10);
+        filter.addSample(sample);
+        filter.start();
+
+        int passed = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.decide(LogEvents.GENERATION, logger, Level.INFO, "Generating", null, null) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+
+        assertTrue(passed > 9_000 && passed < 11_000, "Passed " + passed);
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "Generating", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(LogEvents.GENERATION, logger, Level.INFO, null, null, null));
+        assertEquals(FilterReply.NEUTRAL,
+            filter.decide(MarkerFactory.getMarker("OTHER"), logger, Level.INFO, "Other", null, null));
+    }
+}
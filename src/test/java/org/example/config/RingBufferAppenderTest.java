@@ -0,0 +1,173 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferAppenderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    @Test
+    void append_ShouldDeliverEventsInOrderWithCallerMdc() throws Exception {
+        ListAppender<ILoggingEvent> target = startedListAppender();
+        RingBufferAppender appender = ringBufferAppender(16, false, target);
+        Logger logger = logger(appender);
+
+        MDC.put("correlationId", "abc-123");
+        try {
+            for (int i = 0; i < 100; i++) {
+                logger.info("event {}", i);
+            }
+        } finally {
+            MDC.remove("correlationId");
+        }
+        appender.stop();
+
+        assertEquals(100, target.list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("event " + i, target.list.get(i).getFormattedMessage());
+            assertEquals("abc-123", target.list.get(i).getMDCPropertyMap().get("correlationId"));
+            assertEquals(Thread.currentThread().getName(), target.list.get(i).getThreadName());
+        }
+    }
+
+    @Test
+    void append_WhenFullAndNeverBlock_ShouldDropAndReport() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ListAppender<ILoggingEvent> delivered = new ListAppender<>();
+        AppenderBase<ILoggingEvent> blocked = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.list.add(event);
+            }
+        };
+        blocked.setContext(context);
+        blocked.start();
+        RingBufferAppender appender = ringBufferAppender(4, true, blocked);
+        Logger logger = logger(appender);
+
+        // One event held by the blocked worker, four buffered, the rest dropped
+        for (int i = 0; i < 20; i++) {
+            logger.info("event {}", i);
+        }
+        release.countDown();
+        appender.stop();
+
+        long dropped = appender.getDroppedCount();
+        assertTrue(dropped >= 15 && dropped < 20, "Dropped " + dropped);
+        ILoggingEvent report = delivered.list.get(delivered.list.size() - 1);
+        assertEquals(Level.WARN, report.getLevel());
+        assertTrue(report.getFormattedMessage().contains("dropped " + dropped + " events"), report.getFormattedMessage());
+    }
+
+    @Test
+    void append_Concurrently_WithoutNeverBlock_ShouldLoseNothing() throws Exception {
+        ListAppender<ILoggingEvent> target = startedListAppender();
+        RingBufferAppender appender = ringBufferAppender(64, false, target);
+        Logger logger = logger(appender);
+        int numberOfThreads = 8;
+        int eventsPerThread = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        CompletableFuture<?>[] futures = IntStream.range(0, numberOfThreads)
+            .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < eventsPerThread; i++) {
+                    logger.info("thread {} event {}", t, i);
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+        appender.stop();
+
+        assertEquals(0, appender.getDroppedCount());
+        List<ILoggingEvent> events = target.list;
+        assertEquals(numberOfThreads * eventsPerThread, events.size());
+        // Each thread's events keep their order
+        int[] next = new int[numberOfThreads];
+        for (ILoggingEvent event : events) {
+            int thread = (Integer) event.getArgumentArray()[0];
+            assertEquals(next[thread]++, event.getArgumentArray()[1]);
+        }
+    }
+
+    @Test
+    void append_ThenIdle_ShouldFlushBufferedFileAppender(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("audit.log");
+        FileAppender<ILoggingEvent> target = new FileAppender<>();
+        target.setContext(context);
+        target.setFile(file.toString());
+        target.setImmediateFlush(false);
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+        target.setEncoder(encoder);
+        target.start();
+        RingBufferAppender appender = ringBufferAppender(16, false, target);
+        Logger logger = logger(appender);
+
+        logger.info("issued {}", "0123456789ABCDEF");
+
+        // Written without stopping the appender, which would flush on close
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.size(file) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("issued 0123456789ABCDEF" + System.lineSeparator(), Files.readString(file));
+        appender.stop();
+    }
+
+    private ListAppender<ILoggingEvent> startedListAppender() {
+        ListAppender<ILoggingEvent> target = new ListAppender<>();
+        target.setContext(context);
+        target.start();
+        return target;
+    }
+
+    private RingBufferAppender ringBufferAppender(int capacity, boolean neverBlock,
+                                                  ch.qos.logback.core.Appender<ILoggingEvent> target) {
+        RingBufferAppender appender = new RingBufferAppender();
+        appender.setContext(context);
+        appender.setName("test");
+        appender.setCapacity(capacity);
+        appender.setNeverBlock(neverBlock);
+        appender.addAppender(target);
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(RingBufferAppender appender) {
+        Logger logger = context.getLogger("ring-buffer-test");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
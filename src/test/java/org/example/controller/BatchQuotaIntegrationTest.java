@@ -0,0 +1,44 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The batch quota the README and application.properties suggest for lifting the default cap
+@SpringBootTest(properties = {
+    "app.rate-limit.quotas.tiers.default.batch=100000/1m"
+})
+@AutoConfigureMockMvc
+class BatchQuotaIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_WithDefaultTierBatchQuota_ShouldIssueMoreThanThePerMinuteLimit() throws Exception {
+        mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5000))
+                .andExpect(jsonPath("$.tracking_numbers.length()").value(5000));
+
+        // Single numbers keep the per-minute limit
+        mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.controller;
+
+import jakarta.validation.Validation;
+import org.example.service.TrackingNumberGenerationException;
+import org.example.service.TrackingNumberService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BinaryTrackingNumberServerTest {
+
+    private static final String CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    private final TrackingNumberService trackingNumberService = mock(TrackingNumberService.class);
+
+    private BinaryTrackingNumberServer server;
+    private Socket socket;
+    private DataInputStream in;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new BinaryTrackingNumberServer("127.0.0.1", 0, 1);
+        ReflectionTestUtils.setField(server, "trackingNumberService", trackingNumberService);
+        ReflectionTestUtils.setField(server, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        server.start();
+        socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(10_000);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        server.stop();
+    }
+
+    @Test
+    void pipelinedRequests_ShouldBeAnsweredInOrder() throws IOException {
+        when(trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, CUSTOMER))
+            .thenReturn("0123456789ABCDEF", "A1B2C3");
+        when(trackingNumberService.generateBatch("MY", "ID", 1.234, CUSTOMER, 3))
+            .thenReturn(Stream.of("0000000000000001", "0000000000000002", "0000000000000003"));
+
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        writeRequest(requests, 1, "MY", "ID", 1.234, 1);
+        writeRequest(requests, 2, "MY", "ID", 1.234, 1);
+        writeRequest(requests, 3, "MY", "ID", 1.234, 3);
+        socket.getOutputStream().write(requests.toByteArray());
+
+        assertEquals(List.of("0123456789ABCDEF"), readNumbers(1));
+        assertEquals(List.of("A1B2C3"), readNumbers(2));
+        assertEquals(List.of("0000000000000001", "0000000000000002", "0000000000000003"), readNumbers(3));
+    }
+
+    @Test
+    void invalidRequest_ShouldReportValidationMessages() throws IOException {
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        writeRequest(requests, 7, "my", "ID", -1.0, 1);
+        socket.getOutputStream().write(requests.toByteArray());
+
+        assertEquals(7, in.readInt());
+        assertEquals(BinaryTrackingNumberServer.STATUS_INVALID_REQUEST, in.readByte());
+        String message = readMessage();
+        assertTrue(message.contains("Origin country code must be in ISO 3166-1 alpha-2 format"), message);
+        assertTrue(message.contains("Weight must be positive"), message);
+        verifyNoInteractions(trackingNumberService);
+    }
+
+    @Test
+    void generationFailure_ShouldReportStatusAndKeepConnection() throws IOException {
+        when(trackingNumberService.generateTrackingNumber(anyString(), anyString(), anyDouble(), anyString()))
+            .thenThrow(new TrackingNumberGenerationException("Failed"))
+            .thenReturn("0123456789ABCDEF");
+
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        writeRequest(requests, 1, "MY", "ID", 1.234, 1);
+        writeRequest(requests, 2, "MY", "ID", 1.234, 1);
+        socket.getOutputStream().write(requests.toByteArray());
+
+        assertEquals(1, in.readInt());
+        assertEquals(BinaryTrackingNumberServer.STATUS_GENERATION_FAILED, in.readByte());
+        assertEquals("Unable to generate tracking number. Please try again.", readMessage());
+        assertEquals(List.of("0123456789ABCDEF"), readNumbers(2));
+    }
+
+    @Test
+    void largeBatches_ShouldBeWrittenAsTheClientReads() throws IOException {
+        int count = TrackingNumberController.MAX_BATCH_SIZE;
+        when(trackingNumberService.generateBatch("MY", "ID", 1.234, CUSTOMER, count))
+            .thenAnswer(invocation -> Stream.generate(() -> "0123456789ABCDEF").limit(count));
+
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        for (int id = 0; id < 4; id++) {
+            writeRequest(requests, id, "MY", "ID", 1.234, count);
+        }
+        socket.getOutputStream().write(requests.toByteArray());
+
+        for (int id = 0; id < 4; id++) {
+            List<String> numbers = readNumbers(id);
+            assertEquals(count, numbers.size());
+            assertEquals("0123456789ABCDEF", numbers.get(count - 1));
+        }
+    }
+
+    @Test
+    void unknownVersion_ShouldCloseConnection() throws IOException {
+        byte[] request = new byte[BinaryTrackingNumberServer.REQUEST_SIZE];
+        request[0] = 2;
+        socket.getOutputStream().write(request);
+
+        assertEquals(-1, in.read());
+    }
+
+    private static void writeRequest(ByteArrayOutputStream requests, int requestId, String origin, String destination,
+                                     double weight, int count) throws IOException {
+        DataOutputStream out = new DataOutputStream(requests);
+        UUID customer = UUID.fromString(CUSTOMER);
+        out.writeByte(BinaryTrackingNumberServer.VERSION);
+        out.writeInt(requestId);
+        out.write(origin.getBytes(StandardCharsets.US_ASCII));
+        out.write(destination.getBytes(StandardCharsets.US_ASCII));
+        out.writeDouble(weight);
+        out.writeLong(customer.getMostSignificantBits());
+        out.writeLong(customer.getLeastSignificantBits());
+        out.writeInt(count);
+    }
+
+    private List<String> readNumbers(int expectedRequestId) throws IOException {
+        assertEquals(expectedRequestId, in.readInt());
+        assertEquals(BinaryTrackingNumberServer.STATUS_OK, in.readByte());
+        long createdAt = in.readLong();
+        assertTrue(Math.abs(System.currentTimeMillis() - createdAt) < 60_000);
+        int count = in.readInt();
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] number = new byte[in.readUnsignedByte()];
+            in.readFully(number);
+            numbers.add(new String(number, StandardCharsets.US_ASCII));
+        }
+        return numbers;
+    }
+
+    private String readMessage() throws IOException {
+        byte[] message = new byte[in.readUnsignedShort()];
+        in.readFully(message);
+        return new String(message, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.tracking-number.format=checked")
+@AutoConfigureMockMvc
+class CheckedFormatIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser
+    void verifyTrackingNumbers_AsText_ShouldReportMistypedNumbers() throws Exception {
+        String trackingNumber = nextTrackingNumber();
+        String mistyped = trackingNumber.substring(0, 15) + (trackingNumber.charAt(15) == 'A' ? 'B' : 'A');
+
+        mockMvc.perform(post("/tracking-numbers/verify")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(trackingNumber + "\n" + mistyped + "\n" + trackingNumber + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.valid").value(2))
+                .andExpect(jsonPath("$.invalid_indexes.length()").value(1))
+                .andExpect(jsonPath("$.invalid_indexes[0]").value(1));
+    }
+
+    @Test
+    @WithMockUser
+    void verifyTrackingNumbers_AsJson_ShouldReportMistypedNumbers() throws Exception {
+        String trackingNumber = nextTrackingNumber();
+
+        mockMvc.perform(post("/tracking-numbers/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of("0F1E2D3C4B5A6978", trackingNumber))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.valid").value(1))
+                .andExpect(jsonPath("$.invalid_indexes.length()").value(1))
+                .andExpect(jsonPath("$.invalid_indexes[0]").value(0));
+    }
+
+    @Test
+    @WithMockUser
+    void verifyTrackingNumbers_OverBatchLimit_ShouldReturnPayloadTooLarge() throws Exception {
+        String body = "000000000000000N\n".repeat(TrackingNumberController.MAX_BATCH_SIZE + 1);
+
+        mockMvc.perform(post("/tracking-numbers/verify")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(body))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("TOO_MANY_TRACKING_NUMBERS"));
+    }
+
+    @Test
+    @WithMockUser
+    void verifyTrackingNumbers_OverBodyLimit_ShouldReturnPayloadTooLargeBeforeParsing() throws Exception {
+        // Empty lines count no numbers, so only the size of the body can stop this one
+        byte[] body = new byte[TrackingNumberController.MAX_VERIFY_BODY_BYTES + 1];
+        Arrays.fill(body, (byte) '\n');
+
+        mockMvc.perform(post("/tracking-numbers/verify")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(body))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("TOO_MANY_TRACKING_NUMBERS"));
+
+        String json = objectMapper.writeValueAsString(
+            Collections.nCopies(TrackingNumberController.MAX_BATCH_SIZE + 1, "000000000000000N"));
+        mockMvc.perform(post("/tracking-numbers/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("TOO_MANY_TRACKING_NUMBERS"));
+    }
+
+    private String nextTrackingNumber() throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Object> issued = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        String trackingNumber = (String) issued.get("tracking_number");
+        assertTrue(trackingNumber.matches("00[0-9A-Z]{14}"), trackingNumber);
+        return trackingNumber;
+    }
+}
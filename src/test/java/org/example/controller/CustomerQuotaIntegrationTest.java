@@ -0,0 +1,51 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "app.rate-limit.requests-per-minute=2",
+    "app.rate-limit.quotas.tiers.gold.all=1000/1m",
+    "app.rate-limit.quotas.customers." + CustomerQuotaIntegrationTest.GOLD_CUSTOMER + "=gold",
+    "app.rate-limit.quotas.customer-principals." + CustomerQuotaIntegrationTest.GOLD_CUSTOMER + "=developer"
+})
+@AutoConfigureMockMvc
+class CustomerQuotaIntegrationTest {
+
+    static final String GOLD_CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getNextTrackingNumber_WithAnotherCustomersId_ShouldNotGetItsTier() throws Exception {
+        // The default tier's two requests per minute, however premium the claimed customer
+        requestAs("mallory").andExpect(status().isOk());
+        requestAs("mallory").andExpect(status().isOk());
+        requestAs("mallory")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("RATE_LIMIT_EXCEEDED"));
+
+        // The customer's own principal still has the whole gold allowance
+        for (int i = 0; i < 5; i++) {
+            requestAs("developer").andExpect(status().isOk());
+        }
+    }
+
+    private ResultActions requestAs(String principal) throws Exception {
+        return mockMvc.perform(get("/next-tracking-number")
+                .with(user(principal))
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", GOLD_CUSTOMER));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.example.controller.TrackingNumberController.TrackingNumberBatchRequest;
+import org.example.controller.TrackingNumberController.TrackingNumberRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastTrackingRequestValidatorTest {
+
+    private static final String CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    private final FastTrackingRequestValidator validator = new FastTrackingRequestValidator();
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void validate_ShouldReportSameFieldErrorsAsBeanValidation() {
+        List<TrackingNumberRequest> requests = List.of(
+            new TrackingNumberRequest("MY", "ID", 1.234, CUSTOMER),
+            new TrackingNumberRequest(null, null, 0, null),
+            new TrackingNumberRequest("my", "IDN", -1, "DE619854-B59B-425E-9DB4-943979E1BD49"),
+            new TrackingNumberRequest("M1", "", Double.NaN, "de619854-b59b-425e-9db4-943979e1bd4"),
+            new TrackingNumberRequest("MY", "ID", Double.MIN_VALUE, "de619854_b59b-425e-9db4-943979e1bd49"),
+            new TrackingNumberRequest("MY", "ID", 1.0, "de619854-b59b-425e-9db4-943979e1bd4g"));
+
+        for (TrackingNumberRequest request : requests) {
+            assertEquals(beanValidationErrors(request), fastErrors(request, "trackingNumberRequest"), request.toString());
+        }
+    }
+
+    @Test
+    void validate_BatchRequest_ShouldCheckCount() {
+        for (int count : new int[] {0, 1, TrackingNumberController.MAX_BATCH_SIZE, TrackingNumberController.MAX_BATCH_SIZE + 1}) {
+            TrackingNumberBatchRequest request = new TrackingNumberBatchRequest("MY", "ID", 1.234, CUSTOMER, count);
+            assertEquals(beanValidationErrors(request), fastErrors(request, "trackingNumberBatchRequest"), request.toString());
+        }
+    }
+
+    @Test
+    void validate_UnassignedCountryCode_ShouldBeRejected() {
+        Map<String, String> errors = fastErrors(new TrackingNumberRequest("XX", "ID", 1.234, CUSTOMER), "trackingNumberRequest");
+
+        assertEquals(Map.of("origin_country_id", "Origin country code must be in ISO 3166-1 alpha-2 format"), errors);
+    }
+
+    @Test
+    void isCountryCode_ShouldMatchIsoCountryList() {
+        Set<String> isoCountries = Set.of(Locale.getISOCountries());
+        for (char first = 'A'; first <= 'Z'; first++) {
+            for (char second = 'A'; second <= 'Z'; second++) {
+                String code = "" + first + second;
+                assertEquals(isoCountries.contains(code), FastTrackingRequestValidator.isCountryCode(code), code);
+            }
+        }
+        assertFalse(FastTrackingRequestValidator.isCountryCode("@A"));
+        assertFalse(FastTrackingRequestValidator.isCountryCode("A["));
+    }
+
+    private Map<String, String> fastErrors(Object request, String objectName) {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(request, objectName);
+        validator.validate(request, errors);
+        Map<String, String> fieldErrors = new HashMap<>();
+        for (FieldError error : errors.getFieldErrors()) {
+            fieldErrors.put(error.getField(), error.getDefaultMessage());
+        }
+        return fieldErrors;
+    }
+
+    private <T> Map<String, String> beanValidationErrors(T request) {
+        Set<ConstraintViolation<T>> violations = beanValidator.validate(request);
+        return violations.stream().collect(Collectors.toMap(
+            violation -> violation.getPropertyPath().toString(), ConstraintViolation::getMessage));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.validation.mode=fast")
+@AutoConfigureMockMvc
+class FastValidationIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumber_WithValidParams_ShouldReturnTrackingNumber() throws Exception {
+        mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_number").exists());
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumber_WithUnassignedCountryCode_ShouldReturnValidationError() throws Exception {
+        mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "XX")
+                .param("destination_country_id", "ID")
+                .param("weight", "-1")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_FAILED"))
+                .andExpect(jsonPath("$.fieldErrors.origin_country_id")
+                    .value("Origin country code must be in ISO 3166-1 alpha-2 format"))
+                .andExpect(jsonPath("$.fieldErrors.weight").value("Weight must be positive"));
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_WithZeroCount_ShouldReturnValidationError() throws Exception {
+        mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.count").value("Count must be at least 1"));
+    }
+}
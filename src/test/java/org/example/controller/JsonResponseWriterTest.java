@@ -0,0 +1,68 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void trackingNumber_ShouldMatchJacksonSerializationOfResponseMap() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tracking_number", "A1B2C3D4E5F6G7H8");
+        response.put("created_at", "2023-11-20T19:29:32.123Z");
+        response.put("origin_country_id", "MY");
+        response.put("destination_country_id", "ID");
+
+        byte[] written = JsonResponseWriter.current()
+            .trackingNumber("A1B2C3D4E5F6G7H8", "2023-11-20T19:29:32.123Z", "MY", "ID").toByteArray();
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(response), written);
+    }
+
+    @Test
+    void error_ShouldMatchJacksonSerializationOfErrorMap() throws Exception {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "RATE_LIMIT_EXCEEDED");
+        errorResponse.put("message", "Idempotency key \"k\\1\"\twas\nreused \u0001 f\u00fcr \u6771\u4eac \ud83d\udce6");
+        errorResponse.put("timestamp", "2023-11-20T19:29:32Z");
+
+        byte[] written = JsonResponseWriter.current()
+            .error("RATE_LIMIT_EXCEEDED", (String) errorResponse.get("message"), "2023-11-20T19:29:32Z")
+            .toByteArray();
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(errorResponse), written);
+    }
+
+    @Test
+    void current_ShouldReuseBufferAndGrowForLongValues() throws Exception {
+        String longMessage = "x".repeat(1_000);
+        JsonResponseWriter writer = JsonResponseWriter.current();
+
+        writer.error("E", longMessage, "T");
+        assertEquals("{\"error\":\"E\",\"message\":\"" + longMessage + "\",\"timestamp\":\"T\"}",
+                     new String(writer.toByteArray()));
+
+        writer.trackingNumber("0000000000000001", "T", "MY", "ID");
+        assertSame(writer, JsonResponseWriter.current());
+        assertEquals(writer.length(), writer.toByteArray().length);
+    }
+
+    @Test
+    void cachedTimestamp_ShouldFormatCurrentMillisecondLikeInstant() {
+        long before = System.currentTimeMillis();
+        String timestamp = CachedTimestamp.now();
+        long after = System.currentTimeMillis();
+
+        long millis = Instant.parse(timestamp).toEpochMilli();
+        assertTrue(millis >= before && millis <= after, timestamp);
+        assertEquals(Instant.ofEpochMilli(millis).toString(), timestamp);
+    }
+}
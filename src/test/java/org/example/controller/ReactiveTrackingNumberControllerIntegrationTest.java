@@ -0,0 +1,150 @@
+package org.example.controller;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.example.service.IssuanceAudit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveTrackingNumberControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private static final Pattern TRACKING_NUMBER_PATTERN = Pattern.compile("^[A-Z0-9]{1,16}$");
+
+    @Test
+    void getNextTrackingNumber_WithValidParams_ShouldReturnTrackingNumber() {
+        Map<String, Object> response = webTestClient.get()
+                .uri(uri -> uri.path("/next-tracking-number")
+                    .queryParam("origin_country_id", "MY")
+                    .queryParam("destination_country_id", "ID")
+                    .queryParam("weight", "1.234")
+                    .queryParam("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                    .build())
+                .headers(headers -> headers.setBasicAuth("developer", "test123"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Correlation-ID")
+                .expectBody(Map.class)
+                .returnResult()
+                .getResponseBody();
+
+        String trackingNumber = (String) response.get("tracking_number");
+        assertNotNull(trackingNumber);
+        assertTrue(TRACKING_NUMBER_PATTERN.matcher(trackingNumber).matches());
+        assertNotNull(response.get("created_at"));
+        assertEquals("MY", response.get("origin_country_id"));
+        assertEquals("ID", response.get("destination_country_id"));
+    }
+
+    @Test
+    void getNextTrackingNumber_WithRepeatedIdempotencyKey_ShouldReturnSameNumber() {
+        String first = requestWithIdempotencyKey("reactive-parcel-7")
+                .expectHeader().doesNotExist("Idempotent-Replayed")
+                .expectBody(Map.class).returnResult().getResponseBody()
+                .get("tracking_number").toString();
+
+        String retry = requestWithIdempotencyKey("reactive-parcel-7")
+                .expectHeader().valueEquals("Idempotent-Replayed", "true")
+                .expectBody(Map.class).returnResult().getResponseBody()
+                .get("tracking_number").toString();
+
+        assertEquals(first, retry);
+    }
+
+    private WebTestClient.ResponseSpec requestWithIdempotencyKey(String idempotencyKey) {
+        return webTestClient.get()
+                .uri(uri -> uri.path("/next-tracking-number")
+                    .queryParam("origin_country_id", "MY")
+                    .queryParam("destination_country_id", "ID")
+                    .queryParam("weight", "1.234")
+                    .queryParam("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                    .build())
+                .headers(headers -> {
+                    headers.setBasicAuth("developer", "test123");
+                    headers.set("Idempotency-Key", idempotencyKey);
+                })
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void getNextTrackingNumber_WithInvalidCountryCode_ShouldReturnValidationErrors() {
+        webTestClient.get()
+                .uri(uri -> uri.path("/next-tracking-number")
+                    .queryParam("origin_country_id", "INVALID")
+                    .queryParam("destination_country_id", "ID")
+                    .queryParam("weight", "1.234")
+                    .queryParam("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                    .build())
+                .headers(headers -> headers.setBasicAuth("developer", "test123"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("VALIDATION_FAILED")
+                .jsonPath("$.fieldErrors.origin_country_id").exists();
+    }
+
+    @Test
+    void getNextTrackingNumber_WithoutAuthentication_ShouldReturnUnauthorized() {
+        webTestClient.get()
+                .uri("/next-tracking-number?origin_country_id=MY&destination_country_id=ID"
+                    + "&weight=1.234&customer_id=de619854-b59b-425e-9db4-943979e1bd49")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void getNextTrackingNumber_ShouldEchoCorrelationId() {
+        webTestClient.get()
+                .uri("/next-tracking-number?origin_country_id=MY&destination_country_id=ID"
+                    + "&weight=1.234&customer_id=de619854-b59b-425e-9db4-943979e1bd49")
+                .header("X-Correlation-ID", "test-correlation-id")
+                .headers(headers -> headers.setBasicAuth("developer", "test123"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Correlation-ID", "test-correlation-id");
+    }
+
+    @Test
+    void getNextTrackingNumber_WithAudit_ShouldLogCorrelationIdOffTheEventLoop() {
+        Logger audit = (Logger) LoggerFactory.getLogger(IssuanceAudit.LOGGER_NAME);
+        ListAppender<ILoggingEvent> events = new ListAppender<>();
+        events.start();
+        Level level = audit.getLevel();
+        audit.setLevel(Level.INFO);
+        audit.addAppender(events);
+        try {
+            webTestClient.get()
+                    .uri("/next-tracking-number?origin_country_id=MY&destination_country_id=ID"
+                        + "&weight=1.234&customer_id=de619854-b59b-425e-9db4-943979e1bd49")
+                    .header("X-Correlation-ID", "reactive-mdc-id")
+                    .headers(headers -> headers.setBasicAuth("developer", "test123"))
+                    .exchange()
+                    .expectStatus().isOk();
+        } finally {
+            audit.detachAppender(events);
+            audit.setLevel(level);
+        }
+
+        assertEquals(1, events.list.size());
+        assertEquals("reactive-mdc-id", events.list.get(0).getMDCPropertyMap().get("correlationId"));
+        // Writing the audit may wait for its appender, so generation left the event loop
+        assertTrue(events.list.get(0).getThreadName().startsWith("boundedElastic"),
+            "Generated on " + events.list.get(0).getThreadName());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.tracking-number.format=route")
+@AutoConfigureMockMvc
+class RouteFormatIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser
+    void getTrackingNumberRoute_ForIssuedNumber_ShouldReturnRoute() throws Exception {
+        String trackingNumber = nextTrackingNumber("NZ", "FJ");
+        assertEquals(16, trackingNumber.length());
+
+        mockMvc.perform(get("/tracking-numbers/" + trackingNumber + "/route"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_number").value(trackingNumber))
+                .andExpect(jsonPath("$.origin_country_id").value("NZ"))
+                .andExpect(jsonPath("$.destination_country_id").value("FJ"));
+    }
+
+    @Test
+    @WithMockUser
+    void getTrackingNumberRoute_ForPlainNumber_ShouldReturnNotFound() throws Exception {
+        // Well-formed but unassigned codes keep the plain hex layout
+        String trackingNumber = nextTrackingNumber("XX", "FJ");
+        assertTrue(trackingNumber.matches("[0-9A-F]{16}"), trackingNumber);
+
+        mockMvc.perform(get("/tracking-numbers/" + trackingNumber + "/route"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("ROUTE_NOT_ENCODED"));
+    }
+
+    private String nextTrackingNumber(String origin, String destination) throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", origin)
+                .param("destination_country_id", destination)
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Object> issued = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        return (String) issued.get("tracking_number");
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.service.SequenceBlockAllocator;
+import org.example.service.SequenceCheckpoint;
+import org.example.service.SequenceTrackingNumberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SequenceCheckpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SequenceTrackingNumberService sequenceTrackingNumberService;
+
+    @DynamicPropertySource
+    static void checkpointProperties(DynamicPropertyRegistry registry) throws IOException {
+        String file = Files.createTempDirectory("sequence").resolve("sequence.ckpt").toString();
+        registry.add("app.tracking-number.engine", () -> "sequence");
+        registry.add("app.tracking-number.checkpoint-file", () -> file);
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumber_ShouldIssueBelowThePersistedMark() throws Exception {
+        String response = mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_number").value(matchesPattern("[0-9A-F]{16}")))
+                .andReturn().getResponse().getContentAsString();
+        String trackingNumber = response.replaceAll(".*\"tracking_number\":\"([0-9A-F]{16})\".*", "$1");
+
+        SequenceCheckpoint checkpoint = sequenceTrackingNumberService.getCheckpoint();
+        long sequence = Long.parseUnsignedLong(trackingNumber, 16) & SequenceBlockAllocator.MAX_SEQUENCE;
+        assertTrue(sequence < checkpoint.getPersistedMark());
+        // The lease was persisted at startup, so the request did not wait for the disk
+        assertEquals(0, meterRegistry.get("tracking_number_sequence_checkpoints_total")
+                .tag("thread", "request")
+                .functionCounter().count());
+    }
+}
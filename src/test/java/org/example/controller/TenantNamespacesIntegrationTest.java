@@ -0,0 +1,68 @@
+package org.example.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TenantNamespacesIntegrationTest {
+
+    private static final String TENANT_CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void tenantProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path file = Files.createTempFile("tenants", ".csv");
+        Files.writeString(file, TENANT_CUSTOMER + ",STAR\n");
+        registry.add("app.tenants.enabled", () -> "true");
+        registry.add("app.tenants.file", file::toString);
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_ForTenantCustomer_ShouldUseNamespaceAndCountIt() throws Exception {
+        mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", TENANT_CUSTOMER)
+                .param("count", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_numbers[0]").value(startsWith("STAR")))
+                .andExpect(jsonPath("$.tracking_numbers[2]").value(startsWith("STAR")));
+
+        mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "0b1e4b7a-2f44-4c3e-9a51-6f0e8d2c7b19"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_number").value(matchesPattern("[0-9A-F]{16}")));
+
+        assertEquals(3, meterRegistry.get("tracking_number_tenant_generated_total")
+                .tag("namespace", "STAR")
+                .functionCounter().count());
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -9,6 +10,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -26,6 +29,9 @@ class TrackingNumberControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private static final Pattern TRACKING_NUMBER_PATTERN = Pattern.compile("^[A-Z0-9]{1,16}$");
 
     @Test
@@ -130,6 +136,165 @@ class TrackingNumberControllerIntegrationTest {
         assertNotEquals(trackingNumber1, trackingNumber2, "Consecutive requests should generate different tracking numbers");
     }
 
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_WithValidParams_ShouldReturnUniqueBatch() throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "25"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.created_at").exists())
+                .andExpect(jsonPath("$.origin_country_id").value("MY"))
+                .andExpect(jsonPath("$.destination_country_id").value("ID"))
+                .andExpect(jsonPath("$.count").value(25))
+                .andReturn();
+
+        Map<String, Object> response = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        List<String> trackingNumbers = (List<String>) response.get("tracking_numbers");
+
+        assertEquals(25, trackingNumbers.size());
+        assertEquals(25, new HashSet<>(trackingNumbers).size(), "Batch should not contain duplicates");
+        trackingNumbers.forEach(trackingNumber ->
+            assertTrue(TRACKING_NUMBER_PATTERN.matcher(trackingNumber).matches()));
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_WithInvalidCount_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.count").exists());
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumbers_AboveQuotaCapacity_ShouldReturnBadRequestWithTheLimit() throws Exception {
+        // Every number in the batch counts against the per-minute limit, so 1000 can never fit in 100
+        mockMvc.perform(get("/next-tracking-numbers")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "1000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("COUNT_ABOVE_QUOTA"))
+                .andExpect(jsonPath("$.maxCount").value(100))
+                .andExpect(jsonPath("$.retryAfter").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void streamTrackingNumbers_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-numbers/stream")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(10, lines.length);
+        for (String line : lines) {
+            Map<String, Object> entry = objectMapper.readValue(line, Map.class);
+            assertTrue(TRACKING_NUMBER_PATTERN.matcher((String) entry.get("tracking_number")).matches());
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void streamTrackingNumbers_AsPlainText_ShouldWriteOneNumberPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-numbers/stream")
+                .accept("text/plain")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+                .param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(10, lines.length);
+        assertEquals(10, new HashSet<>(List.of(lines)).size());
+        for (String line : lines) {
+            assertTrue(TRACKING_NUMBER_PATTERN.matcher(line).matches());
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumber_WithRepeatedIdempotencyKey_ShouldReturnSameNumber() throws Exception {
+        MvcResult first = mockMvc.perform(get("/next-tracking-number")
+                .header("Idempotency-Key", "parcel-42")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+
+        MvcResult retry = mockMvc.perform(get("/next-tracking-number")
+                .header("Idempotency-Key", "parcel-42")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+
+        assertEquals(getTrackingNumberFromResponse(first), getTrackingNumberFromResponse(retry));
+
+        mockMvc.perform(get("/next-tracking-number")
+                .header("Idempotency-Key", "parcel-42")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "SG")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").value("IDEMPOTENCY_KEY_REUSED"));
+    }
+
+    @Test
+    @WithMockUser
+    void getTrackingNumber_WithoutRegistry_ShouldReturnNotImplemented() throws Exception {
+        mockMvc.perform(get("/tracking-numbers/0123456789ABCDEF"))
+                .andExpect(status().isNotImplemented())
+                .andExpect(jsonPath("$.error").value("LOOKUP_UNAVAILABLE"));
+    }
+
+    @Test
+    @WithMockUser
+    void getNextTrackingNumber_ShouldBeReportedPerRoute() throws Exception {
+        mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "NZ")
+                .param("destination_country_id", "FJ")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, meterRegistry.get("tracking_numbers_generated_total")
+                .tag("origin_country_id", "NZ")
+                .tag("destination_country_id", "FJ")
+                .functionCounter().count());
+        assertTrue(meterRegistry.get("tracking_number_generation_duration").functionTimer().count() > 0);
+        assertNotNull(meterRegistry.get("tracking_number_generation_latency").tag("quantile", "0.99").gauge());
+    }
+
     private String getTrackingNumberFromResponse(MvcResult result) throws Exception {
         String responseBody = result.getResponse().getContentAsString();
         Map<String, Object> response = objectMapper.readValue(responseBody, Map.class);
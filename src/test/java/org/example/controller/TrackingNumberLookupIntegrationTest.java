@@ -0,0 +1,70 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TrackingNumberLookupIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void registryProperties(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("issued-numbers").toString();
+        registry.add("app.registry.enabled", () -> "true");
+        registry.add("app.registry.directory", () -> directory);
+        registry.add("app.registry.segment-size-mb", () -> "1");
+        registry.add("app.registry.expected-numbers", () -> "10000");
+    }
+
+    @Test
+    @WithMockUser
+    void getTrackingNumber_ForIssuedNumber_ShouldReturnShipmentDetails() throws Exception {
+        MvcResult result = mockMvc.perform(get("/next-tracking-number")
+                .param("origin_country_id", "MY")
+                .param("destination_country_id", "ID")
+                .param("weight", "1.234")
+                .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Object> issued = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+        String trackingNumber = (String) issued.get("tracking_number");
+
+        mockMvc.perform(get("/tracking-numbers/" + trackingNumber))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tracking_number").value(trackingNumber))
+                .andExpect(jsonPath("$.origin_country_id").value("MY"))
+                .andExpect(jsonPath("$.destination_country_id").value("ID"))
+                .andExpect(jsonPath("$.weight").value(1.234))
+                .andExpect(jsonPath("$.customer_id").value("de619854-b59b-425e-9db4-943979e1bd49"))
+                .andExpect(jsonPath("$.created_at").exists());
+    }
+
+    @Test
+    @WithMockUser
+    void getTrackingNumber_ForUnknownNumber_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/tracking-numbers/FFFFFFFFFFFFFFF0"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("TRACKING_NUMBER_NOT_FOUND"));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.performance;
+
+import org.example.TrackingNumberApplication;
+import org.example.config.CachingPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares tail latency of the platform thread pool and virtual threads with 10,000 concurrent requests.
+ * Needs JDK 21 and is skipped unless run with {@code -Dloadtest=true}:
+ * <pre>mvn test -Dtest=VirtualThreadLoadTest -Dloadtest=true</pre>
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENT_REQUESTS = 10_000;
+
+    private static final String QUERY = "/next-tracking-number?origin_country_id=MY&destination_country_id=ID"
+        + "&weight=1.234&customer_id=de619854-b59b-425e-9db4-943979e1bd49";
+
+    @Test
+    void virtualThreads_ShouldServeConcurrentBurstWithLowerTailLatency() throws Exception {
+        long platformP99 = runBurst(false);
+        long virtualP99 = runBurst(true);
+
+        System.out.printf("p99 latency with %d concurrent requests: platform=%d ms, virtual=%d ms%n",
+            CONCURRENT_REQUESTS, platformP99, virtualP99);
+        // 10% or 10 ms of slack, whichever is larger, for run-to-run noise
+        long tolerance = Math.max(10, platformP99 / 10);
+        assertTrue(virtualP99 <= platformP99 + tolerance,
+            "Virtual thread p99 " + virtualP99 + " ms should not exceed platform p99 " + platformP99 + " ms");
+    }
+
+    private long runBurst(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                TrackingNumberApplication.class, FastPasswordEncoderConfig.class)
+                .properties(
+                    "server.port=0",
+                    "server.tomcat.max-connections=" + (CONCURRENT_REQUESTS * 2),
+                    "server.tomcat.accept-count=" + CONCURRENT_REQUESTS,
+                    "spring.threads.virtual.enabled=" + virtualThreads,
+                    "spring.main.allow-bean-definition-overriding=true",
+                    "app.rate-limit.requests-per-minute=" + Integer.MAX_VALUE,
+                    "logging.level.org.example=WARN")
+                .run()) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            URI uri = URI.create("http://localhost:" + port + QUERY);
+            String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString("developer:test123".getBytes(StandardCharsets.UTF_8));
+
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            long[] latencies = new long[CONCURRENT_REQUESTS];
+            AtomicInteger failures = new AtomicInteger();
+            List<CompletableFuture<?>> futures = new ArrayList<>(CONCURRENT_REQUESTS);
+
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                final int index = i;
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Authorization", authorization)
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+                long start = System.nanoTime();
+                futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = System.nanoTime() - start;
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        return null;
+                    }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+            assertEquals(0, failures.get(), "All requests should succeed");
+            Arrays.sort(latencies);
+            return Duration.ofNanos(latencies[(int) (CONCURRENT_REQUESTS * 0.99) - 1]).toMillis();
+        }
+    }
+
+    /**
+     * Low-cost BCrypt so the burst measures request handling rather than password hashing. Still
+     * behind the credential cache, which the auth-cache metrics look up by type.
+     */
+    @Configuration
+    static class FastPasswordEncoderConfig {
+        @Bean(initMethod = "start", destroyMethod = "stop")
+        public CachingPasswordEncoder passwordEncoder(
+                @Value("${app.security.auth-cache.max-entries:10000}") int maxEntries,
+                @Value("${app.security.auth-cache.ttl-ms:300000}") long ttlMillis) {
+            return new CachingPasswordEncoder(new BCryptPasswordEncoder(4), maxEntries, ttlMillis);
+        }
+    }
+}
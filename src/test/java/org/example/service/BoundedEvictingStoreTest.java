@@ -0,0 +1,102 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedEvictingStoreTest {
+
+    @Test
+    void computeIfAbsent_ShouldCreateOnceAndReturnSameValue() {
+        BoundedEvictingStore<String> store = new BoundedEvictingStore<>("test", 16, 60_000);
+        AtomicInteger created = new AtomicInteger();
+
+        String first = store.computeIfAbsent(42L, key -> "value-" + created.incrementAndGet());
+        String second = store.computeIfAbsent(42L, key -> "value-" + created.incrementAndGet());
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+        assertEquals(1, store.size());
+        assertSame(first, store.get(42L));
+        assertNull(store.get(43L));
+    }
+
+    @Test
+    void computeIfAbsent_WhenFull_ShouldEvictAndStayWithinCap() {
+        BoundedEvictingStore<Long> store = new BoundedEvictingStore<>("test", 64, 60_000, 4);
+
+        for (long key = 0; key < 1_000; key++) {
+            store.computeIfAbsent(key, Long::valueOf);
+        }
+
+        assertTrue(store.size() <= 64, "Size " + store.size() + " exceeds the cap");
+        assertEquals(1_000 - store.size(), store.getCapacityEvictions());
+        // The most recent insert always survives
+        assertEquals(999L, store.get(999L));
+    }
+
+    @Test
+    void evictIdle_ShouldDropEntriesPastTimeout() throws Exception {
+        BoundedEvictingStore<Long> store = new BoundedEvictingStore<>("test", 1_000, 20);
+        for (long key = 0; key < 100; key++) {
+            store.computeIfAbsent(key, Long::valueOf);
+        }
+
+        Thread.sleep(40);
+        store.computeIfAbsent(1_000L, Long::valueOf);
+
+        assertEquals(100, store.evictIdle());
+        assertEquals(1, store.size());
+        assertEquals(100, store.getIdleEvictions());
+        assertEquals(1_000L, store.get(1_000L));
+        // Remaining keys are still reachable after backward-shift deletes
+        for (long key = 0; key < 100; key++) {
+            assertNull(store.get(key));
+        }
+    }
+
+    @Test
+    void remove_ShouldKeepOtherKeysReachable() {
+        BoundedEvictingStore<Long> store = new BoundedEvictingStore<>("test", 512, 60_000, 1);
+        for (long key = 0; key < 500; key++) {
+            store.computeIfAbsent(key, Long::valueOf);
+        }
+
+        for (long key = 0; key < 500; key += 2) {
+            assertEquals(key, store.remove(key));
+        }
+
+        assertEquals(250, store.size());
+        for (long key = 0; key < 500; key++) {
+            assertEquals(key % 2 == 0 ? null : Long.valueOf(key), store.get(key));
+        }
+    }
+
+    @Test
+    void computeIfAbsent_ConcurrentAccess_ShouldCreateOneValuePerKey() throws Exception {
+        BoundedEvictingStore<AtomicInteger> store = new BoundedEvictingStore<>("test", 10_000, 60_000);
+        int numberOfThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (long key = 0; key < 1_000; key++) {
+                    store.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(1_000, store.size());
+        for (long key = 0; key < 1_000; key++) {
+            assertEquals(numberOfThreads, store.get(key).get());
+        }
+    }
+}
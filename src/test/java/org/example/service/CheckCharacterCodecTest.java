@@ -0,0 +1,127 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckCharacterCodecTest {
+
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final CheckCharacterCodec codec = new CheckCharacterCodec();
+
+    @Test
+    void encode_ShouldWriteValueAndIso7064CheckCharacter() {
+        // Check characters from a reference MOD 37,36 implementation
+        assertEquals("000000000000000N", encode(0));
+        assertEquals("000000000000001L", encode(1));
+        assertEquals("003W5E11264SGSF5", encode(-1));
+        assertEquals("0000MF9G063V08FV", encode(0x0123456789ABCDEFL));
+
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong();
+            String trackingNumber = encode(value);
+            assertTrue(CheckCharacterCodec.isValid(trackingNumber), trackingNumber);
+            assertEquals(value, Long.parseUnsignedLong(trackingNumber.substring(0, 15), 36));
+        }
+    }
+
+    @Test
+    void isValid_ShouldRejectSingleCharacterErrorsAndNearlyAllAdjacentTranspositions() {
+        SplittableRandom random = new SplittableRandom(13);
+        int transpositions = 0;
+        int undetected = 0;
+        for (int n = 0; n < 2_000; n++) {
+            char[] chars = encode(random.nextLong()).toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                char original = chars[i];
+                for (char c : DIGITS.toCharArray()) {
+                    if (c != original) {
+                        chars[i] = c;
+                        assertFalse(CheckCharacterCodec.isValid(new String(chars)), new String(chars));
+                    }
+                }
+                chars[i] = original;
+            }
+            for (int i = 0; i + 1 < chars.length; i++) {
+                if (chars[i] != chars[i + 1]) {
+                    char[] swapped = chars.clone();
+                    swapped[i] = chars[i + 1];
+                    swapped[i + 1] = chars[i];
+                    transpositions++;
+                    if (CheckCharacterCodec.isValid(new String(swapped))) {
+                        undetected++;
+                    }
+                }
+            }
+        }
+        // A hybrid MOD 37,36 system misses about 0.15% of adjacent transpositions
+        assertTrue(undetected < transpositions * 0.003, undetected + " of " + transpositions);
+        assertFalse(CheckCharacterCodec.isValid("000000000000000n"));
+        assertFalse(CheckCharacterCodec.isValid("00000000000000\u0100N"));
+        assertFalse(CheckCharacterCodec.isValid("00000000000000N"));
+        assertFalse(CheckCharacterCodec.isValid(null));
+    }
+
+    @Test
+    void verifyLines_ShouldReportInvalidNumbersByPosition() {
+        String body = encode(1) + "\r\n" + encode(2) + "\n\n" + "000000000000001M\n" + encode(3) + "0\n"
+                + "00000000000000\u00E9N\n" + encode(4);
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        BitSet invalid = new BitSet();
+
+        assertEquals(6, CheckCharacterCodec.verifyLines(bytes, bytes.length, Integer.MAX_VALUE, invalid));
+        assertEquals("{2, 3, 4}", invalid.toString());
+        assertTrue(CheckCharacterCodec.isValid(bytes, bytes.length - 16, 16));
+    }
+
+    @Test
+    void verifyLines_WithRegularLines_ShouldReportEveryPosition() {
+        // Long runs of 16 character lines take the four-at-a-time path
+        StringBuilder body = new StringBuilder();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 103; i++) {
+            String trackingNumber = encode(i * 31L);
+            if (i % 7 == 3 || i == 100) {
+                trackingNumber = trackingNumber.substring(0, 15) + (trackingNumber.charAt(15) == 'Z' ? 'Y' : 'Z');
+                expected.set(i);
+            }
+            body.append(trackingNumber).append('\n');
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.US_ASCII);
+        BitSet invalid = new BitSet();
+
+        assertEquals(103, CheckCharacterCodec.verifyLines(bytes, bytes.length, Integer.MAX_VALUE, invalid));
+        assertEquals(expected, invalid);
+    }
+
+    @Test
+    void verifyLines_WithNewlineInsideASpan_ShouldCountLikeLineByLine() {
+        // Newlines at 16, 33, 50 and 67 as in four regular lines, but the first two are short lines
+        String body = "ABCDEFG\nHIJKLMNO\n" + encode(1) + "\n" + encode(2) + "\n" + encode(3) + "\n";
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        BitSet invalid = new BitSet();
+
+        assertEquals(5, CheckCharacterCodec.verifyLines(bytes, bytes.length, Integer.MAX_VALUE, invalid));
+        assertEquals("{0, 1}", invalid.toString());
+    }
+
+    @Test
+    void verifyLines_OverMaxCount_ShouldStopEarly() {
+        byte[] bytes = (encode(1) + "\n").repeat(100).getBytes(StandardCharsets.US_ASCII);
+
+        int count = CheckCharacterCodec.verifyLines(bytes, bytes.length, 10, new BitSet());
+        assertTrue(count > 10 && count < 100, "Stopped at " + count);
+    }
+
+    private String encode(long value) {
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+        assertTrue(codec.encode("MY", "ID", value, buffer, 0));
+        return TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientAddressKeysTest {
+
+    @Test
+    void of_Ipv4_ShouldPackAddressWithTag() {
+        assertEquals(ClientAddressKeys.IPV4_TAG | 0xC0A80001L, ClientAddressKeys.of("192.168.0.1"));
+        assertEquals(ClientAddressKeys.IPV4_TAG | 0xFFFFFFFFL, ClientAddressKeys.of("255.255.255.255"));
+    }
+
+    @Test
+    void of_Ipv6_ShouldKeyByPrefix() {
+        long key = ClientAddressKeys.of("2001:db8:85a3:1:8a2e:370:7334:1");
+
+        assertEquals(0x20010db885a30001L, key);
+        assertEquals(key, ClientAddressKeys.of("2001:db8:85a3:1::2"));
+        assertEquals(key, ClientAddressKeys.of("[2001:DB8:85A3:1::ffff]"));
+        assertNotEquals(key, ClientAddressKeys.of("2001:db8:85a3:2::1"));
+        assertEquals(0x20010db800000000L, ClientAddressKeys.of("2001:db8::1"));
+        assertEquals(0L, ClientAddressKeys.of("::1"));
+        assertEquals(0xfe80000000000000L, ClientAddressKeys.of("fe80::1%eth0"));
+    }
+
+    @Test
+    void of_Ipv4MappedIpv6_ShouldMatchIpv4() {
+        long ipv4 = ClientAddressKeys.of("10.1.2.3");
+
+        assertEquals(ipv4, ClientAddressKeys.of("::ffff:10.1.2.3"));
+        assertEquals(ipv4, ClientAddressKeys.of("0:0:0:0:0:ffff:a01:203"));
+    }
+
+    @Test
+    void of_InetAddress_ShouldMatchTextForm() throws Exception {
+        assertEquals(ClientAddressKeys.of("127.0.0.1"), ClientAddressKeys.of(InetAddress.getByName("127.0.0.1")));
+        assertEquals(ClientAddressKeys.of("2001:db8:1:2::7"), ClientAddressKeys.of(InetAddress.getByName("2001:db8:1:2::7")));
+    }
+
+    @Test
+    void firstOf_ShouldUseFirstForwardedAddress() {
+        assertEquals(ClientAddressKeys.of("203.0.113.7"), ClientAddressKeys.firstOf(" 203.0.113.7 , 10.0.0.1, 10.0.0.2"));
+    }
+
+    @Test
+    void of_Malformed_ShouldFallBackToStableHash() {
+        long key = ClientAddressKeys.of("unknown");
+
+        assertEquals(key, ClientAddressKeys.of("unknown"));
+        assertNotEquals(key, ClientAddressKeys.of("unknown2"));
+        assertNotEquals(ClientAddressKeys.IPV4_TAG, ClientAddressKeys.of("1.2.3.256") & ClientAddressKeys.IPV4_TAG);
+        assertEquals(ClientAddressKeys.of("1::2::3"), ClientAddressKeys.of("1::2::3"));
+        assertNotEquals(0x0001000000000000L, ClientAddressKeys.of("1::2::3"));
+    }
+}
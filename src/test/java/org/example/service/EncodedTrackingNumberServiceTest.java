@@ -0,0 +1,82 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EncodedTrackingNumberServiceTest {
+
+    private static final Pattern TRACKING_NUMBER_PATTERN = Pattern.compile("^[A-Z0-9]{1,16}$");
+
+    @Spy
+    private GenerationMetrics generationMetrics = new GenerationMetrics(1, 1000, true);
+
+    @InjectMocks
+    private EncodedTrackingNumberService trackingNumberService;
+
+    @Test
+    void generateTrackingNumber_ShouldReturnValidFormat() {
+        String result = trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+
+        assertNotNull(result);
+        assertTrue(TRACKING_NUMBER_PATTERN.matcher(result).matches());
+        assertEquals(16, result.length());
+        verify(generationMetrics).recordGeneration(eq("MY"), eq("ID"), anyLong());
+        verify(generationMetrics).recordPhase(eq(GenerationMetrics.Phase.ENTROPY), anyLong());
+        verify(generationMetrics).recordPhase(eq(GenerationMetrics.Phase.ENCODING), anyLong());
+    }
+
+    @Test
+    void generateTrackingNumber_ConcurrentExecution_ShouldGenerateUniqueNumbers() throws Exception {
+        int numberOfThreads = 8;
+        int requestsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Set<String> generatedNumbers = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    generatedNumbers.add(trackingNumberService.generateTrackingNumber(
+                        "MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49"));
+                }
+            }, executor);
+        }
+
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(numberOfThreads * requestsPerThread, generatedNumbers.size(),
+                    "All generated tracking numbers should be unique");
+        generatedNumbers.forEach(trackingNumber ->
+            assertTrue(TRACKING_NUMBER_PATTERN.matcher(trackingNumber).matches()));
+    }
+
+    @Test
+    void encodeHex_ShouldMatchLongToHexString() {
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+        long[] values = {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 0x0123456789ABCDEFL};
+
+        for (long value : values) {
+            TrackingNumberEncoder.encodeHex(value, buffer, 0);
+            String expected = String.format("%016X", value);
+            assertEquals(expected, new String(buffer, StandardCharsets.US_ASCII));
+        }
+    }
+}
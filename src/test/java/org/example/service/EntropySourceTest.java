@@ -0,0 +1,66 @@
+package org.example.service;
+
+import org.example.config.EntropyConfig;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntropySourceTest {
+
+    private final EntropyConfig entropyConfig = new EntropyConfig();
+
+    @ParameterizedTest
+    @CsvSource({"DRBG, 0", "SHA1PRNG, 0", "SHA1PRNG, 2", "SPLITTABLE, 0"})
+    void entropySource_ShouldProduceDistinctValuesAcrossThreads(String algorithm, int stripes) throws Exception {
+        EntropySource entropySource = entropyConfig.entropySource(algorithm, 100, stripes, false);
+
+        int numberOfThreads = 8;
+        int drawsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < drawsPerThread; j++) {
+                    values.add(entropySource.nextLong());
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(numberOfThreads * drawsPerThread, values.size());
+    }
+
+    @Test
+    void entropySource_ShouldSelectImplementationByAlgorithm() {
+        assertInstanceOf(SplittableRandomEntropySource.class, entropyConfig.entropySource("splittable", 0, 0, false));
+
+        EntropySource drbg = entropyConfig.entropySource("DRBG", 0, 0, false);
+        assertInstanceOf(ThreadLocalSecureRandomEntropySource.class, drbg);
+        assertEquals("DRBG", ((ThreadLocalSecureRandomEntropySource) drbg).getAlgorithm());
+    }
+
+    @Test
+    void entropySource_WithVirtualThreads_ShouldUseStripes() {
+        EntropySource striped = entropyConfig.entropySource("SHA1PRNG", 0, 0, true);
+        assertInstanceOf(StripedSecureRandomEntropySource.class, striped);
+
+        EntropySource explicit = entropyConfig.entropySource("SHA1PRNG", 0, 5, false);
+        assertEquals(8, ((StripedSecureRandomEntropySource) explicit).getStripes());
+    }
+
+    @Test
+    void entropySource_WithUnknownAlgorithm_ShouldFailFast() {
+        assertThrows(IllegalArgumentException.class, () -> entropyConfig.entropySource("NO-SUCH-PRNG", 0, 0, false));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationMetricsTest {
+
+    @Test
+    void recordGeneration_ShouldCountPerRouteAndReportNewRoutes() {
+        GenerationMetrics metrics = new GenerationMetrics(0, 2, true);
+        List<String> reported = new ArrayList<>();
+
+        metrics.recordGeneration("MY", "ID", 1_000);
+        // Routes seen before the listener is set are reported to it
+        metrics.setRouteListener((origin, destination) -> reported.add(origin + "-" + destination));
+        metrics.recordGeneration("MY", "ID", 1_000);
+        metrics.recordGeneration("ZZ", "AA", 1_000);
+        // Beyond the route limit and with codes outside A-Z, counted but not reported separately
+        metrics.recordGeneration("US", "CA", 1_000);
+        metrics.recordGeneration("my", "ID", 1_000);
+        metrics.recordGeneration("MYS", "ID", 1_000);
+
+        assertEquals(List.of("MY-ID", "ZZ-AA"), reported);
+        assertEquals(2, metrics.getGeneratedCount("MY", "ID"));
+        assertEquals(1, metrics.getGeneratedCount("ZZ", "AA"));
+        assertEquals(1, metrics.getGeneratedCount("US", "CA"));
+        assertEquals(3, metrics.getUntrackedRouteCount());
+        assertEquals(6, metrics.getLatencyCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void recordGeneration_FromManyThreads_ShouldMergeAllThreads(boolean perThread) throws Exception {
+        GenerationMetrics metrics = new GenerationMetrics(0, 1000, perThread);
+        int numberOfThreads = 8;
+        int callsPerThread = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        CompletableFuture<?>[] futures = IntStream.range(0, numberOfThreads)
+            .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                for (int i = 1; i <= callsPerThread; i++) {
+                    // 1-100 microseconds, spread evenly
+                    metrics.recordGeneration("MY", "ID", (i % 100 + 1) * 1_000L);
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Buckets of threads that have ended are still counted
+        long calls = (long) numberOfThreads * callsPerThread;
+        assertEquals(calls, metrics.getGeneratedCount("MY", "ID"));
+        assertEquals(calls, metrics.getLatencyCount());
+        assertEquals(50_500.0 * calls, metrics.getLatencyTotalNanos(), 50_500.0 * calls * 0.01);
+        assertEquals(50_000, metrics.getLatencyPercentileNanos(50), 1_000);
+        assertEquals(99_000, metrics.getLatencyPercentileNanos(99), 1_000);
+        assertEquals(100_000, metrics.getLatencyPercentileNanos(100), 1_000);
+    }
+
+    @Test
+    void bucket_ShouldBeExactForSmallValuesAndWithinTwoPercentAbove() {
+        assertEquals(0, GenerationMetrics.bucket(-5));
+        for (long nanos = 0; nanos < 128; nanos++) {
+            assertEquals(nanos, GenerationMetrics.bucketValue(GenerationMetrics.bucket(nanos)));
+        }
+        int previous = GenerationMetrics.bucket(127);
+        for (long nanos = 128; nanos < 1L << 36; nanos += 1 + nanos / 97) {
+            int bucket = GenerationMetrics.bucket(nanos);
+            assertTrue(bucket >= previous, "Buckets must follow the values at " + nanos);
+            assertEquals(nanos, GenerationMetrics.bucketValue(bucket), nanos * 0.016);
+            previous = bucket;
+        }
+        // Longer than trackable lands in the last bucket
+        assertEquals(GenerationMetrics.bucket((1L << 36) - 1), GenerationMetrics.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void recordPhase_ShouldTimeSampledPhases() throws Exception {
+        GenerationMetrics metrics = new GenerationMetrics(1, 1000, true);
+        assertTrue(metrics.samplePhases());
+        assertFalse(new GenerationMetrics(0, 1000, true).samplePhases());
+        assertTrue(metrics.samplePhases(System.nanoTime()));
+        assertFalse(new GenerationMetrics(0, 1000, true).samplePhases(System.nanoTime()));
+        // Clock readings in whole microseconds are still sampled at about the configured rate
+        GenerationMetrics sampled = new GenerationMetrics(16, 1000, true);
+        long timed = IntStream.range(0, 160_000).filter(i -> sampled.samplePhases(i * 1_000L)).count();
+        assertEquals(10_000, timed, 500);
+
+        long start = System.nanoTime();
+        Thread.sleep(2);
+        long end = metrics.recordPhase(GenerationMetrics.Phase.HASHING, start);
+
+        assertTrue(end - start >= 2_000_000);
+        long recorded = metrics.getPhasePercentileNanos(GenerationMetrics.Phase.HASHING, 100);
+        // Bucket and histogram resolution, under 2% each
+        assertEquals(end - start, recorded, (end - start) * 0.03);
+        assertEquals(0, metrics.getPhasePercentileNanos(GenerationMetrics.Phase.ENTROPY, 100));
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private static final long FINGERPRINT =
+        IdempotencyCache.fingerprint("MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+
+    private final IdempotencyCache cache = new IdempotencyCache(100, 60_000, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    @Test
+    void claim_RepeatedKey_ShouldReturnFirstResult() {
+        IdempotencyCache.Claim first = cache.claim("developer", "key-1", FINGERPRINT);
+        IdempotencyCache.Claim retry = cache.claim("developer", "key-1", FINGERPRINT);
+
+        assertTrue(first.isOwner());
+        assertFalse(retry.isOwner());
+        assertFalse(retry.result().isDone(), "A duplicate should wait for the first request");
+
+        first.complete("0123456789ABCDEF", "2024-01-01T00:00:00Z");
+
+        assertEquals("0123456789ABCDEF", retry.result().join().trackingNumber());
+        assertEquals("2024-01-01T00:00:00Z", retry.result().join().createdAt());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void claim_KeysOfOtherUsers_ShouldNotCollide() {
+        assertTrue(cache.claim("developer", "key-1", FINGERPRINT).isOwner());
+        assertTrue(cache.claim("tester", "key-1", FINGERPRINT).isOwner());
+        assertTrue(cache.claim("developer", "key-2", FINGERPRINT).isOwner());
+    }
+
+    @Test
+    void claim_KeyWithOtherParameters_ShouldBeRejected() {
+        cache.claim("developer", "key-1", FINGERPRINT).complete("0123456789ABCDEF", "2024-01-01T00:00:00Z");
+
+        long otherRoute = IdempotencyCache.fingerprint("MY", "SG", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+        assertThrows(IdempotencyKeyReusedException.class, () -> cache.claim("developer", "key-1", otherRoute));
+    }
+
+    @Test
+    void claim_AfterFailedGeneration_ShouldLetRetryGenerateAgain() {
+        IdempotencyCache.Claim first = cache.claim("developer", "key-1", FINGERPRINT);
+        IdempotencyCache.Claim waiting = cache.claim("developer", "key-1", FINGERPRINT);
+
+        first.abandon(new TrackingNumberGenerationException("boom"));
+
+        assertThrows(CompletionException.class, () -> waiting.result().join());
+        assertTrue(cache.claim("developer", "key-1", FINGERPRINT).isOwner());
+    }
+
+    @Test
+    void claim_WhenFirstRequestOutlastsWait_ShouldFailDuplicateButNotOwner() {
+        IdempotencyCache shortWait = new IdempotencyCache(100, 60_000, 20);
+        IdempotencyCache.Claim first = shortWait.claim("developer", "key-1", FINGERPRINT);
+        IdempotencyCache.Claim waiting = shortWait.claim("developer", "key-1", FINGERPRINT);
+
+        CompletionException e = assertThrows(CompletionException.class, () -> waiting.result().join());
+        assertInstanceOf(IdempotencyKeyInProgressException.class, e.getCause());
+
+        first.complete("0123456789ABCDEF", "2024-01-01T00:00:00Z");
+        assertEquals("0123456789ABCDEF",
+                     shortWait.claim("developer", "key-1", FINGERPRINT).result().join().trackingNumber());
+    }
+
+    @Test
+    void claim_AfterWindow_ShouldGenerateAgain() throws InterruptedException {
+        IdempotencyCache shortWindow = new IdempotencyCache(100, 20, 60_000);
+        shortWindow.claim("developer", "key-1", FINGERPRINT).complete("0123456789ABCDEF", "2024-01-01T00:00:00Z");
+
+        Thread.sleep(50);
+
+        assertTrue(shortWindow.claim("developer", "key-1", FINGERPRINT).isOwner());
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssuedNumberRegistryTest {
+
+    private static final String CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void register_SameNumberTwice_ShouldReportCollision() {
+        IssuedNumberRegistry registry = newRegistry();
+
+        assertTrue(registry.register("0123456789ABCDEF", "MY", "ID", 1.234, CUSTOMER));
+        assertFalse(registry.register("0123456789ABCDEF", "MY", "ID", 1.234, CUSTOMER));
+        assertTrue(registry.register("0123456789ABCDEE", "MY", "ID", 1.234, CUSTOMER));
+
+        assertEquals(2, registry.getIssuedCount());
+        assertEquals(1, registry.getCollisionCount());
+        assertTrue(registry.mightContain("0123456789ABCDEF"));
+        assertFalse(registry.mightContain("FEDCBA9876543210"));
+        registry.stop();
+    }
+
+    @Test
+    void start_ShouldRecoverIssuedNumbersFromLog() {
+        IssuedNumberRegistry registry = newRegistry();
+        for (long i = 0; i < 1_000; i++) {
+            assertTrue(registry.register(hex(i), "MY", "ID", 1.0, CUSTOMER));
+        }
+        registry.stop();
+
+        IssuedNumberRegistry reopened = newRegistry();
+
+        assertEquals(1_000, reopened.getIssuedCount());
+        assertFalse(reopened.register(hex(500), "MY", "ID", 1.0, CUSTOMER));
+        assertTrue(reopened.register(hex(1_000), "MY", "ID", 1.0, CUSTOMER));
+        assertEquals(1_001, reopened.getIssuedCount());
+        reopened.stop();
+    }
+
+    @Test
+    void lookup_ShouldReturnRecordedIssueAfterRestart() {
+        IssuedNumberRegistry registry = newRegistry();
+        assertTrue(registry.register("00000000000000FF", "MY", "ID", 2.5, CUSTOMER));
+        registry.stop();
+
+        IssuedNumberRegistry reopened = newRegistry();
+        IssuedNumber issued = reopened.lookup("00000000000000FF");
+
+        assertNotNull(issued);
+        assertEquals(0xFFL, issued.number());
+        assertEquals("MY", issued.originCountryId());
+        assertEquals("ID", issued.destinationCountryId());
+        assertEquals(2.5, issued.weight());
+        assertEquals(CUSTOMER, issued.customerId());
+        assertNull(reopened.lookup("00000000000000FE"));
+        reopened.stop();
+    }
+
+    @Test
+    void lookup_WithOtherSpellingOfIssuedNumber_ShouldNotFindIt() {
+        IssuedNumberRegistry registry = newRegistry();
+        assertTrue(registry.register("00000000000000FF", "MY", "ID", 2.5, CUSTOMER));
+
+        assertNull(registry.lookup("00000000000000ff"));
+        // Full-width digits, which Character.digit would read as 0 to 9
+        assertNull(registry.lookup("\uFF10".repeat(14) + "FF"));
+        assertNotNull(registry.lookup("00000000000000FF"));
+        registry.stop();
+    }
+
+    @Test
+    void register_PastExpectedNumbers_ShouldCountOnlyRealCollisions() {
+        // A filter sized for 100 numbers is saturated long before 20,000
+        IssuedNumberRegistry registry = new IssuedNumberRegistry(directory.toString(), 1, 10, 100, 0.001);
+        registry.start();
+        for (long i = 0; i < 20_000; i++) {
+            assertTrue(registry.register(hex(i), "MY", "ID", 1.0, CUSTOMER), "Rejected " + i);
+        }
+        assertFalse(registry.register(hex(12_345), "MY", "ID", 1.0, CUSTOMER));
+
+        assertEquals(1, registry.getCollisionCount());
+        assertTrue(registry.getFalsePositiveCount() > 0);
+        assertEquals(200.0, registry.getFilterLoad());
+        // The index grew past its initial size, so every number can still be looked up
+        assertNotNull(registry.lookup(hex(19_999)));
+        registry.stop();
+
+        IssuedNumberRegistry reopened = new IssuedNumberRegistry(directory.toString(), 1, 10, 100, 0.001);
+        reopened.start();
+        assertEquals(20_000, reopened.getIssuedCount());
+        assertTrue(reopened.register(hex(20_000), "MY", "ID", 1.0, CUSTOMER));
+        assertNotNull(reopened.lookup(hex(7)));
+        reopened.stop();
+    }
+
+    @Test
+    void register_PastTwoThirdsOfIndex_ShouldGrowItOnTheFlushThread() throws InterruptedException {
+        // 100 expected numbers give an index of 192, grown ahead from 128
+        IssuedNumberRegistry registry = new IssuedNumberRegistry(directory.toString(), 1, 10, 100, 0.001);
+        registry.start();
+        for (long i = 0; i < 150; i++) {
+            assertTrue(registry.register(hex(i), "MY", "ID", 1.0, CUSTOMER));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.getBackgroundIndexGrowthCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, registry.getBackgroundIndexGrowthCount());
+        assertEquals(0, registry.getRequestIndexGrowthCount());
+        assertNotNull(registry.lookup(hex(149)));
+        registry.stop();
+    }
+
+    @Test
+    void index_WhenFull_ShouldRefuseInsteadOfLooping(@TempDir Path indexDirectory) {
+        IssuedNumberIndex index = new IssuedNumberIndex(indexDirectory.resolve("test.idx"), 12);
+
+        for (long number = 0; number < index.getCapacity(); number++) {
+            assertTrue(index.put(number, number));
+        }
+        assertFalse(index.put(-1L, 99));
+        assertEquals(7, index.get(7, position -> true));
+        assertEquals(-1, index.get(-1L, position -> true));
+        index.close();
+    }
+
+    @Test
+    void log_ShouldRollOverToNewSegmentsAndIgnoreTornTail() throws Exception {
+        IssuedNumberLog log = new IssuedNumberLog(directory, IssuedNumberLog.RECORD_SIZE * 10L);
+        log.open((index, number) -> fail("Log should start empty"));
+        for (long i = 0; i < 25; i++) {
+            log.append(i, 0, 0, 0, 1.0, "MY", "ID");
+        }
+        log.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+        // Corrupt the last record, as a write cut short by a crash would
+        Path lastSegment = directory.resolve("issued-0000000002.log");
+        byte[] bytes = Files.readAllBytes(lastSegment);
+        bytes[4 * IssuedNumberLog.RECORD_SIZE + 3] ^= 1;
+        Files.write(lastSegment, bytes);
+
+        IssuedNumberLog reopened = new IssuedNumberLog(directory, IssuedNumberLog.RECORD_SIZE * 10L);
+        AtomicInteger recovered = new AtomicInteger();
+        reopened.open((index, number) -> {
+            assertEquals(index, number);
+            recovered.incrementAndGet();
+        });
+
+        assertEquals(24, recovered.get());
+        assertEquals(24, reopened.append(24, 0, 0, 0, 1.0, "MY", "ID"));
+        reopened.close();
+    }
+
+    @Test
+    void register_Concurrently_ShouldRecordEveryDistinctNumberOnce() throws Exception {
+        IssuedNumberRegistry registry = newRegistry();
+        int numberOfThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        AtomicInteger accepted = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int t = 0; t < numberOfThreads; t++) {
+            futures[t] = CompletableFuture.runAsync(() -> {
+                // Every thread offers the same numbers, only one may win each
+                for (long i = 0; i < 5_000; i++) {
+                    if (registry.register(hex(i), "MY", "ID", 1.0, CUSTOMER)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        // Filter hits are confirmed against the index, so no new number is ever turned away
+        assertEquals(5_000, accepted.get());
+        assertEquals(accepted.get(), registry.getIssuedCount());
+        registry.stop();
+    }
+
+    private IssuedNumberRegistry newRegistry() {
+        IssuedNumberRegistry registry = new IssuedNumberRegistry(directory.toString(), 1, 10, 100_000, 0.001);
+        registry.start();
+        return registry;
+    }
+
+    private static String hex(long value) {
+        return String.format("%016X", value);
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.service;
+
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchingRateLimiterTest {
+
+    private static final long CLIENT = 0xFFFFFFFF0A000001L;
+
+    private static final Quota HUNDRED_PER_MINUTE = new Quota(0, "test/all", "100/1m");
+
+    private FakeRespServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRespServer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void tryConsume_AcrossReplicas_ShouldNeverExceedSharedLimit() throws Exception {
+        PrefetchingRateLimiter first = newLimiter(server.getPort(), 10);
+        PrefetchingRateLimiter second = newLimiter(server.getPort(), 10);
+
+        int numberOfThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        AtomicInteger granted = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            PrefetchingRateLimiter replica = i % 2 == 0 ? first : second;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 50; j++) {
+                    if (replica.tryConsume(CLIENT, HUNDRED_PER_MINUTE, 1)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+        first.close();
+        second.close();
+
+        // Leases still held when the minute rolls over are dropped, so allow for a window boundary
+        assertTrue(granted.get() <= 200, "Granted " + granted.get());
+        if (server.getKeyCount() == 1) {
+            assertEquals(100, granted.get());
+        }
+    }
+
+    @Test
+    void tryConsume_ShouldServeMostRequestsFromPrefetchedTokens() {
+        PrefetchingRateLimiter limiter = newLimiter(server.getPort(), 50);
+        Quota quota = new Quota(0, "test/all", "1000/1m");
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryConsume(CLIENT, quota, 1));
+        }
+        limiter.close();
+
+        // Four claims of 50, plus one more if the minute rolled over mid-test
+        assertTrue(server.getIncrements() <= 5, "Round trips: " + server.getIncrements());
+    }
+
+    @Test
+    void tryConsume_WhenWindowRunsOut_ShouldGrantOnlyWhatIsLeft() {
+        PrefetchingRateLimiter first = newLimiter(server.getPort(), 10);
+        PrefetchingRateLimiter second = newLimiter(server.getPort(), 10);
+        Quota quota = new Quota(0, "test/all", "25/1m");
+
+        assertTrue(first.tryConsume(CLIENT, quota, 20));
+        assertTrue(second.tryConsume(CLIENT, quota, 3));
+        assertFalse(second.tryConsume(CLIENT, quota, 5), "Only 2 tokens are left in the shared window");
+        assertFalse(first.tryConsume(CLIENT, quota, 26), "More than the limit can never be granted");
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void tryConsume_WhenStoreIsDown_ShouldFallBackToLocalLimit() throws IOException {
+        int port = server.getPort();
+        server.close();
+        PrefetchingRateLimiter limiter = newLimiter(port, 1);
+        Quota quota = new Quota(0, "test/all", "3/1m");
+
+        assertTrue(limiter.tryConsume(CLIENT, quota, 1));
+        assertTrue(limiter.tryConsume(CLIENT, quota, 1));
+        assertTrue(limiter.tryConsume(CLIENT, quota, 1));
+        assertFalse(limiter.tryConsume(CLIENT, quota, 1));
+        limiter.close();
+    }
+
+    private static PrefetchingRateLimiter newLimiter(int port, int prefetch) {
+        BoundedEvictingStore<Bucket> buckets = new BoundedEvictingStore<>("buckets", 100, 60_000);
+        return new PrefetchingRateLimiter(
+            new RespClient("127.0.0.1", port, 1_000, 2), prefetch,
+            new LocalRateLimiter(buckets),
+            new BoundedEvictingStore<>("leases", 100, 60_000));
+    }
+
+    /**
+     * Answers INCRBY and PEXPIRE from an in-memory map, enough to stand in for Redis
+     */
+    private static final class FakeRespServer implements AutoCloseable {
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final Map<String, Long> values = new ConcurrentHashMap<>();
+        private final AtomicInteger increments = new AtomicInteger();
+
+        private FakeRespServer() throws IOException {
+            Thread acceptor = new Thread(this::acceptLoop, "fake-resp-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getIncrements() {
+            return increments.get();
+        }
+
+        int getKeyCount() {
+            return values.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> handle(socket), "fake-resp-connection");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    String[] command = readCommand(in);
+                    if (command == null) {
+                        return;
+                    }
+                    String reply = switch (command[0]) {
+                        case "INCRBY" -> {
+                            increments.incrementAndGet();
+                            yield ":" + values.merge(command[1], Long.parseLong(command[2]), Long::sum) + "\r\n";
+                        }
+                        case "PEXPIRE" -> ":1\r\n";
+                        default -> "-ERR unknown command\r\n";
+                    };
+                    out.write(reply.getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        private static String[] readCommand(InputStream in) throws IOException {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            String[] arguments = new String[Integer.parseInt(header.substring(1))];
+            for (int i = 0; i < arguments.length; i++) {
+                int length = Integer.parseInt(readLine(in).substring(1));
+                arguments[i] = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+                readLine(in);
+            }
+            return arguments;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c < 0) {
+                    return null;
+                }
+                line.append((char) c);
+            }
+            in.read();
+            return line.toString();
+        }
+    }
+}
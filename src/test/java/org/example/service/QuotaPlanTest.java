@@ -0,0 +1,103 @@
+package org.example.service;
+
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaPlanTest {
+
+    private static final String GOLD_CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+    private static final String OTHER_CUSTOMER = "3f2504e0-4f89-41d3-9a0c-0305e82c3301";
+
+    private final QuotaPlan plan = new QuotaPlan(
+        Map.of("gold", Map.of("all", "20/1s,1000/1m", "batch", "5000/1m"),
+               "silver", Map.of("single", "200/1m")),
+        "100/1m",
+        Map.of("developer", "silver"),
+        Map.of(GOLD_CUSTOMER, "gold"),
+        Map.of(GOLD_CUSTOMER, List.of("developer", "ops")));
+
+    @Test
+    void match_ShouldMapRateLimitedPathsOnly() {
+        assertEquals(QuotaPlan.Route.SINGLE, QuotaPlan.Route.match("/next-tracking-number"));
+        assertEquals(QuotaPlan.Route.BATCH, QuotaPlan.Route.match("/next-tracking-numbers"));
+        assertEquals(QuotaPlan.Route.STREAM, QuotaPlan.Route.match("/next-tracking-numbers/stream"));
+        assertNull(QuotaPlan.Route.match("/actuator/health"));
+    }
+
+    @Test
+    void tiers_ShouldResolveCustomersAndPrincipals() {
+        int gold = plan.customerTier(GOLD_CUSTOMER, "developer");
+        assertEquals("gold", plan.tierName(gold));
+        assertEquals(gold, plan.customerTier(GOLD_CUSTOMER, "ops"));
+        assertEquals(-1, plan.customerTier(OTHER_CUSTOMER, "developer"));
+        assertEquals(-1, plan.customerTier(GOLD_CUSTOMER.toUpperCase(), "developer"));
+        assertEquals(-1, plan.customerTier("not-a-uuid", "developer"));
+        assertEquals(-1, plan.customerTier(null, "developer"));
+
+        assertEquals("silver", plan.tierName(plan.principalTier("developer")));
+        assertEquals(-1, plan.principalTier("unknown"));
+        assertEquals(-1, plan.principalTier(null));
+        assertEquals(QuotaPlan.DEFAULT_TIER, plan.tierName(0));
+    }
+
+    @Test
+    void customerTier_ForPrincipalsNotAssignedToTheCustomer_ShouldNotApply() {
+        // Anyone can send a customer_id; only the customer's principals get its tier and bucket
+        assertEquals(-1, plan.customerTier(GOLD_CUSTOMER, "mallory"));
+        assertEquals(-1, plan.customerTier(GOLD_CUSTOMER, null));
+    }
+
+    @Test
+    void quotaFor_RoutesWithoutOverride_ShouldShareTheTierQuota() {
+        int gold = plan.customerTier(GOLD_CUSTOMER, "developer");
+
+        Quota single = plan.quotaFor(gold, QuotaPlan.Route.SINGLE);
+        Quota stream = plan.quotaFor(gold, QuotaPlan.Route.STREAM);
+        Quota batch = plan.quotaFor(gold, QuotaPlan.Route.BATCH);
+
+        assertSame(single, stream);
+        assertNotEquals(single.getId(), batch.getId());
+        assertEquals(1000, single.getSustainedCapacity());
+        assertEquals(Duration.ofMinutes(1), single.getSustainedPeriod());
+        assertEquals(5000, batch.getSustainedCapacity());
+        assertEquals(100, plan.quotaFor(0, QuotaPlan.Route.SINGLE).getSustainedCapacity());
+        // The burst limit caps what one request can ask for
+        assertEquals(20, single.getMaxConsumption());
+        assertEquals(5000, batch.getMaxConsumption());
+    }
+
+    @Test
+    void quota_ShouldEnforceBurstAndSustainedLimitsInOneBucket() {
+        LocalRateLimiter limiter = new LocalRateLimiter(new BoundedEvictingStore<Bucket>("test", 16, 60_000));
+        Quota quota = plan.quotaFor(plan.customerTier(GOLD_CUSTOMER, "developer"), QuotaPlan.Route.SINGLE);
+        long key = QuotaPlan.bucketKey(QuotaPlan.customerKey(GOLD_CUSTOMER), quota);
+
+        assertTrue(limiter.tryConsume(key, quota, 20));
+        assertFalse(limiter.tryConsume(key, quota, 1), "The 20 per second burst limit should apply");
+        long otherKey = QuotaPlan.bucketKey(QuotaPlan.customerKey(OTHER_CUSTOMER), quota);
+        assertTrue(limiter.tryConsume(otherKey, quota, 1), "Customers should not share buckets");
+    }
+
+    @Test
+    void constructor_WithUnknownNames_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> new QuotaPlan(
+            Map.of("gold", Map.of("bulk", "10/1m")), "100/1m", Map.of(), Map.of(), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaPlan(
+            Map.of(), "100/1m", Map.of("developer", "platinum"), Map.of(), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaPlan(
+            Map.of("gold", Map.of()), "100/1m", Map.of(), Map.of("customer-1", "gold"),
+            Map.of("customer-1", List.of("developer"))));
+        // A customer tier nobody may use, and principals for a customer without a tier
+        assertThrows(IllegalArgumentException.class, () -> new QuotaPlan(
+            Map.of("gold", Map.of()), "100/1m", Map.of(), Map.of(GOLD_CUSTOMER, "gold"), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaPlan(
+            Map.of("gold", Map.of()), "100/1m", Map.of(), Map.of(), Map.of(GOLD_CUSTOMER, List.of("developer"))));
+        assertThrows(IllegalArgumentException.class, () -> new Quota(0, "bad", "100"));
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomComponentPoolTest {
+
+    private final EntropySource entropySource = new ThreadLocalSecureRandomEntropySource("DRBG", 0);
+
+    private RandomComponentPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+        pool = new RandomComponentPool(entropySource, 1000, 100, 10);
+
+        assertEquals(1024, pool.getCapacity());
+        assertEquals(0, pool.getDepth());
+    }
+
+    @Test
+    void start_ShouldFillPoolInBackground() throws Exception {
+        pool = new RandomComponentPool(entropySource, 64, 16, 1);
+        pool.start();
+
+        awaitDepth(64);
+        assertEquals(0, pool.getEmptyCount());
+    }
+
+    @Test
+    void nextLong_WhenPoolIsEmpty_ShouldFallBackAndCountEmpty() {
+        // Never started, so every call finds the pool empty
+        pool = new RandomComponentPool(entropySource, 64, 16, 1);
+
+        pool.nextLong();
+        pool.nextLong();
+
+        assertEquals(2, pool.getEmptyCount());
+    }
+
+    @Test
+    void nextLong_ConcurrentConsumers_ShouldNeverHandOutSameSlotTwice() throws Exception {
+        pool = new RandomComponentPool(entropySource, 1 << 16, 1 << 14, 1);
+        pool.start();
+        awaitDepth(1 << 16);
+
+        int numberOfThreads = 8;
+        int takesPerThread = 4_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < takesPerThread; j++) {
+                    values.add(pool.nextLong());
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(numberOfThreads * takesPerThread, values.size());
+    }
+
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, pool.getDepth());
+    }
+}
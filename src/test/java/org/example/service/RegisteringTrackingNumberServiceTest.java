@@ -0,0 +1,70 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegisteringTrackingNumberServiceTest {
+
+    private static final String CUSTOMER = "de619854-b59b-425e-9db4-943979e1bd49";
+
+    @Mock
+    private TrackingNumberService engine;
+
+    @Mock
+    private IssuedNumberRegistry issuedNumberRegistry;
+
+    @InjectMocks
+    private RegisteringTrackingNumberService trackingNumberService;
+
+    @Test
+    void generateTrackingNumber_WhenNumberCollides_ShouldGenerateAnother() {
+        when(engine.generateTrackingNumber("MY", "ID", 1.234, CUSTOMER))
+            .thenReturn("0123456789ABCDEF", "0123456789ABCDEE");
+        when(issuedNumberRegistry.register("0123456789ABCDEF", "MY", "ID", 1.234, CUSTOMER)).thenReturn(false);
+        when(issuedNumberRegistry.register("0123456789ABCDEE", "MY", "ID", 1.234, CUSTOMER)).thenReturn(true);
+
+        String result = trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, CUSTOMER);
+
+        assertEquals("0123456789ABCDEE", result);
+        verify(engine, times(2)).generateTrackingNumber("MY", "ID", 1.234, CUSTOMER);
+    }
+
+    @Test
+    void generateTrackingNumber_WhenEveryAttemptCollides_ShouldThrow() {
+        when(engine.generateTrackingNumber(anyString(), anyString(), anyDouble(), anyString()))
+            .thenReturn("0123456789ABCDEF");
+        when(issuedNumberRegistry.register(anyString(), anyString(), anyString(), anyDouble(), anyString()))
+            .thenReturn(false);
+
+        assertThrows(TrackingNumberGenerationException.class,
+            () -> trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, CUSTOMER));
+        verify(engine, times(RegisteringTrackingNumberService.MAX_ATTEMPTS))
+            .generateTrackingNumber("MY", "ID", 1.234, CUSTOMER);
+    }
+
+    @Test
+    void generateBatch_ShouldRegisterEveryNumber() {
+        when(engine.generateBatch("MY", "ID", 1.234, CUSTOMER, 3))
+            .thenReturn(Stream.of("0000000000000001", "0000000000000002", "0000000000000003"));
+        when(issuedNumberRegistry.register(anyString(), anyString(), anyString(), anyDouble(), anyString()))
+            .thenReturn(true);
+
+        List<String> result = trackingNumberService.generateBatch("MY", "ID", 1.234, CUSTOMER, 3)
+            .collect(Collectors.toList());
+
+        assertEquals(List.of("0000000000000001", "0000000000000002", "0000000000000003"), result);
+        verify(issuedNumberRegistry, times(3)).register(anyString(), eq("MY"), eq("ID"), eq(1.234), eq(CUSTOMER));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCodecTest {
+
+    private static final Pattern TRACKING_NUMBER_PATTERN = Pattern.compile("^[A-Z0-9]{1,16}$");
+
+    private final RouteCodec routeCodec = new RouteCodec();
+
+    @Test
+    void encode_ShouldRoundTripEveryRoute() {
+        Set<String> isoCountries = Set.of(Locale.getISOCountries());
+        assertEquals(isoCountries.size(), RouteCodec.countryCount());
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+
+        for (String origin : isoCountries) {
+            for (String destination : isoCountries) {
+                assertTrue(routeCodec.encode(origin, destination, 42, buffer, 0));
+                String trackingNumber = TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+
+                assertTrue(TRACKING_NUMBER_PATTERN.matcher(trackingNumber).matches(), trackingNumber);
+                // Never a hex digit first, so route numbers cannot be mistaken for plain ones
+                assertTrue(trackingNumber.charAt(0) == 'G' || trackingNumber.charAt(0) == 'H', trackingNumber);
+                RouteCodec.Route route = RouteCodec.decode(trackingNumber);
+                assertEquals(origin, route.originCountryId());
+                assertEquals(destination, route.destinationCountryId());
+                // Interned: decoding the same route again returns the same instance
+                assertSame(route, RouteCodec.decode(trackingNumber));
+                assertEquals(42, RouteCodec.suffix(trackingNumber));
+            }
+        }
+    }
+
+    @Test
+    void encode_ShouldKeepLow62BitsOfTheValue() {
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+        SplittableRandom random = new SplittableRandom(7);
+        long[] values = {0, 1, RouteCodec.SUFFIX_MASK, -1, Long.MIN_VALUE, random.nextLong(), random.nextLong()};
+
+        for (long value : values) {
+            assertTrue(routeCodec.encode("MY", "ID", value, buffer, 0));
+            String trackingNumber = TrackingNumberEncoder.toString(buffer, 0, buffer.length);
+            assertEquals(value & RouteCodec.SUFFIX_MASK, RouteCodec.suffix(trackingNumber), trackingNumber);
+        }
+        // Sequence ids are 62 bits and survive whole
+        long id = ((long) SequenceBlockAllocator.MAX_NODE_ID << SequenceBlockAllocator.SEQUENCE_BITS)
+                | SequenceBlockAllocator.MAX_SEQUENCE;
+        routeCodec.encode("NZ", "FJ", id, buffer, 0);
+        assertEquals(id, RouteCodec.suffix(TrackingNumberEncoder.toString(buffer, 0, buffer.length)));
+    }
+
+    @Test
+    void encode_WithUnassignedCountry_ShouldWriteNothing() {
+        byte[] buffer = new byte[TrackingNumberEncoder.LENGTH];
+
+        assertFalse(routeCodec.encode("XX", "ID", 1, buffer, 0));
+        assertFalse(routeCodec.encode("MY", "my", 1, buffer, 0));
+        assertFalse(routeCodec.encode("MY", null, 1, buffer, 0));
+        assertArrayEquals(new byte[TrackingNumberEncoder.LENGTH], buffer);
+    }
+
+    @Test
+    void decode_ShouldRejectNumbersWithoutRoute() {
+        // Plain hex layout
+        assertNull(RouteCodec.decode("FFFFFFFFFFFFFFFF"));
+        assertNull(RouteCodec.decode("0F1E2D3C4B5A6978"));
+        // Route code past the table, suffix above 62 bits, bad characters, wrong length
+        assertNull(RouteCodec.decode("Z000000000000000"));
+        assertNull(RouteCodec.decode("HZZZ000000000000"));
+        assertNull(RouteCodec.decode("G000ZZZZZZZZZZZZ"));
+        assertNull(RouteCodec.decode("G000g00000000000"));
+        assertNull(RouteCodec.decode("G000-00000000000"));
+        assertNull(RouteCodec.decode("G000\u00E900000000000"));
+        assertNull(RouteCodec.decode("G00000000000000"));
+        assertNull(RouteCodec.decode(null));
+        assertNotNull(RouteCodec.decode("G000000000000000"));
+    }
+}
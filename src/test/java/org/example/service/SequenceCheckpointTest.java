@@ -0,0 +1,98 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceCheckpointTest {
+
+    private static final int NODE_ID = 7;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reserve_ShouldPersistALeaseAheadAndCheckpointOnTheRequestThreadOnlyWhenOutrun() {
+        SequenceCheckpoint checkpoint = new SequenceCheckpoint(directory.resolve("sequence.ckpt"), NODE_ID, 1000, 60_000);
+        assertEquals(0, checkpoint.getRecoveredMark());
+
+        checkpoint.reserve(100);
+        assertEquals(1100, checkpoint.getPersistedMark());
+        assertEquals(1, checkpoint.getRequestCheckpointCount());
+
+        // Well inside the lease: nothing to write
+        checkpoint.reserve(400);
+        assertFalse(checkpoint.checkpointIfNeeded());
+        // Within half a lease of the mark: the background thread extends it
+        checkpoint.reserve(700);
+        assertTrue(checkpoint.checkpointIfNeeded());
+        assertEquals(1700, checkpoint.getPersistedMark());
+        checkpoint.reserve(1600);
+        assertEquals(1, checkpoint.getRequestCheckpointCount());
+        assertEquals(1, checkpoint.getBackgroundCheckpointCount());
+    }
+
+    @Test
+    void recover_ShouldResumeAtTheNewestValidSlot() throws IOException {
+        Path file = directory.resolve("sequence.ckpt");
+        SequenceCheckpoint checkpoint = new SequenceCheckpoint(file, NODE_ID, 1000, 60_000);
+        checkpoint.reserve(5_000);
+        checkpoint.reserve(9_000);
+        assertEquals(10_000, checkpoint.getPersistedMark());
+
+        // Reopened without closing, as after a crash
+        assertEquals(10_000, new SequenceCheckpoint(file, NODE_ID, 1000, 60_000).getRecoveredMark());
+
+        // A write torn in the newest slot falls back to the previous lease
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // Slot 0, inside the mark
+            raf.seek(20);
+            raf.write(0x5A);
+        }
+        SequenceCheckpoint recovered = new SequenceCheckpoint(file, NODE_ID, 1000, 60_000);
+        assertEquals(6_000, recovered.getRecoveredMark());
+
+        // The next checkpoint overwrites the damaged slot and stays ahead of the one it fell back to
+        recovered.reserve(6_500);
+        assertEquals(7_500, new SequenceCheckpoint(file, NODE_ID, 1000, 60_000).getRecoveredMark());
+    }
+
+    @Test
+    void constructor_ShouldRefuseFilesItCannotTrust() throws IOException {
+        Path file = directory.resolve("sequence.ckpt");
+        new SequenceCheckpoint(file, NODE_ID, 1000, 60_000).reserve(1);
+
+        assertThrows(IllegalStateException.class, () -> new SequenceCheckpoint(file, NODE_ID + 1, 1000, 60_000));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(SequenceCheckpoint.SLOT_SIZE + 20);
+            raf.write(0x5A);
+        }
+        // Only slot 1 was ever written, so nothing valid is left
+        assertThrows(IllegalStateException.class, () -> new SequenceCheckpoint(file, NODE_ID, 1000, 60_000));
+    }
+
+    @Test
+    void allocator_ShouldResumeAboveIdsIssuedAheadOfTheClock() {
+        Path file = directory.resolve("sequence.ckpt");
+        SequenceCheckpoint checkpoint = new SequenceCheckpoint(file, NODE_ID, 1000, 60_000);
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator(NODE_ID, 16, checkpoint);
+        long first = allocator.leaseBlock() & SequenceBlockAllocator.MAX_SEQUENCE;
+        // A node that ran far ahead of the clock, which clock seeding alone cannot recover from
+        long ahead = first + (1L << 40);
+        checkpoint.reserve(ahead);
+
+        SequenceBlockAllocator restarted = new SequenceBlockAllocator(
+            NODE_ID, 16, new SequenceCheckpoint(file, NODE_ID, 1000, 60_000));
+        long resumed = restarted.leaseBlock();
+
+        assertEquals(NODE_ID, resumed >>> SequenceBlockAllocator.SEQUENCE_BITS);
+        assertTrue((resumed & SequenceBlockAllocator.MAX_SEQUENCE) >= ahead);
+        assertThrows(IllegalArgumentException.class, () -> new SequenceBlockAllocator(NODE_ID + 1, 16, checkpoint));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceTrackingNumberServiceTest {
+
+    private static final Pattern TRACKING_NUMBER_PATTERN = Pattern.compile("^[A-Z0-9]{1,16}$");
+
+    private static final int NODE_ID = 7;
+
+    @Spy
+    private GenerationMetrics generationMetrics = new GenerationMetrics(1, 1000, true);
+
+    @InjectMocks
+    private SequenceTrackingNumberService trackingNumberService = new SequenceTrackingNumberService(NODE_ID, 16);
+
+    @Test
+    void generateTrackingNumber_ShouldEncodeNodeIdAndIncreaseWithinThread() {
+        String first = trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+        String second = trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49");
+
+        assertTrue(TRACKING_NUMBER_PATTERN.matcher(first).matches());
+        assertEquals(16, first.length());
+
+        long firstId = Long.parseUnsignedLong(first, 16);
+        long secondId = Long.parseUnsignedLong(second, 16);
+        assertEquals(NODE_ID, firstId >>> SequenceBlockAllocator.SEQUENCE_BITS);
+        assertEquals(firstId + 1, secondId);
+        verify(generationMetrics, times(2)).recordGeneration(eq("MY"), eq("ID"), anyLong());
+    }
+
+    @Test
+    void generateTrackingNumber_ConcurrentExecution_ShouldNeverRepeat() throws Exception {
+        int numberOfThreads = 8;
+        int requestsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Set<String> generatedNumbers = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    generatedNumbers.add(trackingNumberService.generateTrackingNumber(
+                        "MY", "ID", 1.234, "de619854-b59b-425e-9db4-943979e1bd49"));
+                }
+            }, executor);
+        }
+
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(numberOfThreads * requestsPerThread, generatedNumbers.size());
+    }
+
+    @Test
+    void leaseBlock_ShouldReturnDisjointRangesOnSameNode() {
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator(NODE_ID, 100);
+
+        long first = allocator.leaseBlock();
+        long second = allocator.leaseBlock();
+
+        assertTrue(second >= first + 100, "Blocks must not overlap");
+    }
+
+    @Test
+    void allocator_ShouldRejectOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SequenceBlockAllocator(SequenceBlockAllocator.MAX_NODE_ID + 1, 16));
+        assertThrows(IllegalArgumentException.class, () -> new SequenceBlockAllocator(0, 0));
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantNamespacesTest {
+
+    private static final String STARK = "de619854-b59b-425e-9db4-943979e1bd49";
+    private static final String GLOBEX = "0b1e4b7a-2f44-4c3e-9a51-6f0e8d2c7b19";
+    private static final String INITECH = "5a7c3e21-8d4b-4f6a-b2c9-1e0f7a3d5b68";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void nextTrackingNumber_ShouldUseTheCustomersNamespace() throws Exception {
+        TenantNamespaces tenants = load("# customer_id,prefix\n" + STARK + ",STAR\n" + GLOBEX + ", XG \n");
+
+        String stark = tenants.nextTrackingNumber(STARK);
+        String globex = tenants.nextTrackingNumber(GLOBEX);
+
+        assertTrue(stark.matches("STAR[0-9A-Z]{12}"), stark);
+        assertTrue(globex.matches("XG00[0-9A-Z]{12}"), globex);
+        assertNull(tenants.nextTrackingNumber(INITECH));
+        assertNull(tenants.nextTrackingNumber("not-a-uuid"));
+        assertNull(tenants.nextTrackingNumber(null));
+        assertEquals(2, tenants.getCustomerCount());
+        assertEquals(1, tenants.namespaceOf(STARK).getGeneratedCount());
+    }
+
+    @Test
+    void nextTrackingNumber_ConcurrentExecution_ShouldGenerateUniqueNumbers() throws Exception {
+        TenantNamespaces tenants = load(STARK + ",STAR\n");
+        int numberOfThreads = 8;
+        int requestsPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        Set<String> generatedNumbers = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] futures = new CompletableFuture[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    generatedNumbers.add(tenants.nextTrackingNumber(STARK));
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get();
+        executor.shutdown();
+
+        assertEquals(numberOfThreads * requestsPerThread, generatedNumbers.size());
+        assertEquals(numberOfThreads * requestsPerThread, tenants.namespaceOf(STARK).getGeneratedCount());
+    }
+
+    @Test
+    void reloadIfChanged_ShouldSwapCustomersAndKeepCounters() throws Exception {
+        TenantNamespaces tenants = load(STARK + ",STAR\n" + GLOBEX + ",XG\n");
+        TenantNamespaces.Namespace stark = tenants.namespaceOf(STARK);
+        Set<String> reported = ConcurrentHashMap.newKeySet();
+        tenants.setNamespaceListener(namespace -> reported.add(namespace.getPrefix()));
+        assertFalse(tenants.reloadIfChanged());
+
+        write(STARK + ",STAR\n" + INITECH + ",STAR\n" + GLOBEX + ",ZZZ\n");
+        assertTrue(tenants.reloadIfChanged());
+
+        // The STAR namespace and its counter carry over, new prefixes are reported once
+        assertSame(stark, tenants.namespaceOf(INITECH));
+        assertEquals("ZZZ", tenants.namespaceOf(GLOBEX).getPrefix());
+        assertEquals(Set.of("STAR", "XG", "ZZZ"), reported);
+        assertEquals(Set.of("STAR", "XG", "ZZZ"),
+                     tenants.getNamespaces().stream().map(TenantNamespaces.Namespace::getPrefix).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void reloadIfChanged_WithBrokenFile_ShouldKeepPreviousNamespaces() throws Exception {
+        TenantNamespaces tenants = load(STARK + ",STAR\n");
+
+        // Starting with a hex digit, a prefix could repeat a plain number
+        write(STARK + ",ABCD\n");
+        assertThrows(IllegalArgumentException.class, tenants::reloadIfChanged);
+        write(STARK + ",STAR\n" + STARK + ",XG\n");
+        assertThrows(IllegalArgumentException.class, tenants::reloadIfChanged);
+        write(STARK.toUpperCase() + ",STAR\n");
+        assertThrows(IllegalArgumentException.class, tenants::reloadIfChanged);
+        write(STARK + ",STA1\n");
+        assertThrows(IllegalArgumentException.class, tenants::reloadIfChanged);
+
+        assertEquals("STAR", tenants.namespaceOf(STARK).getPrefix());
+        assertThrows(IllegalArgumentException.class,
+                     () -> new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 0, 16, "plain"));
+        // No room for a route code or check character next to the prefix
+        write(STARK + ",STAR\n");
+        for (String format : new String[] {"route", "checked"}) {
+            assertThrows(IllegalStateException.class,
+                         () -> new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 0, 16, format));
+        }
+    }
+
+    @Test
+    void nextTrackingNumber_WithCheckpointFile_ShouldResumeEachNamespaceAboveItsCheckpoint() throws Exception {
+        write(STARK + ",STAR\n" + GLOBEX + ",XG\n");
+        String checkpoint = directory.resolve("sequence.ckpt").toString();
+        TenantNamespaces tenants = new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 0, 16, "plain",
+                                                        checkpoint, 100_000_000, 100);
+        String issued = tenants.nextTrackingNumber(STARK);
+        tenants.stop();
+
+        assertTrue(Files.exists(directory.resolve("sequence.ckpt.STAR")));
+        assertTrue(Files.exists(directory.resolve("sequence.ckpt.XG")));
+        TenantNamespaces restarted = new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 0, 16, "plain",
+                                                          checkpoint, 100_000_000, 100);
+        // Past the whole lease of the first run, not just past the clock
+        String resumed = restarted.nextTrackingNumber(STARK);
+        assertTrue(Long.parseLong(resumed.substring(4), 36) - Long.parseLong(issued.substring(4), 36) >= 100_000_000,
+                   issued + " then " + resumed);
+        restarted.stop();
+        // Each namespace's file belongs to this node
+        assertThrows(IllegalStateException.class,
+                     () -> new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 1, 16, "plain",
+                                                checkpoint, 100_000_000, 100));
+    }
+
+    private TenantNamespaces load(String content) throws Exception {
+        write(content);
+        return new TenantNamespaces(directory.resolve("tenants.csv").toString(), 1000, 0, 16, "plain");
+    }
+
+    // Moves the modification time forward, file systems may only keep whole seconds
+    private void write(String content) throws Exception {
+        Path file = directory.resolve("tenants.csv");
+        FileTime previous = Files.exists(file) ? Files.getLastModifiedTime(file) : FileTime.fromMillis(0);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(previous.toMillis() + 1000));
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantRoutingTrackingNumberServiceTest {
+
+    private static final String TENANT = "de619854-b59b-425e-9db4-943979e1bd49";
+    private static final String OTHER = "0b1e4b7a-2f44-4c3e-9a51-6f0e8d2c7b19";
+
+    @Mock
+    private TrackingNumberService engine;
+
+    @TempDir
+    Path directory;
+
+    private final GenerationMetrics generationMetrics = new GenerationMetrics(0, 1000, true);
+
+    private TenantRoutingTrackingNumberService trackingNumberService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = directory.resolve("tenants.csv");
+        Files.writeString(file, TENANT + ",STAR\n");
+        TenantNamespaces tenantNamespaces = new TenantNamespaces(file.toString(), 60_000, 0, 16, "plain");
+        trackingNumberService = new TenantRoutingTrackingNumberService(engine, tenantNamespaces, generationMetrics);
+    }
+
+    @Test
+    void generateTrackingNumber_ShouldUseTheNamespaceOnlyForTenants() {
+        when(engine.generateTrackingNumber("MY", "ID", 1.234, OTHER)).thenReturn("0123456789ABCDEF");
+
+        assertTrue(trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, TENANT).startsWith("STAR"));
+        assertEquals("0123456789ABCDEF", trackingNumberService.generateTrackingNumber("MY", "ID", 1.234, OTHER));
+        verify(engine, never()).generateTrackingNumber(anyString(), anyString(), anyDouble(), eq(TENANT));
+        assertEquals(1, generationMetrics.getGeneratedCount("MY", "ID"));
+    }
+
+    @Test
+    void generateBatch_ShouldRouteTheWholeBatch() {
+        when(engine.generateBatch("MY", "ID", 1.234, OTHER, 2)).thenReturn(Stream.of("0000000000000001", "0000000000000002"));
+
+        List<String> tenantNumbers = trackingNumberService.generateBatch("MY", "ID", 1.234, TENANT, 3)
+            .collect(Collectors.toList());
+        List<String> otherNumbers = trackingNumberService.generateBatch("MY", "ID", 1.234, OTHER, 2)
+            .collect(Collectors.toList());
+
+        assertEquals(3, tenantNumbers.stream().filter(n -> n.startsWith("STAR")).distinct().count());
+        assertEquals(List.of("0000000000000001", "0000000000000002"), otherNumbers);
+    }
+}